@@ -0,0 +1,78 @@
+package LexicalAnalyzer;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link BoundaryClassifier} that tests a whole vector of bytes (16 to 64, depending on the CPU)
+ * per step. Every set is turned into a few inclusive byte ranges; a lane is in the set when it
+ * falls in any of them. The first few bytes of a run, sets made of too many ranges and the tail of
+ * the input use the scalar loop.
+ * <p>
+ * Only loaded through {@link BoundaryClassifier#create}, so the rest of the lexer never links
+ * against {@code jdk.incubator.vector}.
+ */
+class VectorBoundaryClassifier extends BoundaryClassifier {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int MAX_RANGES = 4;
+    /** Most runs (keywords, small numbers, single spaces) end within a few bytes: check those one by one. */
+    private static final int SCALAR_PREFIX = 8;
+
+    /** Ranges of every set as {lo0, hi0, lo1, hi1, ...}, or null to use the scalar loop. */
+    private final byte[][] ranges;
+
+    VectorBoundaryClassifier(boolean[][] members) {
+        super(members);
+        ranges = new byte[members.length][];
+        for (int set = 0; set < members.length; set++) {
+            ranges[set] = toRanges(members[set]);
+        }
+    }
+
+    private static byte[] toRanges(boolean[] in) {
+        List<Integer> bounds = new ArrayList<>();
+        for (int b = 0; b < in.length; b++) {
+            if (in[b] && (b == 0 || !in[b - 1])) bounds.add(b);
+            if (in[b] && (b == in.length - 1 || !in[b + 1])) bounds.add(b);
+        }
+        if (bounds.isEmpty() || bounds.size() > 2 * MAX_RANGES) return null;
+
+        byte[] result = new byte[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = (byte) (int) bounds.get(i);
+        return result;
+    }
+
+    @Override
+    public int skip(ByteBuffer buffer, int from, int to, int set) {
+        byte[] r = ranges[set];
+        if (r == null) return super.skip(buffer, from, to, set);
+
+        int i = super.skip(buffer, from, Math.min(to, from + SCALAR_PREFIX), set);
+        if (i < from + SCALAR_PREFIX) return i;
+
+        int last = to - SPECIES.length();
+        while (i <= last) {
+            // Bytes >= 0x80 are negative here, so they never fall in an ASCII range
+            ByteVector v = ByteVector.fromByteBuffer(SPECIES, buffer, i, ByteOrder.nativeOrder());
+            VectorMask<Byte> in = v.compare(VectorOperators.GE, r[0]).and(v.compare(VectorOperators.LE, r[1]));
+            for (int k = 2; k < r.length; k += 2) {
+                in = in.or(v.compare(VectorOperators.GE, r[k]).and(v.compare(VectorOperators.LE, r[k + 1])));
+            }
+            if (!in.allTrue()) return i + in.not().firstTrue();
+            i += SPECIES.length();
+        }
+        return super.skip(buffer, i, to, set);
+    }
+
+    @Override
+    public String getName() {
+        return "vector " + SPECIES.vectorBitSize() + "-bit";
+    }
+}
@@ -0,0 +1,74 @@
+package LexicalAnalyzer;
+
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+
+/**
+ * Finds where a run of bytes ends: the first byte that is not in a given set.
+ * <p>
+ * The byte scanner uses it for the DFA states that loop on themselves (whitespace, the tail of an
+ * identifier, the digits of a number, the body of a comment): while the next bytes are in the loop
+ * set of the state the automaton cannot change, so the whole run is skipped in one call and the DFA
+ * only steps on the bytes that can end or change the lexeme.
+ * <p>
+ * {@link #create} returns the Vector API kernel when it is on the classpath and
+ * {@code jdk.incubator.vector} is available, and this scalar table lookup otherwise. The kernel
+ * lives in {@code src-vector} so that {@code src} builds without the incubator module; to use it,
+ * compile it on top of the classes of {@code src}:
+ * <pre>
+ * javac --add-modules jdk.incubator.vector -cp out -d out $(find src-vector -name '*.java')
+ * java --add-modules jdk.incubator.vector -cp out:lib/* Main ...
+ * </pre>
+ * Both return the same position for the same input, so the tokens never depend on the kernel.
+ */
+public class BoundaryClassifier {
+    private static final String VECTOR_KERNEL = "LexicalAnalyzer.VectorBoundaryClassifier";
+
+    /** Membership table of every set, indexed by ASCII byte. */
+    protected final boolean[][] members;
+
+    /**
+     * @param members Membership table of every set; only ASCII bytes can be members.
+     */
+    protected BoundaryClassifier(boolean[][] members) {
+        this.members = members;
+    }
+
+    /**
+     * Picks the fastest available kernel. Setting the {@code lexer.vector} system property to
+     * {@code false} forces the scalar one.
+     *
+     * @param members Membership table of every set, indexed by ASCII byte.
+     */
+    public static BoundaryClassifier create(boolean[][] members) {
+        if (Boolean.parseBoolean(System.getProperty("lexer.vector", "true"))) {
+            try {
+                Constructor<?> constructor = Class.forName(VECTOR_KERNEL).getDeclaredConstructor(boolean[][].class);
+                return (BoundaryClassifier) constructor.newInstance((Object) members);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Kernel not built or Vector API module missing: the scalar kernel gives the same results
+            }
+        }
+        return new BoundaryClassifier(members);
+    }
+
+    /**
+     * Returns the index of the first byte in {@code [from, to)} that is not in the set, or
+     * {@code to} if every byte is.
+     */
+    public int skip(ByteBuffer buffer, int from, int to, int set) {
+        boolean[] in = members[set];
+        int i = from;
+        while (i < to) {
+            int b = buffer.get(i);
+            if (b < 0 || !in[b]) break;
+            i++;
+        }
+        return i;
+    }
+
+    /** Name of the kernel, for reports. */
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,90 @@
+package LexicalAnalyzer;
+
+import java.util.Map;
+
+/**
+ * Perfect hash table for the lexemes with a fixed spelling (keywords such as {@code bro},
+ * {@code tombarella} or {@code xd}, and symbols such as {@code ->}).
+ * <p>
+ * The table is built once per dictionary: a seed is searched until every keyword falls in its own
+ * slot, so a lookup costs one hash of the word, one slot and one comparison, and no keyword ever
+ * has to go through the regex list.
+ */
+public class KeywordTable {
+    private static final int MAX_SEEDS = 1 << 12;
+
+    private final String[] keys;
+    private final int[] types;
+    private final int seed;
+    private final int mask;
+
+    private KeywordTable(String[] keys, int[] types, int seed) {
+        this.keys = keys;
+        this.types = types;
+        this.seed = seed;
+        this.mask = keys.length - 1;
+    }
+
+    /**
+     * Builds a collision-free table for the given keywords.
+     *
+     * @param keywords Every fixed lexeme and the type id it gets.
+     */
+    public static KeywordTable build(Map<String, Integer> keywords) {
+        int size = Integer.highestOneBit(Math.max(1, keywords.size()) * 2 - 1) * 2;
+
+        while (true) {
+            for (int seed = 1; seed <= MAX_SEEDS; seed++) {
+                String[] keys = new String[size];
+                int[] types = new int[size];
+                boolean collision = false;
+
+                for (Map.Entry<String, Integer> entry : keywords.entrySet()) {
+                    String key = entry.getKey();
+                    int slot = hash(key, 0, key.length(), seed) & (size - 1);
+                    if (keys[slot] != null) {
+                        collision = true;
+                        break;
+                    }
+                    keys[slot] = key;
+                    types[slot] = entry.getValue();
+                }
+                if (!collision) return new KeywordTable(keys, types, seed);
+            }
+            size *= 2;
+        }
+    }
+
+    /**
+     * Looks up the characters {@code [from, to)} of a text.
+     *
+     * @return The slot of the keyword, or -1 if the word is not one.
+     */
+    public int lookup(CharSequence text, int from, int to) {
+        int slot = hash(text, from, to, seed) & mask;
+        String key = keys[slot];
+        if (key == null || key.length() != to - from) return -1;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != text.charAt(from + i)) return -1;
+        }
+        return slot;
+    }
+
+    /** Returns the type id of the keyword in a slot found by {@link #lookup}. */
+    public int getType(int slot) {
+        return types[slot];
+    }
+
+    /** Returns the shared String of the keyword in a slot found by {@link #lookup}. */
+    public String getKeyword(int slot) {
+        return keys[slot];
+    }
+
+    private static int hash(CharSequence text, int from, int to, int seed) {
+        int h = seed * 0x9E3779B9;
+        for (int i = from; i < to; i++) {
+            h = (h ^ text.charAt(i)) * 0x01000193;
+        }
+        return h ^ (h >>> 15);
+    }
+}
@@ -2,16 +2,51 @@ package LexicalAnalyzer;
 
 import ParserAnalyzer.GramaticalErrorType;
 import entities.Dictionary;
+import entities.LexemePool;
 import entities.Token;
+import entities.TokenBuffer;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.*;
 
 public class LexicalAnalyzer {
+    private static final Set<String> SKIPPED_TYPES = Set.of("WS", "COMMENT");
+
     private List<Map.Entry<String, Pattern>> patterns;
+    private int[] patternTypeIds;
+    private boolean[] literalPattern;
+    private KeywordTable keywords;
+    private final LexemePool lexemes = new LexemePool();
+    private final int idType;
+    private String[] dfaLiterals;
     private List<Token> tokens;
     private int currentIndex = 0;
+    private final Dictionary dictionary;
+    private final ScanMode mode;
+    private TokenDFA dfa;
+    private boolean[] skipped;
+    private int[] dfaTypeIds;
+    private MappedScanner mappedScanner;
+
+    // Streaming state: only the line being scanned is kept in memory
+    private BufferedReader source;
+    private String currentLine;
+    private int linePos;
+    private int lineNumber;
+    private int wordColumn;
+
+    // Incremental mode: token run of every line of the last version, keyed by the line text
+    private Map<String, LineRun> lineCache = new HashMap<>();
+    private int rescannedLines;
+
+    private record LineRun(int line, Token[] tokens) {}
 
     /**
      * Constructor for LexicalAnalyzer.
@@ -19,15 +54,34 @@ public class LexicalAnalyzer {
      * @param dictionary The dictionary containing token patterns.
      */
     public LexicalAnalyzer(Dictionary dictionary) {
+        this(dictionary, ScanMode.REGEX);
+    }
+
+    /**
+     * Constructor for LexicalAnalyzer with an explicit scanning strategy.
+     *
+     * @param dictionary The dictionary containing token patterns.
+     * @param mode       How lines are split into tokens.
+     */
+    public LexicalAnalyzer(Dictionary dictionary, ScanMode mode) {
+        this(dictionary, mode, null);
+    }
+
+    /**
+     * Constructor for LexicalAnalyzer reusing an automaton that was already compiled (e.g. loaded
+     * from a snapshot) instead of compiling the dictionary again.
+     *
+     * @param dictionary  The dictionary containing token patterns.
+     * @param mode        How lines are split into tokens.
+     * @param compiledDfa The automaton built by {@link #compileDfa(Dictionary)}, or null to build it here.
+     */
+    public LexicalAnalyzer(Dictionary dictionary, ScanMode mode, TokenDFA compiledDfa) {
+        this.dictionary = dictionary;
+        this.mode = mode;
         patterns = new ArrayList<>();
         tokens = new ArrayList<>();
 
-        List<Map.Entry<String, String>> entries = new ArrayList<>(dictionary.getTokenPatterns().entrySet());
-        entries.sort((a, b) -> {
-            if (a.getKey().equals("ID")) return 1;
-            if (b.getKey().equals("ID")) return -1;
-            return 0;
-        });
+        List<Map.Entry<String, String>> entries = priorityOrder(dictionary);
 
         for (Map.Entry<String, String> entry : entries) {
             String tokenType = entry.getKey();
@@ -36,60 +90,432 @@ public class LexicalAnalyzer {
             Pattern pattern = Pattern.compile(regex);
             patterns.add(Map.entry(tokenType, pattern));
         }
+        patternTypeIds = entries.stream().mapToInt(e -> dictionary.getTypeId(e.getKey())).toArray();
+        idType = dictionary.getTypeId("ID");
+
+        // Every fixed lexeme gets the type the regex list would give it: the first pattern that matches it
+        Map<String, Integer> fixed = new HashMap<>();
+        literalPattern = new boolean[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            String literal = dictionary.getLiteral(entries.get(i).getKey());
+            if (literal == null || literal.isEmpty() || literal.chars().anyMatch(c -> isSeparator((char) c))) continue;
+            literalPattern[i] = true;
+            for (int j = 0; j < patterns.size() && !fixed.containsKey(literal); j++) {
+                if (patterns.get(j).getValue().matcher(literal).matches()) fixed.put(literal, patternTypeIds[j]);
+            }
+        }
+        keywords = KeywordTable.build(fixed);
+
+        if (mode != ScanMode.REGEX) {
+            dfa = compiledDfa != null ? compiledDfa : TokenDFA.compile(entries);
+            skipped = new boolean[dfa.getTokenCount()];
+            dfaTypeIds = new int[dfa.getTokenCount()];
+            dfaLiterals = new String[dfa.getTokenCount()];
+            for (int i = 0; i < skipped.length; i++) {
+                skipped[i] = SKIPPED_TYPES.contains(dfa.getTokenType(i));
+                dfaTypeIds[i] = dictionary.getTypeId(dfa.getTokenType(i));
+                dfaLiterals[i] = dictionary.getLiteral(dfa.getTokenType(i));
+            }
+            mappedScanner = new MappedScanner(dfa, skipped, dfaTypeIds);
+        }
+    }
+
+    /**
+     * Compiles the combined automaton of a dictionary, with the same priorities as the lexer.
+     *
+     * @param dictionary The dictionary containing token patterns.
+     * @return The automaton, ready to be passed to the constructor.
+     */
+    public static TokenDFA compileDfa(Dictionary dictionary) {
+        return TokenDFA.compile(priorityOrder(dictionary));
     }
 
     /**
-     * Tokenizes the input file.
+     * Token patterns in the order they are tried: ID goes last so keywords win over it.
+     */
+    private static List<Map.Entry<String, String>> priorityOrder(Dictionary dictionary) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>(dictionary.getTokenPatterns().entrySet());
+        entries.sort((a, b) -> {
+            if (a.getKey().equals("ID")) return 1;
+            if (b.getKey().equals("ID")) return -1;
+            return 0;
+        });
+        return entries;
+    }
+
+    /**
+     * Tokenizes the input file. Sources are read as UTF-8 in every scan mode, as the MAPPED scanner does.
      *
      * @param filePath The path to the file to be tokenized.
      */
     public void tokenize(String filePath) {
-        int line = 1;
+        try {
+            if (mode == ScanMode.MAPPED) {
+                TokenBuffer buffer = tokenizeToBuffer(filePath);
+                for (int i = 0; i < buffer.size(); i++) {
+                    tokens.add(buffer.get(i));
+                }
+                return;
+            }
+            open(new FileReader(filePath, StandardCharsets.UTF_8));
+            Token token;
+            while ((token = scanNext()) != null) {
+                tokens.add(token);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Error reading file: " + filePath, e);
+        } finally {
+            closeSource();
+        }
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String currentLine;
+    /**
+     * Tokenizes a new version of a file, reusing the tokens of every line that has not changed since
+     * the previous call. Lines are looked up by their text, so only edited lines are scanned again;
+     * reused tokens are moved to their new line number when lines were inserted or removed above them.
+     * The token list is replaced by the tokens of the new version.
+     *
+     * @param filePath The path to the file to be tokenized.
+     */
+    public void retokenize(String filePath) {
+        closeSource();
+        tokens.clear();
+        currentIndex = 0;
+        rescannedLines = 0;
 
-            while ((currentLine = reader.readLine()) != null) {
-                currentLine = currentLine.strip();
-                String[] lexemes = currentLine.split("\\s+");
-                int column = 1;
+        Map<String, LineRun> nextCache = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath, StandardCharsets.UTF_8))) {
+            String text;
+            int line = 0;
 
-                if (currentLine.isBlank()) {
-                    line++;
-                    continue;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                LineRun run = nextCache.get(text);
+                if (run == null) run = lineCache.get(text);
+                if (run == null) {
+                    run = new LineRun(line, scanSingleLine(text, line));
+                    rescannedLines++;
                 }
 
-                for (String word : lexemes) {
-                    boolean matched = false;
-
-                    for (Map.Entry<String, Pattern> entry : patterns) {
-                        Matcher matcher = entry.getValue().matcher(word);
-                        if (matcher.matches()) {
-                            tokens.add(new Token(entry.getKey(), word, line, column));
-                            matched = true;
-                            break;
-                        }
-                    }
-
-                    if (!matched) {
-                        throw new RuntimeException(
-                                String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), line, word)
-                        );
-                    }
-
-                    column += word.length() + 1;
+                nextCache.putIfAbsent(text, run);
+                for (Token token : run.tokens()) {
+                    tokens.add(run.line() == line ? token
+                            : new Token(token.getTypeId(), token.getType(), token.getLexeme(), line, token.getColumn()));
                 }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + filePath, e);
+        } finally {
+            currentLine = null;
+        }
 
-                line++;
+        lineCache = nextCache;
+    }
+
+    /**
+     * Returns how many lines the last {@link #retokenize(String)} had to scan instead of reusing.
+     */
+    public int getRescannedLines() {
+        return rescannedLines;
+    }
+
+    /**
+     * Tokenizes one line of text that the caller keeps outside a file, such as an edited line of an
+     * open document. Tokens never span lines, so they are the same as scanning the line inside its file.
+     * The token list is left untouched.
+     *
+     * @param text The text of the line, without the line terminator.
+     * @param line The line number given to the tokens.
+     * @return The tokens of the line.
+     */
+    public Token[] tokenizeLine(String text, int line) {
+        closeSource();
+        try {
+            return scanSingleLine(text, line);
+        } finally {
+            currentLine = null;
+        }
+    }
+
+    private Token[] scanSingleLine(String text, int line) {
+        currentLine = text;
+        lineNumber = line;
+        linePos = 0;
+        wordColumn = 1;
+
+        List<Token> run = new ArrayList<>();
+        while (linePos < currentLine.length()) {
+            Token token = mode == ScanMode.REGEX ? nextWordToken() : nextDfaToken();
+            if (token != null) run.add(token);
+        }
+        return run.toArray(new Token[0]);
+    }
+
+    /**
+     * Tokenizes the input file into a compact {@link TokenBuffer} instead of a list of Token objects.
+     * MAPPED mode points the buffer straight into the mapped file; DFA mode reads the file into a
+     * single String and points into that.
+     *
+     * @param filePath The path to the file to be tokenized.
+     * @return The buffer with every token of the file.
+     */
+    public TokenBuffer tokenizeToBuffer(String filePath) {
+        if (mode == ScanMode.REGEX) {
+            throw new IllegalStateException("TokenBuffer output needs a DFA based scan mode, not " + mode);
+        }
+
+        TokenBuffer buffer = new TokenBuffer(dictionary);
+        try {
+            if (mode == ScanMode.MAPPED) {
+                mappedScanner.scan(Paths.get(filePath), buffer);
+            } else {
+                String text = Files.readString(Paths.get(filePath), StandardCharsets.UTF_8);
+                buffer.beginSegment(text);
+                scanText(text, buffer);
             }
         } catch (IOException e) {
             throw new RuntimeException("Error reading file: " + filePath, e);
         }
+        return buffer;
+    }
+
+    /**
+     * Returns the kernel the byte scanner uses to skip runs of bytes, or "none" in REGEX mode.
+     */
+    public String getScanKernel() {
+        return mappedScanner == null ? "none" : mappedScanner.getKernelName();
+    }
+
+    /**
+     * Tokenizes the input file in parallel on the common fork/join pool.
+     *
+     * @param filePath The path to the UTF-8 file to be tokenized.
+     * @return The buffer with every token of the file, in source order.
+     */
+    public TokenBuffer tokenizeParallel(String filePath) {
+        return tokenizeParallel(filePath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Tokenizes the input file in parallel. Tokens never cross a newline, so the mapped file is cut
+     * into line-aligned chunks that are scanned independently and joined back in order with their
+     * line numbers fixed up. Needs a DFA based mode; the file is always read as UTF-8.
+     *
+     * @param filePath The path to the UTF-8 file to be tokenized.
+     * @param pool     The pool that scans the chunks.
+     * @return The buffer with every token of the file, in source order.
+     */
+    public TokenBuffer tokenizeParallel(String filePath, ForkJoinPool pool) {
+        if (mode == ScanMode.REGEX) {
+            throw new IllegalStateException("Parallel tokenizing needs a DFA based scan mode, not " + mode);
+        }
+
+        TokenBuffer buffer = new TokenBuffer(dictionary);
+        try {
+            mappedScanner.scan(Paths.get(filePath), buffer, pool);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + filePath, e);
+        }
+        return buffer;
+    }
+
+    /**
+     * Runs the DFA over a whole text, line by line, appending tokens with offsets into the text.
+     */
+    private void scanText(String text, TokenBuffer out) {
+        int length = text.length();
+        int line = 1;
+        int lineStart = 0;
+
+        while (lineStart <= length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') lineEnd++;
+
+            int pos = lineStart;
+            while (pos < lineEnd) {
+                long match = dfa.match(text, pos, lineEnd);
+                if (match < 0) {
+                    int end = pos;
+                    while (end < lineEnd && !Character.isWhitespace(text.charAt(end))) end++;
+                    throw new RuntimeException(
+                            String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), line, text.substring(pos, end))
+                    );
+                }
+                int end = (int) match;
+                int tokenIndex = (int) (match >>> 32);
+                if (!skipped[tokenIndex]) {
+                    out.add(dfaTypeIds[tokenIndex], pos, end - pos, line, pos - lineStart + 1);
+                }
+                pos = end;
+            }
+
+            if (lineEnd == length) break;
+            boolean crlf = text.charAt(lineEnd) == '\r' && lineEnd + 1 < length && text.charAt(lineEnd + 1) == '\n';
+            lineStart = lineEnd + (crlf ? 2 : 1);
+            line++;
+        }
+    }
+
+    /**
+     * Starts streaming tokens from a reader. Nothing is scanned until {@link #getNextToken()} asks
+     * for it, and scanned tokens are not stored, so memory stays bounded by the longest line.
+     * The reader is closed once its last token has been returned. In MAPPED mode there are no bytes
+     * to map here, so the same DFA runs over the decoded characters instead.
+     *
+     * @param reader The source to scan.
+     */
+    public void open(Reader reader) {
+        closeSource();
+        source = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        currentLine = null;
+        linePos = 0;
+        lineNumber = 0;
+    }
+
+    /**
+     * Starts streaming tokens from a byte channel, decoded as UTF-8 like every other source.
+     *
+     * @param channel The source to scan.
+     */
+    public void open(ReadableByteChannel channel) {
+        open(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Scans the next token from the open source, reading new lines only when the current one is used up.
+     *
+     * @return The next token, or null when the source is exhausted.
+     */
+    private Token scanNext() {
+        while (source != null) {
+            if (currentLine == null || linePos >= currentLine.length()) {
+                readLine();
+                continue;
+            }
+
+            Token token = mode == ScanMode.REGEX ? nextWordToken() : nextDfaToken();
+            if (token != null) {
+                return token;
+            }
+        }
+        return null;
+    }
+
+    private void readLine() {
+        try {
+            currentLine = source.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (currentLine == null) {
+            closeSource();
+            return;
+        }
+        lineNumber++;
+        linePos = 0;
+        wordColumn = 1;
+    }
+
+    private void closeSource() {
+        if (source == null) return;
+        try {
+            source.close();
+        } catch (IOException ignored) {
+            // Nothing left to read from it anyway
+        }
+        source = null;
+        currentLine = null;
+    }
+
+    /**
+     * Takes the next whitespace separated word and matches it against the dictionary regexes.
+     * Columns count words the same way as the stripped, split line did.
+     *
+     * @return The token, or null if only whitespace was left on the line.
+     */
+    private Token nextWordToken() {
+        int length = currentLine.length();
+        while (linePos < length && isSeparator(currentLine.charAt(linePos))) linePos++;
+        if (linePos >= length) return null;
+
+        int end = linePos;
+        while (end < length && !isSeparator(currentLine.charAt(end))) end++;
+
+        int slot = keywords.lookup(currentLine, linePos, end);
+        if (slot >= 0) {
+            int type = keywords.getType(slot);
+            Token token = new Token(type, dictionary.getTokenTypes().get(type), keywords.getKeyword(slot), lineNumber, wordColumn);
+            wordColumn += end - linePos + 1;
+            linePos = end;
+            return token;
+        }
+
+        String word = currentLine.substring(linePos, end);
+        linePos = end;
+
+        // Not a keyword, so none of the literal patterns can match it
+        for (int i = 0; i < patterns.size(); i++) {
+            if (literalPattern[i]) continue;
+            Map.Entry<String, Pattern> entry = patterns.get(i);
+            Matcher matcher = entry.getValue().matcher(word);
+            if (matcher.matches()) {
+                if (patternTypeIds[i] == idType) word = lexemes.get(lexemes.intern(word));
+                Token token = new Token(patternTypeIds[i], entry.getKey(), word, lineNumber, wordColumn);
+                wordColumn += word.length() + 1;
+                return token;
+            }
+        }
+
+        throw new RuntimeException(
+                String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), lineNumber, word)
+        );
+    }
+
+    /**
+     * Runs the combined DFA from the current position, always taking the longest possible token.
+     * Whitespace and comments are recognized like any other token and then dropped.
+     *
+     * @return The token, or null if the match was skipped.
+     */
+    private Token nextDfaToken() {
+        int length = currentLine.length();
+        int pos = linePos;
+
+        long match = dfa.match(currentLine, pos, length);
+        if (match < 0) {
+            int end = pos;
+            while (end < length && !Character.isWhitespace(currentLine.charAt(end))) end++;
+            // Skip the bad word, so a caller that recovers from the error can keep scanning
+            linePos = end;
+            throw new RuntimeException(
+                    String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), lineNumber, currentLine.substring(pos, end))
+            );
+        }
+
+        int end = (int) match;
+        int tokenIndex = (int) (match >>> 32);
+        linePos = end;
+        if (skipped[tokenIndex]) return null;
+
+        String lexeme;
+        if (dfaLiterals[tokenIndex] != null) {
+            lexeme = dfaLiterals[tokenIndex];
+        } else if (dfaTypeIds[tokenIndex] == idType) {
+            lexeme = lexemes.get(lexemes.intern(currentLine, pos, end));
+        } else {
+            lexeme = currentLine.substring(pos, end);
+        }
+        return new Token(dfaTypeIds[tokenIndex], dfa.getTokenType(tokenIndex), lexeme, lineNumber, pos + 1);
     }
 
+    /** Same characters as the {@code \s} regex class, which is what REGEX mode splits words on. */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
 
     /**
-     * Returns the next token from the list of tokens.
+     * Returns the next token: first the ones already tokenized, then the ones streamed from the open source.
      *
      * @return The next token, or null if there are no more tokens.
      */
@@ -97,10 +523,24 @@ public class LexicalAnalyzer {
         if (currentIndex < tokens.size()) {
             return tokens.get(currentIndex++);
         } else {
-            return null;
+            return scanNext();
         }
     }
 
+    /**
+     * Returns the line the streaming scanner is on, which is the line of the last token or error.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the pool holding the single copy of every identifier lexeme seen by this lexer.
+     */
+    public LexemePool getLexemePool() {
+        return lexemes;
+    }
+
     /**
      * Returns the list of tokens.
      *
@@ -113,5 +553,7 @@ public class LexicalAnalyzer {
     public void clear() {
         tokens.clear();
         currentIndex = 0;
+        closeSource();
+        lineCache = new HashMap<>();
     }
 }
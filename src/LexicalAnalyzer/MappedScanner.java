@@ -0,0 +1,308 @@
+package LexicalAnalyzer;
+
+import ParserAnalyzer.GramaticalErrorType;
+import entities.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Lexer backend that runs the token DFA directly over a memory-mapped UTF-8 file.
+ * <p>
+ * Bytes are never decoded into lines: ASCII bytes go through a 256-entry class table, the
+ * two-byte {@code ¿} sequence has its own fast path and only other multi-byte sequences are
+ * decoded on the spot. Tokens go to a {@link TokenBuffer} as offsets into the mapping, so no
+ * lexeme String exists until a later phase asks for one.
+ */
+public class MappedScanner {
+    /** Largest region mapped at once; windows always end on a newline so no token is split. */
+    private static final long WINDOW_SIZE = 1L << 30;
+    /** Below this many bytes a chunk is scanned by one worker instead of being split again. */
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    private static final int NEEDS_DECODE = -1;
+    private static final int LINE_BREAK = -2;
+
+    private final TokenDFA dfa;
+    private final boolean[] skipped;
+    private final int[] typeIds;
+    private final int[] byteClass = new int[256];
+    private final int invertedQuestionClass;
+    /** Loop set of every DFA state for the {@link BoundaryClassifier}, or -1 if it has none. */
+    private final int[] runSet;
+    private final BoundaryClassifier classifier;
+
+    /**
+     * @param dfa     The combined token automaton.
+     * @param skipped Token indexes of the DFA that are dropped (whitespace, comments).
+     * @param typeIds Dictionary type id of every token index of the DFA.
+     */
+    public MappedScanner(TokenDFA dfa, boolean[] skipped, int[] typeIds) {
+        this.dfa = dfa;
+        this.skipped = skipped;
+        this.typeIds = typeIds;
+
+        for (int b = 0; b < 256; b++) {
+            byteClass[b] = b < 0x80 ? dfa.classOf((char) b) : NEEDS_DECODE;
+        }
+        byteClass['\n'] = LINE_BREAK;
+        byteClass['\r'] = LINE_BREAK;
+        invertedQuestionClass = dfa.classOf('¿');
+
+        runSet = new int[dfa.getStateCount()];
+        List<boolean[]> sets = new ArrayList<>();
+        for (int state = 0; state < runSet.length; state++) {
+            runSet[state] = -1;
+            boolean[] loop = new boolean[128];
+            boolean any = false;
+            for (int b = 0; b < 128; b++) {
+                if (byteClass[b] != LINE_BREAK && dfa.stepClass(state, byteClass[b]) == state) {
+                    loop[b] = true;
+                    any = true;
+                }
+            }
+            // The start state never loops back to itself, only states inside a lexeme do
+            if (any && state != 0) {
+                runSet[state] = sets.size();
+                sets.add(loop);
+            }
+        }
+        classifier = BoundaryClassifier.create(sets.toArray(new boolean[0][]));
+    }
+
+    /** Name of the run-skipping kernel in use. */
+    public String getKernelName() {
+        return classifier.getName();
+    }
+
+    /**
+     * Scans the whole file and appends its tokens to {@code out}, one segment per mapped window.
+     *
+     * @param file The UTF-8 source file.
+     * @param out  The buffer receiving the tokens.
+     */
+    public void scan(Path file, TokenBuffer out) throws IOException {
+        scan(file, out, null);
+    }
+
+    /**
+     * Scans the whole file on a fork/join pool. Every window is split on line boundaries into chunks
+     * that are scanned into their own buffers, with line numbers starting at 1; the chunk buffers are
+     * then appended to {@code out} in source order, shifted by the lines of the chunks before them.
+     *
+     * @param file The UTF-8 source file.
+     * @param out  The buffer receiving the tokens.
+     * @param pool The pool running the chunks, or null to scan sequentially.
+     */
+    public void scan(Path file, TokenBuffer out, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long base = 0;
+            int line = 1;
+
+            while (base < size) {
+                long length = Math.min(WINDOW_SIZE, size - base);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+                int limit = (int) length;
+
+                if (base + length < size) {
+                    limit = lastNewline(buffer, limit) + 1;
+                    if (limit == 0) throw new IOException("Line longer than " + WINDOW_SIZE + " bytes in " + file);
+                }
+
+                if (pool == null) {
+                    out.beginSegment(buffer);
+                    line = scanRange(buffer, 0, limit, line, out);
+                } else {
+                    for (Chunk chunk : pool.invoke(new ChunkTask(buffer, 0, limit, out))) {
+                        if (chunk.error() != null) {
+                            throw new ScanError(line - 1 + chunk.error().line, chunk.error().word);
+                        }
+                        out.append(chunk.tokens(), line - 1);
+                        line += chunk.lineBreaks();
+                    }
+                }
+                base += limit;
+            }
+        }
+    }
+
+    private record Chunk(TokenBuffer tokens, int lineBreaks, ScanError error) {}
+
+    /**
+     * Lexical error that remembers where it happened, so chunk-relative lines can be fixed up.
+     */
+    private static class ScanError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int line;
+        private final String word;
+
+        ScanError(int line, String word) {
+            super(String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), line, word));
+            this.line = line;
+            this.word = word;
+        }
+    }
+
+    /**
+     * Splits a range in two halves at the first newline after its middle until it is small enough,
+     * so every chunk starts at the beginning of a line.
+     */
+    private class ChunkTask extends RecursiveTask<List<Chunk>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+        private final TokenBuffer shape;
+
+        ChunkTask(ByteBuffer buffer, int from, int to, TokenBuffer shape) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.shape = shape;
+        }
+
+        @Override
+        protected List<Chunk> compute() {
+            int split = to - from > CHUNK_SIZE ? nextLineStart(buffer, from + (to - from) / 2, to) : to;
+            if (split >= to) {
+                TokenBuffer tokens = new TokenBuffer(shape);
+                tokens.beginSegment(buffer);
+                try {
+                    int lastLine = scanRange(buffer, from, to, 1, tokens);
+                    return List.of(new Chunk(tokens, lastLine - 1, null));
+                } catch (ScanError e) {
+                    return List.of(new Chunk(null, 0, e));
+                }
+            }
+
+            ChunkTask left = new ChunkTask(buffer, from, split, shape);
+            ChunkTask right = new ChunkTask(buffer, split, to, shape);
+            left.fork();
+            List<Chunk> rightChunks = right.compute();
+            List<Chunk> chunks = new ArrayList<>(left.join());
+            chunks.addAll(rightChunks);
+            return chunks;
+        }
+    }
+
+    private static int nextLineStart(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') return i + 1;
+        }
+        return to;
+    }
+
+    /**
+     * Scans {@code [from, to)}, which must start at the beginning of a line.
+     *
+     * @return The line number reached at the end of the range.
+     */
+    private int scanRange(ByteBuffer buffer, int from, int to, int line, TokenBuffer out) {
+        int pos = from;
+        int lineStart = from;
+        int lineExtraBytes = 0;   // bytes beyond the first of each multi-byte char, to report char columns
+
+        while (pos < to) {
+            int b = buffer.get(pos) & 0xFF;
+
+            if (b == '\n' || b == '\r') {
+                pos += (b == '\r' && pos + 1 < to && buffer.get(pos + 1) == '\n') ? 2 : 1;
+                line++;
+                lineStart = pos;
+                lineExtraBytes = 0;
+                continue;
+            }
+
+            // Maximal munch from pos, never crossing a line break
+            int state = 0;
+            int lastToken = -1;
+            int lastEnd = -1;
+            int extraBytes = 0;
+            int extraAtLastEnd = 0;
+            int i = pos;
+
+            while (i < to) {
+                int c = byteClass[buffer.get(i) & 0xFF];
+                int width = 1;
+
+                if (c == LINE_BREAK) break;
+                if (c == NEEDS_DECODE) {
+                    int lead = buffer.get(i) & 0xFF;
+                    if (lead == 0xC2 && i + 1 < to && (buffer.get(i + 1) & 0xFF) == 0xBF) {
+                        c = invertedQuestionClass;
+                        width = 2;
+                    } else {
+                        width = sequenceLength(lead);
+                        if (i + width > to) break;
+                        c = classOfSequence(buffer, i, width);
+                    }
+                    extraBytes += width - (width == 4 ? 2 : 1);
+                }
+
+                state = dfa.stepClass(state, c);
+                if (state == TokenDFA.DEAD) break;
+                i += width;
+                if (runSet[state] >= 0) {
+                    // ASCII bytes that keep the DFA in this state: no need to step on them
+                    i = classifier.skip(buffer, i, to, runSet[state]);
+                }
+                if (dfa.acceptedToken(state) >= 0) {
+                    lastToken = dfa.acceptedToken(state);
+                    lastEnd = i;
+                    extraAtLastEnd = extraBytes;
+                }
+            }
+
+            if (lastToken < 0) {
+                throw new ScanError(line, wordAt(buffer, pos, to));
+            }
+
+            if (!skipped[lastToken]) {
+                int column = pos - lineStart - lineExtraBytes + 1;
+                out.add(typeIds[lastToken], pos, lastEnd - pos, line, column);
+            }
+            lineExtraBytes += extraAtLastEnd;
+            pos = lastEnd;
+        }
+        return line;
+    }
+
+    /** Decodes one multi-byte UTF-8 sequence and returns the DFA class of its first UTF-16 unit. */
+    private int classOfSequence(ByteBuffer buffer, int at, int width) {
+        if (width == 1) return dfa.classOf('\uFFFD');
+        String decoded = StandardCharsets.UTF_8.decode(buffer.slice(at, width)).toString();
+        return dfa.classOf(decoded.charAt(0));
+    }
+
+    private static int sequenceLength(int lead) {
+        if (lead >= 0xF0 && lead <= 0xF4) return 4;
+        if (lead >= 0xE0) return lead <= 0xEF ? 3 : 1;
+        if (lead >= 0xC2) return 2;
+        return 1;
+    }
+
+    private static int lastNewline(ByteBuffer buffer, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    private static String wordAt(ByteBuffer buffer, int from, int limit) {
+        int end = from;
+        while (end < limit && !Character.isWhitespace(buffer.get(end) & 0xFF)) end++;
+        return StandardCharsets.UTF_8.decode(buffer.slice(from, end - from)).toString();
+    }
+}
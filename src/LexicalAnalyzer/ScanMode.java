@@ -0,0 +1,10 @@
+package LexicalAnalyzer;
+
+public enum ScanMode {
+    /** Splits every line on whitespace and tries each dictionary regex on every word. */
+    REGEX,
+    /** Runs the combined token DFA with maximal munch, so tokens do not need to be space separated. */
+    DFA,
+    /** Runs the same DFA straight over the bytes of a memory-mapped UTF-8 file (see {@link MappedScanner}). */
+    MAPPED
+}
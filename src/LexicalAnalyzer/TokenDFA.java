@@ -0,0 +1,507 @@
+package LexicalAnalyzer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Minimized deterministic automaton that recognizes every token type of the dictionary at once.
+ * <p>
+ * Each regex is parsed into a Thompson NFA, all of them are joined under a common start state,
+ * and the result is turned into a DFA by subset construction and then minimized. Characters are
+ * grouped into equivalence classes so the transition table only has one column per class.
+ * When two token types accept the same lexeme, the one that comes first in the priority order
+ * given to {@link #compile(List)} wins.
+ */
+public class TokenDFA {
+    public static final int DEAD = -1;
+
+    private final String[] tokenTypes;
+    private final int[] classStarts;
+    private final int[] asciiClass;
+    private final int classCount;
+    private final int[] transitions;
+    private final int[] accepting;
+
+    TokenDFA(String[] tokenTypes, int[] classStarts, int classCount, int[] transitions, int[] accepting) {
+        this.tokenTypes = tokenTypes;
+        this.classStarts = classStarts;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.accepting = accepting;
+        this.asciiClass = new int[128];
+        for (char c = 0; c < 128; c++) {
+            asciiClass[c] = lookupClass(c);
+        }
+    }
+
+    /**
+     * Compiles the given token patterns into a single minimized DFA.
+     *
+     * @param patterns Token type / regex pairs, ordered from highest to lowest priority.
+     * @return The compiled automaton.
+     */
+    public static TokenDFA compile(List<Map.Entry<String, String>> patterns) {
+        Nfa nfa = new Nfa();
+        int start = nfa.newState();
+        String[] types = new String[patterns.size()];
+
+        for (int i = 0; i < patterns.size(); i++) {
+            types[i] = patterns.get(i).getKey();
+            Fragment fragment = new RegexParser(patterns.get(i).getValue(), nfa).parse();
+            nfa.addEpsilon(start, fragment.start);
+            nfa.accept.put(fragment.end, i);
+        }
+
+        // Alphabet partition: every boundary of every range opens a new class
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        for (int[] ranges : nfa.edgeRanges) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                boundaries.add(ranges[i]);
+                if (ranges[i + 1] + 1 <= Character.MAX_VALUE) boundaries.add(ranges[i + 1] + 1);
+            }
+        }
+        int[] classStarts = boundaries.stream().mapToInt(Integer::intValue).toArray();
+
+        return nfa.determinize(start, types, classStarts).minimize();
+    }
+
+    /**
+     * Runs the automaton from {@code from} and returns the longest token found before {@code to}.
+     *
+     * @return {@code (tokenIndex << 32) | end}, or -1 if no token starts at {@code from}.
+     */
+    public long match(CharSequence text, int from, int to) {
+        int state = 0;
+        int lastToken = -1;
+        int lastEnd = -1;
+
+        for (int i = from; i < to; i++) {
+            state = transitions[state * classCount + classOf(text.charAt(i))];
+            if (state == DEAD) break;
+            if (accepting[state] >= 0) {
+                lastToken = accepting[state];
+                lastEnd = i + 1;
+            }
+        }
+
+        return lastToken < 0 ? -1 : ((long) lastToken << 32) | lastEnd;
+    }
+
+    /** Returns the state reached from {@code state} by reading {@code c}, or {@link #DEAD}. */
+    public int step(int state, char c) {
+        return transitions[state * classCount + classOf(c)];
+    }
+
+    /** Same as {@link #step(int, char)} for a character class already looked up with {@link #classOf(char)}. */
+    public int stepClass(int state, int charClass) {
+        return transitions[state * classCount + charClass];
+    }
+
+    /** Returns the token index accepted in {@code state}, or -1 if it is not accepting. */
+    public int acceptedToken(int state) {
+        return accepting[state];
+    }
+
+    public String getTokenType(int tokenIndex) {
+        return tokenTypes[tokenIndex];
+    }
+
+    public int getTokenCount() {
+        return tokenTypes.length;
+    }
+
+    public int getStateCount() {
+        return accepting.length;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int classOf(char c) {
+        return c < 128 ? asciiClass[c] : lookupClass(c);
+    }
+
+    /**
+     * Writes the tables of the automaton, to be read back with {@link #readFrom(ByteBuffer)}
+     * without compiling the regexes again.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(tokenTypes.length);
+        for (String type : tokenTypes) {
+            byte[] bytes = type.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(classCount);
+        writeInts(out, classStarts);
+        writeInts(out, transitions);
+        writeInts(out, accepting);
+    }
+
+    /**
+     * Reads an automaton written by {@link #writeTo(DataOutputStream)}, advancing the buffer.
+     */
+    public static TokenDFA readFrom(ByteBuffer in) {
+        String[] types = new String[in.getInt()];
+        for (int i = 0; i < types.length; i++) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            types[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int classCount = in.getInt();
+        int[] classStarts = readInts(in);
+        int[] transitions = readInts(in);
+        int[] accepting = readInts(in);
+        return new TokenDFA(types, classStarts, classCount, transitions, accepting);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) out.writeInt(value);
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    private int lookupClass(char c) {
+        int i = Arrays.binarySearch(classStarts, c);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    // -------------------------
+    // DFA minimization
+    // -------------------------
+    private TokenDFA minimize() {
+        int states = accepting.length;
+        int[] block = new int[states];
+        int blockCount = refine(block, s -> List.of(accepting[s]));
+
+        // Moore refinement until the partition is stable
+        while (true) {
+            int[] current = block.clone();
+            int[] next = new int[states];
+            int nextCount = refine(next, s -> {
+                List<Integer> signature = new ArrayList<>(classCount + 1);
+                signature.add(current[s]);
+                for (int c = 0; c < classCount; c++) {
+                    int t = transitions[s * classCount + c];
+                    signature.add(t == DEAD ? DEAD : current[t]);
+                }
+                return signature;
+            });
+            block = next;
+            if (nextCount == blockCount) break;
+            blockCount = nextCount;
+        }
+
+        int[] minTransitions = new int[blockCount * classCount];
+        int[] minAccepting = new int[blockCount];
+        for (int s = 0; s < states; s++) {
+            int b = block[s];
+            minAccepting[b] = accepting[s];
+            for (int c = 0; c < classCount; c++) {
+                int t = transitions[s * classCount + c];
+                minTransitions[b * classCount + c] = t == DEAD ? DEAD : block[t];
+            }
+        }
+        return new TokenDFA(tokenTypes, classStarts, classCount, minTransitions, minAccepting);
+    }
+
+    /** Numbers blocks in order of first appearance, so state 0 always lands in block 0. */
+    private static int refine(int[] block, IntFunction<List<Integer>> signatureOf) {
+        Map<List<Integer>, Integer> ids = new HashMap<>();
+        for (int s = 0; s < block.length; s++) {
+            block[s] = ids.computeIfAbsent(signatureOf.apply(s), k -> ids.size());
+        }
+        return ids.size();
+    }
+
+    // -------------------------
+    // Thompson NFA
+    // -------------------------
+    private record Fragment(int start, int end) {}
+
+    private static class Nfa {
+        private final List<List<Integer>> epsilon = new ArrayList<>();
+        private final List<int[]> edgeRanges = new ArrayList<>();
+        private final List<Integer> edgeFrom = new ArrayList<>();
+        private final List<Integer> edgeTo = new ArrayList<>();
+        private final Map<Integer, Integer> accept = new HashMap<>();
+
+        int newState() {
+            epsilon.add(new ArrayList<>());
+            return epsilon.size() - 1;
+        }
+
+        void addEpsilon(int from, int to) {
+            epsilon.get(from).add(to);
+        }
+
+        void addEdge(int from, int to, int[] ranges) {
+            edgeFrom.add(from);
+            edgeTo.add(to);
+            edgeRanges.add(ranges);
+        }
+
+        TokenDFA determinize(int start, String[] types, int[] classStarts) {
+            int classCount = classStarts.length;
+
+            // For each NFA state, the (class -> targets) moves it allows
+            List<Map<Integer, List<Integer>>> moves = new ArrayList<>();
+            for (int s = 0; s < epsilon.size(); s++) moves.add(new HashMap<>());
+            for (int e = 0; e < edgeRanges.size(); e++) {
+                int[] ranges = edgeRanges.get(e);
+                for (int i = 0; i < ranges.length; i += 2) {
+                    int first = Arrays.binarySearch(classStarts, ranges[i]);
+                    for (int c = first; c < classCount && classStarts[c] <= ranges[i + 1]; c++) {
+                        moves.get(edgeFrom.get(e)).computeIfAbsent(c, k -> new ArrayList<>()).add(edgeTo.get(e));
+                    }
+                }
+            }
+
+            Map<BitSet, Integer> ids = new HashMap<>();
+            List<BitSet> pending = new ArrayList<>();
+            List<int[]> rows = new ArrayList<>();
+            List<Integer> accepts = new ArrayList<>();
+
+            BitSet initial = closure(Set.of(start));
+            ids.put(initial, 0);
+            pending.add(initial);
+
+            for (int d = 0; d < pending.size(); d++) {
+                BitSet current = pending.get(d);
+                accepts.add(acceptOf(current));
+
+                int[] row = new int[classCount];
+                for (int c = 0; c < classCount; c++) {
+                    Set<Integer> targets = new HashSet<>();
+                    for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                        List<Integer> to = moves.get(s).get(c);
+                        if (to != null) targets.addAll(to);
+                    }
+                    if (targets.isEmpty()) {
+                        row[c] = DEAD;
+                        continue;
+                    }
+                    BitSet next = closure(targets);
+                    Integer id = ids.get(next);
+                    if (id == null) {
+                        id = pending.size();
+                        ids.put(next, id);
+                        pending.add(next);
+                    }
+                    row[c] = id;
+                }
+                rows.add(row);
+            }
+
+            int[] transitions = new int[rows.size() * classCount];
+            int[] accepting = new int[rows.size()];
+            for (int d = 0; d < rows.size(); d++) {
+                System.arraycopy(rows.get(d), 0, transitions, d * classCount, classCount);
+                accepting[d] = accepts.get(d);
+            }
+            return new TokenDFA(types, classStarts, classCount, transitions, accepting);
+        }
+
+        private BitSet closure(Set<Integer> states) {
+            BitSet result = new BitSet();
+            Deque<Integer> work = new ArrayDeque<>(states);
+            while (!work.isEmpty()) {
+                int s = work.pop();
+                if (result.get(s)) continue;
+                result.set(s);
+                for (int t : epsilon.get(s)) work.push(t);
+            }
+            return result;
+        }
+
+        private int acceptOf(BitSet states) {
+            int best = -1;
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                Integer token = accept.get(s);
+                if (token != null && (best < 0 || token < best)) best = token;
+            }
+            return best;
+        }
+    }
+
+    // -------------------------
+    // Regex parser (the subset used by diccionari.json)
+    // -------------------------
+    private static class RegexParser {
+        private final String regex;
+        private final Nfa nfa;
+        private int pos = 0;
+
+        RegexParser(String regex, Nfa nfa) {
+            this.regex = regex;
+            this.nfa = nfa;
+        }
+
+        Fragment parse() {
+            Fragment result = alternation();
+            if (pos != regex.length()) throw unsupported();
+            return result;
+        }
+
+        private Fragment alternation() {
+            Fragment left = concatenation();
+            while (peek('|')) {
+                pos++;
+                Fragment right = concatenation();
+                int start = nfa.newState();
+                int end = nfa.newState();
+                nfa.addEpsilon(start, left.start);
+                nfa.addEpsilon(start, right.start);
+                nfa.addEpsilon(left.end, end);
+                nfa.addEpsilon(right.end, end);
+                left = new Fragment(start, end);
+            }
+            return left;
+        }
+
+        private Fragment concatenation() {
+            int start = nfa.newState();
+            int end = start;
+            while (pos < regex.length() && !peek('|') && !peek(')')) {
+                Fragment next = repetition();
+                nfa.addEpsilon(end, next.start);
+                end = next.end;
+            }
+            return new Fragment(start, end);
+        }
+
+        private Fragment repetition() {
+            Fragment atom = atom();
+            while (pos < regex.length()) {
+                char c = regex.charAt(pos);
+                if (c != '*' && c != '+' && c != '?') break;
+                pos++;
+                int start = nfa.newState();
+                int end = nfa.newState();
+                nfa.addEpsilon(start, atom.start);
+                nfa.addEpsilon(atom.end, end);
+                if (c != '+') nfa.addEpsilon(start, end);
+                if (c != '?') nfa.addEpsilon(atom.end, atom.start);
+                atom = new Fragment(start, end);
+            }
+            return atom;
+        }
+
+        private Fragment atom() {
+            char c = regex.charAt(pos++);
+            int[] ranges;
+            switch (c) {
+                case '(' -> {
+                    if (regex.startsWith("?:", pos)) pos += 2;
+                    Fragment inner = alternation();
+                    if (!peek(')')) throw unsupported();
+                    pos++;
+                    return inner;
+                }
+                case '[' -> ranges = charClass();
+                case '.' -> ranges = new int[]{0, '\n' - 1, '\n' + 1, Character.MAX_VALUE};
+                case '\\' -> ranges = escape();
+                case ')', '*', '+', '?', '{', '^', '$' -> throw unsupported();
+                default -> ranges = new int[]{c, c};
+            }
+            int start = nfa.newState();
+            int end = nfa.newState();
+            nfa.addEdge(start, end, ranges);
+            return new Fragment(start, end);
+        }
+
+        private int[] charClass() {
+            boolean negated = peek('^');
+            if (negated) pos++;
+
+            List<int[]> ranges = new ArrayList<>();
+            boolean first = true;
+            while (pos < regex.length() && (first || !peek(']'))) {
+                first = false;
+                int[] lo = classMember();
+                if (lo.length == 2 && lo[0] == lo[1] && peek('-') && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    int[] hi = classMember();
+                    ranges.add(new int[]{lo[0], hi[1]});
+                } else {
+                    for (int i = 0; i < lo.length; i += 2) ranges.add(new int[]{lo[i], lo[i + 1]});
+                }
+            }
+            if (!peek(']')) throw unsupported();
+            pos++;
+
+            int[] merged = merge(ranges);
+            return negated ? complement(merged) : merged;
+        }
+
+        private int[] classMember() {
+            char c = regex.charAt(pos++);
+            return c == '\\' ? escape() : new int[]{c, c};
+        }
+
+        private int[] escape() {
+            if (pos >= regex.length()) throw unsupported();
+            char c = regex.charAt(pos++);
+            return switch (c) {
+                case 't' -> new int[]{'\t', '\t'};
+                case 'n' -> new int[]{'\n', '\n'};
+                case 'r' -> new int[]{'\r', '\r'};
+                case 'f' -> new int[]{'\f', '\f'};
+                case 'd' -> new int[]{'0', '9'};
+                case 's' -> new int[]{'\t', '\r', ' ', ' '};
+                case 'w' -> new int[]{'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+                default -> {
+                    if (Character.isLetterOrDigit(c)) throw unsupported();
+                    yield new int[]{c, c};
+                }
+            };
+        }
+
+        private static int[] merge(List<int[]> ranges) {
+            ranges.sort(Comparator.comparingInt(r -> r[0]));
+            List<int[]> merged = new ArrayList<>();
+            for (int[] r : ranges) {
+                int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+                if (last != null && r[0] <= last[1] + 1) last[1] = Math.max(last[1], r[1]);
+                else merged.add(new int[]{r[0], r[1]});
+            }
+            int[] flat = new int[merged.size() * 2];
+            for (int i = 0; i < merged.size(); i++) {
+                flat[2 * i] = merged.get(i)[0];
+                flat[2 * i + 1] = merged.get(i)[1];
+            }
+            return flat;
+        }
+
+        private static int[] complement(int[] ranges) {
+            List<int[]> result = new ArrayList<>();
+            int next = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] > next) result.add(new int[]{next, ranges[i] - 1});
+                next = ranges[i + 1] + 1;
+            }
+            if (next <= Character.MAX_VALUE) result.add(new int[]{next, Character.MAX_VALUE});
+            return merge(result);
+        }
+
+        private boolean peek(char c) {
+            return pos < regex.length() && regex.charAt(pos) == c;
+        }
+
+        private IllegalArgumentException unsupported() {
+            return new IllegalArgumentException("Unsupported regex for DFA scanner at " + pos + ": " + regex);
+        }
+    }
+}
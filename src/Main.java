@@ -5,7 +5,12 @@ import ParserAnalyzer.ParserAnalyzer;
 import SemanticAnalyzer.SemanticAnalyzer;
 import entities.*;
 import LexicalAnalyzer.LexicalAnalyzer;
+import LexicalAnalyzer.ScanMode;
 
+import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 public class Main {
@@ -14,29 +19,48 @@ public class Main {
     static String mipsFilePath = "outputFiles/mips/mips_testOriol.asm";
     static String dicionaryFilePath = "resources/diccionari.json";
     static String grammarFilePath = "resources/grammar.json";
+    static String precedenceFilePath = "resources/precedence.json";
+    // Errores que se muestran como mucho con -recover
+    static int maxErrors = 100;
 
 
     public static void main(String[] args) {
         try {
-            Dictionary  dict    = new Dictionary(dicionaryFilePath);
-            Grammar     grammar = new Grammar(grammarFilePath);
+            // Diccionario, gramática, tabla LL(1) y DFA: del snapshot si los JSON no han cambiado
+            CompilerSnapshot snapshot = CompilerSnapshot.load(dicionaryFilePath, grammarFilePath);
+            Dictionary  dict    = snapshot.getDictionary();
+            Grammar     grammar = snapshot.getGrammar();
 
-            ParserTableBuilder builder = new ParserTableBuilder(dict, grammar);
-            builder.buildParsingTable();
+            ParserTableBuilder builder = snapshot.getTableBuilder();
 
-            LexicalAnalyzer lexer   = new LexicalAnalyzer(dict);
+            LexicalAnalyzer lexer   = new LexicalAnalyzer(dict, ScanMode.DFA, snapshot.getDfa());
             ParserAnalyzer  parser  = new ParserAnalyzer(grammar, builder);
 
             boolean runTests = false;
+            boolean recover = false;
+            boolean pratt = false;
+            boolean parallel = false;
             // Cambiar esto en un futuro para que el fichero sea un parametro de entrada
             for (String arg : args) {
                 if ("-test".equals(arg)) {
                     runTests = true;
+                } else if ("-recover".equals(arg)) {
+                    recover = true;
+                } else if (arg.startsWith("-recover=")) {
+                    recover = true;
+                    maxErrors = Integer.parseInt(arg.substring("-recover=".length()));
+                } else if ("-pratt".equals(arg)) {
+                    pratt = true;
+                } else if ("-parallel".equals(arg)) {
+                    parallel = true;
                 } else {
                     wspFilePath = arg;
                 }
             }
 
+            // Expresiones y condiciones por precedencias, con el árbol de nodos <BINARY>
+            if (pratt) parser = new ParserAnalyzer(grammar, builder, new PrecedenceTable(precedenceFilePath));
+
             if (runTests) {
                 TestExecute tests = new TestExecute(lexer, parser);
                 tests.runAll();
@@ -45,15 +69,37 @@ public class Main {
                     System.err.println("Uso:");
                     System.err.println("  java Main -test               # Para correr todos los tests");
                     System.err.println("  java Main <archivo.wsp>       # Para parsear un único archivo");
+                    System.err.println("  java Main -recover[=N] <archivo.wsp>  # Todos los errores (hasta N) de una vez");
+                    System.err.println("  java Main -pratt <archivo.wsp>        # Expresiones con el parser por precedencias");
+                    System.err.println("  java Main -parallel <archivo.wsp>     # Cuerpos de las funciones analizados en paralelo");
                     System.exit(1);
                 }
 
-                lexer.tokenize(wspFilePath);
-                Node tree = parser.parse(lexer);
+                // El parser va pidiendo tokens mientras se lee el fichero
+                lexer.open(new FileReader(wspFilePath, StandardCharsets.UTF_8));
+                Node tree;
+                if (recover) {
+                    // Modo recuperación: todos los errores de una vez y, si hay alguno, sin generar código
+                    Diagnostics diagnostics = new Diagnostics(maxErrors);
+                    tree = parser.parse(lexer, diagnostics);
+                    if (!diagnostics.isFull()) {
+                        SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(tree, new SymbolTable(), diagnostics);
+                        if (parallel) semanticAnalyzer.analyzeParallel();
+                        else semanticAnalyzer.analyze();
+                    }
+                    if (!diagnostics.isEmpty()) {
+                        diagnostics.getAll().forEach(System.err::println);
+                        System.err.println(diagnostics.size() + (diagnostics.isFull() ? "+" : "") + " error(es)");
+                        System.exit(1);
+                    }
+                } else {
+                    tree = parser.parse(lexer);
 
-                SymbolTable symbolTable = new SymbolTable();
-                SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(tree, symbolTable);
-                semanticAnalyzer.analyze();
+                    SymbolTable symbolTable = new SymbolTable();
+                    SemanticAnalyzer semanticAnalyzer = new SemanticAnalyzer(tree, symbolTable);
+                    if (parallel) semanticAnalyzer.analyzeParallel();
+                    else semanticAnalyzer.analyze();
+                }
 
 
                 TACGenerator tac = new TACGenerator();
@@ -70,13 +116,21 @@ public class Main {
         }
     }
 
+    /** Una línea pendiente de printTree: el nodo, la sangría que lleva delante y si es el último hermano. */
+    private record TreeLine(Node node, String prefix, boolean isTail) {}
+
     private static void printTree(Node node, String prefix, boolean isTail) {
-        System.out.println(prefix + (isTail ? "└── " : "├── ") + node);
-        List<Node> children = node.getChildren();
-        for (int i = 0; i < children.size(); i++) {
-            printTree(children.get(i),
-                    prefix + (isTail ? "    " : "│   "),
-                    i == children.size() - 1);
+        // Con una pila en vez de recursión: el árbol es tan profundo como sentencias tiene el programa
+        Deque<TreeLine> pending = new ArrayDeque<>();
+        pending.push(new TreeLine(node, prefix, isTail));
+        while (!pending.isEmpty()) {
+            TreeLine line = pending.pop();
+            System.out.println(line.prefix() + (line.isTail() ? "└── " : "├── ") + line.node());
+            List<Node> children = line.node().getChildren();
+            String childPrefix = line.prefix() + (line.isTail() ? "    " : "│   ");
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(new TreeLine(children.get(i), childPrefix, i == children.size() - 1));
+            }
         }
     }
 }
@@ -0,0 +1,322 @@
+package ParserAnalyzer;
+
+import entities.AstNode;
+import entities.AstNode.*;
+import entities.LL1Table;
+import entities.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construye el {@link AstNode} a partir de la {@link Derivation} que deja el parser, sin pasar
+ * por el árbol de parseo.
+ * <p>
+ * Recorre la derivación con un método por construcción del lenguaje: cada {@link #expect} consume
+ * la siguiente producción (la del no terminal más a la izquierda) y cada {@link #take} el
+ * siguiente token. La sintaxis ya la ha validado el parser, así que aquí solo se decide qué
+ * alternativa se aplicó mirando el primer símbolo de la producción. Las listas de la gramática
+ * ({@code <UNIT_LIST>}, {@code <BODY'>}, {@code <EXPRESSIO'>}, ...) se recorren con bucles.
+ */
+class AstBuilder {
+    private static final String EPSILON = "ε";
+
+    private final LL1Table table;
+    private final Derivation derivation;
+    private final String[] firstSymbol;
+    private int nextProduction;
+    private int nextToken;
+
+    AstBuilder(LL1Table table, Derivation derivation) {
+        this.table = table;
+        this.derivation = derivation;
+        this.firstSymbol = new String[table.getProductionCount()];
+        for (int p = 0; p < firstSymbol.length; p++) {
+            int[] production = table.getProduction(p);
+            firstSymbol[p] = production.length > 0 ? table.getSymbolName(production[0]) : EPSILON;
+        }
+    }
+
+    Program build() {
+        expect("<AXIOMA>");
+        List<AstNode> units = new ArrayList<>();
+        while (!EPSILON.equals(expect("<UNIT_LIST>"))) {
+            units.add(unit());
+        }
+        if (nextProduction != derivation.getProductionCount() || nextToken != derivation.getTokenCount()) {
+            throw new RuntimeException("AST: la derivación no se ha consumido entera");
+        }
+        return new Program(units);
+    }
+
+    // -------------------------
+    // Unidades
+    // -------------------------
+    private AstNode unit() {
+        expect("<UNIT>");
+        String type = tipus();
+        if ("MAIN".equals(expect("<UNIT_TAIL>"))) {
+            Token name = take();
+            take();                                     // OPEN_CLAUDATOR
+            List<AstNode> body = body();
+            take();                                     // CLOSE_CLAUDATOR
+            return new Function(type, name, body, true);
+        }
+
+        Token name = take();
+        if ("EQUAL_ASSIGNATION".equals(expect("<DECL_OR_FUNC_TAIL>"))) {
+            take();
+            AstNode init = expressio();
+            take();                                     // LINE_DELIMITER
+            return new Decl(type, name, init, null);
+        }
+
+        take();                                         // OPEN_CLAUDATOR
+        if ("<INIT_ARRAY>".equals(expect("<DECL_OR_FUNC_TAIL_REST>"))) {
+            List<Literal> values = initArray();
+            take();                                     // CLOSE_CLAUDATOR
+            take();                                     // LINE_DELIMITER
+            return new Decl(type, name, null, values);
+        }
+        List<AstNode> body = body();
+        take();                                         // CLOSE_CLAUDATOR
+        return new Function(type, name, body, false);
+    }
+
+    /** Mismo formato que {@code SemanticAnalyzer}: {@code INT} o {@code ARRAY[3]INT}. */
+    private String tipus() {
+        if ("<TIPUS_BASE>".equals(expect("<TIPUS>"))) return tipusBase();
+        take();                                         // ARRAY
+        take();                                         // DE
+        String size = take().getLexeme();
+        return "ARRAY[" + size + "]" + tipusBase();
+    }
+
+    private String tipusBase() {
+        expect("<TIPUS_BASE>");
+        return take().getType();
+    }
+
+    private List<Literal> initArray() {
+        List<Literal> values = new ArrayList<>();
+        while (true) {
+            expect("<INIT_ARRAY>");
+            values.add(valor());
+            if (EPSILON.equals(expect("<VALOR'>"))) return values;
+            take();                                     // ARGUMENT_SEPARATOR
+        }
+    }
+
+    // -------------------------
+    // Sentencias
+    // -------------------------
+    private List<AstNode> body() {
+        List<AstNode> statements = new ArrayList<>();
+        expect("<BODY>");
+        do {
+            AstNode statement = content();
+            if (statement != null) statements.add(statement);
+        } while (!EPSILON.equals(expect("<BODY'>")));
+        return statements;
+    }
+
+    /** @return la sentencia, o {@code null} para un {@code xd} suelto */
+    private AstNode content() {
+        switch (expect("<CONTENT>")) {
+            case "POS" -> {
+                take();
+                Token index = take();
+                take();                                 // DE
+                Token array = take();
+                take();                                 // EQUAL_ASSIGNATION
+                AstNode value = expressio();
+                take();
+                return new ArrayStore(index, array, value);
+            }
+            case "<TIPUS>" -> {
+                String type = tipus();
+                Token name = take();
+                AstNode init = null;
+                List<Literal> values = null;
+                switch (expect("<LOCAL_DECL_SUFFIX>")) {
+                    case "EQUAL_ASSIGNATION" -> {
+                        take();
+                        init = expressio();
+                    }
+                    case "OPEN_CLAUDATOR" -> {
+                        take();
+                        values = initArray();
+                        take();
+                    }
+                    default -> {}
+                }
+                take();
+                return new Decl(type, name, init, values);
+            }
+            case "ID" -> {
+                return idContent(take());
+            }
+            case "IF" -> {
+                take();
+                take();                                 // OPEN_PARENTHESIS
+                AstNode condition = condicio();
+                take();
+                take();                                 // OPEN_CLAUDATOR
+                List<AstNode> thenBody = body();
+                take();
+                List<AstNode> elseBody = null;
+                if ("ELSE".equals(expect("<CONDICIONAL'>"))) {
+                    take();
+                    take();
+                    elseBody = body();
+                    take();
+                }
+                return new If(condition, thenBody, elseBody);
+            }
+            case "BUCLE" -> {
+                take();
+                take();
+                AstNode condition = condicio();
+                take();
+                take();
+                List<AstNode> body = body();
+                take();
+                return new While(condition, body);
+            }
+            case "RETURN" -> {
+                Token keyword = take();
+                AstNode value = expressio();
+                take();
+                return new Return(keyword, value);
+            }
+            default -> {
+                take();                                 // LINE_DELIMITER
+                return null;
+            }
+        }
+    }
+
+    private AstNode idContent(Token id) {
+        switch (expect("<ID_CONTENT>")) {
+            case "EQUAL_ASSIGNATION" -> {
+                take();
+                AstNode value = expressio();
+                take();
+                return new Assign(id, value);
+            }
+            case "OPEN_PARENTHESIS" -> {
+                take();
+                take();
+                take();
+                return new Call(id);
+            }
+            case "SUM", "MINUS" -> {
+                // ID + <EXPRESSIO>: la gramática agrupa todo lo que sigue como operando derecho
+                Token operator = take();
+                AstNode expression = new BinOp(operator, new Var(id), expressio());
+                take();
+                return new ExprStatement(expression);
+            }
+            default -> {
+                // ID * <TERME> <EXPRESSIO'>
+                Token operator = take();
+                AstNode expression = expressioTail(new BinOp(operator, new Var(id), terme()));
+                take();
+                return new ExprStatement(expression);
+            }
+        }
+    }
+
+    // -------------------------
+    // Expresiones
+    // -------------------------
+    private AstNode expressio() {
+        expect("<EXPRESSIO>");
+        return expressioTail(terme());
+    }
+
+    private AstNode expressioTail(AstNode left) {
+        while (!EPSILON.equals(expect("<EXPRESSIO'>"))) {
+            Token operator = take();
+            left = new BinOp(operator, left, terme());
+        }
+        return left;
+    }
+
+    private AstNode terme() {
+        expect("<TERME>");
+        AstNode left = factor();
+        while (!EPSILON.equals(expect("<TERME'>"))) {
+            Token operator = take();
+            left = new BinOp(operator, left, factor());
+        }
+        return left;
+    }
+
+    private AstNode factor() {
+        switch (expect("<FACTOR>")) {
+            case "OPEN_PARENTHESIS" -> {
+                take();
+                AstNode inner = expressio();
+                take();
+                return inner;
+            }
+            case "ID" -> {
+                return new Var(take());
+            }
+            default -> {
+                return valor();
+            }
+        }
+    }
+
+    private Literal valor() {
+        expect("<VALOR>");
+        return new Literal(take());
+    }
+
+    /** {@code a < b AND c}: la gramática encadena las condiciones por la derecha. */
+    private AstNode condicio() {
+        expect("<CONDICIO>");
+        AstNode left = comparacio();
+        if (EPSILON.equals(expect("<CONDICIO'>"))) return left;
+        expect("<TOKEN_CONCATENACIO>");
+        Token operator = take();
+        return new BinOp(operator, left, condicio());
+    }
+
+    private AstNode comparacio() {
+        expect("<COMPARACIO>");
+        AstNode left = element();
+        if (EPSILON.equals(expect("<COMPARACIO'>"))) return left;
+        expect("<TOKEN_CONDICIONAL>");
+        Token operator = take();
+        return new BinOp(operator, left, element());
+    }
+
+    private AstNode element() {
+        if ("ID".equals(expect("<ELEMENT>"))) return new Var(take());
+        return valor();
+    }
+
+    // -------------------------
+    // Derivación
+    // -------------------------
+
+    /**
+     * Consume la siguiente producción, que tiene que ser de {@code nonTerminal}.
+     * @return el primer símbolo de su parte derecha, que identifica la alternativa
+     */
+    private String expect(String nonTerminal) {
+        int production = derivation.getProduction(nextProduction++);
+        if (!table.getSymbolName(table.getProductionLhs(production)).equals(nonTerminal)) {
+            throw new RuntimeException("AST: se esperaba una producción de " + nonTerminal + " y llegó una de "
+                    + table.getSymbolName(table.getProductionLhs(production)));
+        }
+        return firstSymbol[production];
+    }
+
+    private Token take() {
+        return derivation.getToken(nextToken++);
+    }
+}
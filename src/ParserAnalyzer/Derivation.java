@@ -0,0 +1,45 @@
+package ParserAnalyzer;
+
+import entities.Token;
+
+import java.util.Arrays;
+
+/**
+ * Derivación por la izquierda que sigue el parser LL(1): las producciones aplicadas y los tokens
+ * reconocidos, cada uno en su orden. Es todo lo que hace falta para reconstruir el árbol sin
+ * haber creado ningún {@link entities.Node}.
+ */
+class Derivation implements ParseListener {
+    private int[] productions = new int[256];
+    private int productionCount;
+    private Token[] tokens = new Token[256];
+    private int tokenCount;
+
+    @Override
+    public void enterNonTerminal(int nonTerminal, int production) {
+        addProduction(production);
+    }
+
+    @Override
+    public void token(int terminal, Token token) {
+        addToken(token);
+    }
+
+    void addProduction(int production) {
+        if (productionCount == productions.length) productions = Arrays.copyOf(productions, productionCount * 2);
+        productions[productionCount++] = production;
+    }
+
+    void addToken(Token token) {
+        if (tokenCount == tokens.length) tokens = Arrays.copyOf(tokens, tokenCount * 2);
+        tokens[tokenCount++] = token;
+    }
+
+    int getProductionCount() { return productionCount; }
+
+    int getProduction(int index) { return productions[index]; }
+
+    int getTokenCount() { return tokenCount; }
+
+    Token getToken(int index) { return tokens[index]; }
+}
@@ -0,0 +1,281 @@
+package ParserAnalyzer;
+
+import LexicalAnalyzer.LexicalAnalyzer;
+import entities.Node;
+import entities.Token;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Un fichero .wsp abierto en el editor: guarda sus líneas, sus tokens y su árbol de parseo y los
+ * mantiene al día edición a edición sin volver a tokenizar ni a parsear todo el fichero.
+ * <p>
+ * En cada edición solo se escanean las líneas nuevas (ningún token ocupa dos líneas) y se vuelve a
+ * parsear el {@code <UNIT>} o {@code <CONTENT>} más pequeño que contiene los tokens cambiados; el
+ * subárbol nuevo sustituye al viejo. El nodo se busca bajando solo por el camino que lleva a la
+ * edición, así que editar una línea cuesta lo que la sentencia editada, no lo que el fichero. Lo
+ * único que depende del tamaño es insertar o borrar líneas: los tokens de debajo llevan la línea
+ * dentro y hay que renumerarlos, aunque sin parsear nada.
+ * <p>
+ * El trozo solo se aprovecha si el LL(1) lo habría parseado igual dentro del fichero: tiene que
+ * empezar por un token del mismo tipo (el padre eligió su producción con él) y reconocerse
+ * consumiendo justo sus tokens, con el token siguiente de lookahead. Si no, se prueba con el
+ * siguiente nodo que lo contiene y, al final, se parsea el fichero entero, así que el árbol y los
+ * errores son siempre los de un parseo desde cero.
+ */
+public class DocumentModel {
+    private static final String AXIOMA = "<AXIOMA>";
+    private static final String UNIT_LIST = "<UNIT_LIST>";
+    private static final String UNIT = "<UNIT>";
+    private static final String CONTENT = "<CONTENT>";
+
+    private final LexicalAnalyzer lexer;
+    private final ParserAnalyzer parser;
+    private final List<String> lines = new ArrayList<>();
+    private final List<Token> tokens = new ArrayList<>();
+    // null si el texto actual tiene algún error
+    private Node tree;
+    // Los <UNIT> de la cadena de <UNIT_LIST>, en orden, para no bajar por ella unidad a unidad
+    private final List<Node> units = new ArrayList<>();
+    private int reparsedTokens;
+    // Pila para los recorridos, reutilizada entre ediciones
+    private final Deque<Node> pending = new ArrayDeque<>();
+
+    /**
+     * Tokeniza y parsea el texto entero.
+     * @throws RuntimeException con el error léxico o sintáctico, si lo hay
+     */
+    public DocumentModel(LexicalAnalyzer lexer, ParserAnalyzer parser, String text) {
+        this.lexer = lexer;
+        this.parser = parser;
+        text.lines().forEach(lines::add);
+        for (int i = 0; i < lines.size(); i++) {
+            Collections.addAll(tokens, lexer.tokenizeLine(lines.get(i), i + 1));
+        }
+        fullParse();
+    }
+
+    /**
+     * Sustituye {@code count} líneas a partir de {@code fromLine} (empezando en 1) por
+     * {@code newLines}. Con {@code count} 0 solo inserta; con {@code newLines} vacía solo borra.
+     * <p>
+     * Si el texto nuevo tiene un error léxico, la edición no se aplica. Si tiene un error
+     * sintáctico, sí se aplica pero el documento se queda sin árbol hasta la próxima edición que
+     * lo arregle.
+     * @throws RuntimeException con el error léxico o sintáctico
+     */
+    public void replaceLines(int fromLine, int count, List<String> newLines) {
+        if (fromLine < 1 || count < 0 || fromLine + count - 1 > lines.size()) {
+            throw new IllegalArgumentException("Líneas fuera del documento: " + fromLine + "+" + count
+                    + " de " + lines.size());
+        }
+        // 1) Escanear las líneas nuevas antes de tocar nada
+        List<Token> inserted = new ArrayList<>();
+        for (int i = 0; i < newLines.size(); i++) {
+            Collections.addAll(inserted, lexer.tokenizeLine(newLines.get(i), fromLine + i));
+        }
+
+        int from = firstTokenAtLine(fromLine);
+        int to = firstTokenAtLine(fromLine + count);
+        int shift = inserted.size() - (to - from);
+        int lineShift = newLines.size() - count;
+        // 2) Nodos que contienen los tokens cambiados, buscados en el árbol y los tokens de antes
+        List<Candidate> candidates = tree != null ? candidates(from, to) : List.of();
+
+        // 3) Cambiar líneas y tokens; los de después de la edición, con la línea corregida
+        List<String> edited = lines.subList(fromLine - 1, fromLine - 1 + count);
+        edited.clear();
+        edited.addAll(newLines);
+        tokens.subList(from, to).clear();
+        tokens.addAll(from, inserted);
+        if (lineShift != 0) {
+            for (int i = from + inserted.size(); i < tokens.size(); i++) {
+                Token token = tokens.get(i);
+                tokens.set(i, new Token(token.getTypeId(), token.getType(), token.getLexeme(),
+                        token.getLine() + lineShift, token.getColumn()));
+            }
+        }
+
+        // 4) Volver a parsear el nodo más pequeño que se pueda y colgarlo en el sitio del viejo
+        for (int c = candidates.size() - 1; c >= 0; c--) {
+            Candidate candidate = candidates.get(c);
+            int end = candidate.end() + shift;
+            if (end <= candidate.start() || !tokens.get(candidate.start()).getType().equals(candidate.firstType())) continue;
+
+            Node node = new Node(candidate.node().getSymbol());
+            Token after = end < tokens.size() ? tokens.get(end) : null;
+            if (!parser.reparse(node, tokens.subList(candidate.start(), end), after)) continue;
+
+            Node parent = candidate.node().getParent();
+            parent.getChildren().set(parent.getChildren().indexOf(candidate.node()), node);
+            node.setParent(parent);
+            int unit = units.indexOf(candidate.node());
+            if (unit >= 0) units.set(unit, node);
+            reparsedTokens = end - candidate.start();
+            if (lineShift != 0) relinkAfter(node, end, lineShift);
+            return;
+        }
+        fullParse();
+    }
+
+    /** Un nodo que se puede volver a parsear, con su rango de tokens y el tipo del primero antes de la edición. */
+    private record Candidate(Node node, int start, int end, String firstType) {}
+
+    /**
+     * Baja por el hijo donde empiezan los tokens {@code [from, to)} y apunta, de fuera a dentro, los
+     * {@code <UNIT>}/{@code <CONTENT>} que los contienen. La unidad se busca por bisección en
+     * {@link #units}; dentro de ella, los rangos salen de la posición del primer y el último token
+     * de cada nodo, así que solo se recorre el camino y no todo el árbol. Ningún
+     * {@code <UNIT>}/{@code <CONTENT>} empieza ni acaba con uno de los paréntesis que el parser
+     * por precedencias no deja en el árbol.
+     */
+    private List<Candidate> candidates(int from, int to) {
+        List<Candidate> found = new ArrayList<>();
+        Node node = units.isEmpty() ? tree : unitAt(from);
+        while (node != null) {
+            if (UNIT.equals(node.getSymbol()) || CONTENT.equals(node.getSymbol())) {
+                int start = indexOf(edgeToken(node, true));
+                int end = indexOf(edgeToken(node, false)) + 1;
+                // Si este no llega al final de la edición, los de dentro tampoco
+                if (end < to) break;
+                found.add(new Candidate(node, start, end, tokens.get(start).getType()));
+            }
+            if (node.getToken() != null) break;
+
+            Node next = null;
+            for (Node child : node.getChildren()) {
+                Token first = edgeToken(child, true);
+                if (first == null) continue;
+                if (indexOf(first) > from) break;
+                next = child;
+            }
+            node = next;
+        }
+        return found;
+    }
+
+    /** Última unidad que empieza en el token {@code from} o antes. */
+    private Node unitAt(int from) {
+        int low = 0;
+        int high = units.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (indexOf(edgeToken(units.get(middle), true)) <= from) low = middle;
+            else high = middle - 1;
+        }
+        return units.get(low);
+    }
+
+    private void indexUnits() {
+        units.clear();
+        for (Node list = tree; list != null; ) {
+            Node next = null;
+            for (Node child : list.getChildren()) {
+                if (UNIT.equals(child.getSymbol())) units.add(child);
+                else if (UNIT_LIST.equals(child.getSymbol())) next = child;
+            }
+            list = next;
+        }
+    }
+
+    /** Primer (o último) token de las hojas de {@code node}, o {@code null} si solo tiene nodos ε. */
+    private Token edgeToken(Node node, boolean first) {
+        pending.clear();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            if (current.getToken() != null) return current.getToken();
+            List<Node> children = current.getChildren();
+            for (int i = 0; i < children.size(); i++) {
+                pending.push(children.get(first ? children.size() - 1 - i : i));
+            }
+        }
+        return null;
+    }
+
+    /** Posición de un token en la lista, buscándolo por línea y columna. */
+    private int indexOf(Token token) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Token probe = tokens.get(middle);
+            int cmp = probe.getLine() != token.getLine()
+                    ? Integer.compare(probe.getLine(), token.getLine())
+                    : Integer.compare(probe.getColumn(), token.getColumn());
+            if (cmp == 0) return middle;
+            if (cmp < 0) low = middle + 1;
+            else high = middle - 1;
+        }
+        throw new IllegalStateException("El árbol tiene un token que no está en el documento: " + token);
+    }
+
+    /**
+     * Pone en las hojas que van detrás de {@code spliced} los tokens renumerados de la lista, que
+     * empiezan en {@code from}. Solo se recorren los hermanos de la derecha de cada ancestro; las
+     * hojas que faltan en la lista (paréntesis de las expresiones) se saltan.
+     */
+    private void relinkAfter(Node spliced, int from, int lineShift) {
+        int next = from;
+        pending.clear();
+        for (Node child = spliced, parent = child.getParent(); parent != null; child = parent, parent = parent.getParent()) {
+            List<Node> siblings = parent.getChildren();
+            for (int i = siblings.indexOf(child) + 1; i < siblings.size(); i++) {
+                pending.push(siblings.get(i));
+                while (!pending.isEmpty()) {
+                    Node node = pending.pop();
+                    Token old = node.getToken();
+                    if (old != null) {
+                        while (tokens.get(next).getLine() != old.getLine() + lineShift
+                                || tokens.get(next).getColumn() != old.getColumn()) next++;
+                        node.setToken(tokens.get(next++));
+                        continue;
+                    }
+                    List<Node> children = node.getChildren();
+                    for (int k = children.size() - 1; k >= 0; k--) pending.push(children.get(k));
+                }
+            }
+        }
+    }
+
+    private void fullParse() {
+        tree = null;
+        reparsedTokens = tokens.size();
+        tree = parser.parse(tokens, AXIOMA);
+        indexUnits();
+    }
+
+    /** Índice del primer token que está en la línea {@code line} o después. */
+    private int firstTokenAtLine(int line) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens.get(middle).getLine() < line) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /** El árbol de parseo del texto actual, o {@code null} si tiene algún error. */
+    public Node getTree() {
+        return tree;
+    }
+
+    public List<Token> getTokens() {
+        return Collections.unmodifiableList(tokens);
+    }
+
+    public List<String> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    /** Tokens que ha vuelto a parsear la última edición: todos si ha hecho falta el parseo completo. */
+    public int getReparsedTokens() {
+        return reparsedTokens;
+    }
+}
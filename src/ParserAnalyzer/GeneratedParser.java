@@ -0,0 +1,1165 @@
+// Generado por ParserGenerator a partir de resources/grammar.json. No editar a mano.
+package ParserAnalyzer;
+
+import LexicalAnalyzer.LexicalAnalyzer;
+import entities.Dictionary;
+import entities.Node;
+import entities.NodeKind;
+import entities.Token;
+
+import java.util.List;
+
+/**
+ * Parser descendente recursivo generado: un método por no terminal con un switch sobre el id
+ * del token. Construye el mismo árbol que {@link ParserAnalyzer}.
+ */
+public class GeneratedParser {
+    private static final List<String> TOKEN_TYPES = List.of(
+            "AND",
+            "ARGUMENT_SEPARATOR",
+            "ARRAY",
+            "BIGGER",
+            "BIGGER_EQUAL",
+            "BUCLE",
+            "CHAR",
+            "CHAR_VALUE",
+            "CLOSE_ARRAY",
+            "CLOSE_CLAUDATOR",
+            "CLOSE_PARENTHESIS",
+            "COMMENT",
+            "DE",
+            "DIFFERENT",
+            "DIVISION",
+            "ELSE",
+            "EQUAL_ASSIGNATION",
+            "EQUAL_COMPARATION",
+            "FLOAT",
+            "FLOAT_VALUE",
+            "ID",
+            "IF",
+            "INT",
+            "INT_VALUE",
+            "LINE_DELIMITER",
+            "LOWER",
+            "LOWER_EQUAL",
+            "MAIN",
+            "MINUS",
+            "MULTIPLY",
+            "NEGATION",
+            "OPEN_ARRAY",
+            "OPEN_CLAUDATOR",
+            "OPEN_PARENTHESIS",
+            "OR",
+            "POS",
+            "RETURN",
+            "SUM",
+            "WS"
+    );
+
+    private static final int AND = 0;
+    private static final int ARGUMENT_SEPARATOR = 1;
+    private static final int ARRAY = 2;
+    private static final int BIGGER = 3;
+    private static final int BIGGER_EQUAL = 4;
+    private static final int BUCLE = 5;
+    private static final int CHAR = 6;
+    private static final int CHAR_VALUE = 7;
+    private static final int CLOSE_ARRAY = 8;
+    private static final int CLOSE_CLAUDATOR = 9;
+    private static final int CLOSE_PARENTHESIS = 10;
+    private static final int COMMENT = 11;
+    private static final int DE = 12;
+    private static final int DIFFERENT = 13;
+    private static final int DIVISION = 14;
+    private static final int ELSE = 15;
+    private static final int EQUAL_ASSIGNATION = 16;
+    private static final int EQUAL_COMPARATION = 17;
+    private static final int FLOAT = 18;
+    private static final int FLOAT_VALUE = 19;
+    private static final int ID = 20;
+    private static final int IF = 21;
+    private static final int INT = 22;
+    private static final int INT_VALUE = 23;
+    private static final int LINE_DELIMITER = 24;
+    private static final int LOWER = 25;
+    private static final int LOWER_EQUAL = 26;
+    private static final int MAIN = 27;
+    private static final int MINUS = 28;
+    private static final int MULTIPLY = 29;
+    private static final int NEGATION = 30;
+    private static final int OPEN_ARRAY = 31;
+    private static final int OPEN_CLAUDATOR = 32;
+    private static final int OPEN_PARENTHESIS = 33;
+    private static final int OR = 34;
+    private static final int POS = 35;
+    private static final int RETURN = 36;
+    private static final int SUM = 37;
+    private static final int WS = 38;
+    private static final int END_MARKER = 39;
+    private static final int UNKNOWN = -2;            // lookahead de un tipo que el diccionario no tiene
+    private static final int NOT_IN_DICTIONARY = -3;  // terminal de la gramática que el lexer no produce
+
+    private LexicalAnalyzer lexer;
+    private Token look;
+    private int lookId;
+
+    public GeneratedParser(Dictionary dictionary) {
+        if (!TOKEN_TYPES.equals(dictionary.getTokenTypes())) {
+            throw new IllegalStateException("El diccionario no es el del parser generado: vuelve a ejecutar ParserGenerator");
+        }
+    }
+
+    /**
+     * Parsea pidiendo los tokens al lexer uno a uno, igual que {@link ParserAnalyzer#parse}.
+     * @return la raíz del árbol de parseo
+     */
+    public Node parse(LexicalAnalyzer lexer) {
+        this.lexer = lexer;
+        advance();
+        Node root = new Node("<AXIOMA>");
+        parseAxioma(root);
+        this.lexer = null;
+        return root;
+    }
+
+    // <AXIOMA>
+    private void parseAxioma(Node node) {
+        switch (lookId) {
+            case ARRAY:
+            case CHAR:
+            case FLOAT:
+            case INT:
+            case END_MARKER:
+            {
+                // <AXIOMA> -> <UNIT_LIST>
+                Node c0 = child(node, "<UNIT_LIST>");
+                parseUnitList(c0);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <BODY'>
+    private void parseBodyPrime(Node node) {
+        while (true) {
+            switch (lookId) {
+                case ARRAY:
+                case BUCLE:
+                case CHAR:
+                case FLOAT:
+                case ID:
+                case IF:
+                case INT:
+                case LINE_DELIMITER:
+                case POS:
+                case RETURN:
+                {
+                    // <BODY'> -> <CONTENT> <BODY'>
+                    Node c0 = child(node, "<CONTENT>");
+                    Node c1 = child(node, "<BODY'>");
+                    parseContent(c0);
+                    node = c1;
+                    continue;
+                }
+                case CLOSE_CLAUDATOR:
+                {
+                    // <BODY'> -> ε
+                    Node c0 = child(node, "ε");
+                    return;
+                }
+                default:
+                    throw noProduction();
+            }
+        }
+    }
+
+    // <BODY>
+    private void parseBody(Node node) {
+        switch (lookId) {
+            case ARRAY:
+            case BUCLE:
+            case CHAR:
+            case FLOAT:
+            case ID:
+            case IF:
+            case INT:
+            case LINE_DELIMITER:
+            case POS:
+            case RETURN:
+            {
+                // <BODY> -> <CONTENT> <BODY'>
+                Node c0 = child(node, "<CONTENT>");
+                Node c1 = child(node, "<BODY'>");
+                parseContent(c0);
+                parseBodyPrime(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <COMPARACIO'>
+    private void parseComparacioPrime(Node node) {
+        switch (lookId) {
+            case BIGGER:
+            case BIGGER_EQUAL:
+            case DIFFERENT:
+            case EQUAL_COMPARATION:
+            case LOWER:
+            case LOWER_EQUAL:
+            {
+                // <COMPARACIO'> -> <TOKEN_CONDICIONAL> <ELEMENT>
+                Node c0 = child(node, "<TOKEN_CONDICIONAL>");
+                Node c1 = child(node, "<ELEMENT>");
+                parseTokenCondicional(c0);
+                parseElement(c1);
+                return;
+            }
+            case AND:
+            case CLOSE_PARENTHESIS:
+            case OR:
+            {
+                // <COMPARACIO'> -> ε
+                Node c0 = child(node, "ε");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <COMPARACIO>
+    private void parseComparacio(Node node) {
+        switch (lookId) {
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case ID:
+            case INT_VALUE:
+            {
+                // <COMPARACIO> -> <ELEMENT> <COMPARACIO'>
+                Node c0 = child(node, "<ELEMENT>");
+                Node c1 = child(node, "<COMPARACIO'>");
+                node.setKind(NodeKind.COMPARATION);
+                parseElement(c0);
+                parseComparacioPrime(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <CONDICIO'>
+    private void parseCondicioPrime(Node node) {
+        switch (lookId) {
+            case AND:
+            case OR:
+            {
+                // <CONDICIO'> -> <TOKEN_CONCATENACIO> <CONDICIO>
+                Node c0 = child(node, "<TOKEN_CONCATENACIO>");
+                Node c1 = child(node, "<CONDICIO>");
+                parseTokenConcatenacio(c0);
+                parseCondicio(c1);
+                return;
+            }
+            case CLOSE_PARENTHESIS:
+            {
+                // <CONDICIO'> -> ε
+                Node c0 = child(node, "ε");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <CONDICIO>
+    private void parseCondicio(Node node) {
+        switch (lookId) {
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case ID:
+            case INT_VALUE:
+            {
+                // <CONDICIO> -> <COMPARACIO> <CONDICIO'>
+                Node c0 = child(node, "<COMPARACIO>");
+                Node c1 = child(node, "<CONDICIO'>");
+                parseComparacio(c0);
+                parseCondicioPrime(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <CONDICIONAL'>
+    private void parseCondicionalPrime(Node node) {
+        switch (lookId) {
+            case ELSE:
+            {
+                // <CONDICIONAL'> -> ELSE OPEN_CLAUDATOR <BODY> CLOSE_CLAUDATOR
+                Node c0 = child(node, "ELSE");
+                Node c1 = child(node, "OPEN_CLAUDATOR");
+                Node c2 = child(node, "<BODY>");
+                Node c3 = child(node, "CLOSE_CLAUDATOR");
+                match(c0, ELSE, "ELSE");
+                match(c1, OPEN_CLAUDATOR, "OPEN_CLAUDATOR");
+                parseBody(c2);
+                match(c3, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                return;
+            }
+            case ARRAY:
+            case BUCLE:
+            case CHAR:
+            case CLOSE_CLAUDATOR:
+            case FLOAT:
+            case ID:
+            case IF:
+            case INT:
+            case LINE_DELIMITER:
+            case POS:
+            case RETURN:
+            {
+                // <CONDICIONAL'> -> ε
+                Node c0 = child(node, "ε");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <CONDICIONAL>
+    private void parseCondicional(Node node) {
+        switch (lookId) {
+            case IF:
+            {
+                // <CONDICIONAL> -> IF OPEN_PARENTHESIS <CONDICIO> CLOSE_PARENTHESIS OPEN_CLAUDATOR <BODY> CLOSE_CLAUDATOR <CONDICIONAL'>
+                Node c0 = child(node, "IF");
+                Node c1 = child(node, "OPEN_PARENTHESIS");
+                Node c2 = child(node, "<CONDICIO>");
+                Node c3 = child(node, "CLOSE_PARENTHESIS");
+                Node c4 = child(node, "OPEN_CLAUDATOR");
+                Node c5 = child(node, "<BODY>");
+                Node c6 = child(node, "CLOSE_CLAUDATOR");
+                Node c7 = child(node, "<CONDICIONAL'>");
+                match(c0, IF, "IF");
+                match(c1, OPEN_PARENTHESIS, "OPEN_PARENTHESIS");
+                parseCondicio(c2);
+                match(c3, CLOSE_PARENTHESIS, "CLOSE_PARENTHESIS");
+                match(c4, OPEN_CLAUDATOR, "OPEN_CLAUDATOR");
+                parseBody(c5);
+                match(c6, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                parseCondicionalPrime(c7);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <CONTENT>
+    private void parseContent(Node node) {
+        switch (lookId) {
+            case POS:
+            {
+                // <CONTENT> -> POS INT_VALUE DE ID EQUAL_ASSIGNATION <EXPRESSIO> LINE_DELIMITER
+                Node c0 = child(node, "POS");
+                Node c1 = child(node, "INT_VALUE");
+                Node c2 = child(node, "DE");
+                Node c3 = child(node, "ID");
+                Node c4 = child(node, "EQUAL_ASSIGNATION");
+                Node c5 = child(node, "<EXPRESSIO>");
+                Node c6 = child(node, "LINE_DELIMITER");
+                node.setKind(NodeKind.ARRAY_ASSIGNATION);
+                match(c0, POS, "POS");
+                match(c1, INT_VALUE, "INT_VALUE");
+                match(c2, DE, "DE");
+                match(c3, ID, "ID");
+                match(c4, EQUAL_ASSIGNATION, "EQUAL_ASSIGNATION");
+                parseExpressio(c5);
+                match(c6, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case ARRAY:
+            case CHAR:
+            case FLOAT:
+            case INT:
+            {
+                // <CONTENT> -> <TIPUS> ID <LOCAL_DECL_SUFFIX> LINE_DELIMITER
+                Node c0 = child(node, "<TIPUS>");
+                Node c1 = child(node, "ID");
+                Node c2 = child(node, "<LOCAL_DECL_SUFFIX>");
+                Node c3 = child(node, "LINE_DELIMITER");
+                node.setKind(NodeKind.DECLARATION);
+                parseTipus(c0);
+                match(c1, ID, "ID");
+                parseLocalDeclSuffix(c2);
+                match(c3, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case ID:
+            {
+                // <CONTENT> -> ID <ID_CONTENT>
+                Node c0 = child(node, "ID");
+                Node c1 = child(node, "<ID_CONTENT>");
+                match(c0, ID, "ID");
+                parseIdContent(c1);
+                return;
+            }
+            case IF:
+            {
+                // <CONTENT> -> IF OPEN_PARENTHESIS <CONDICIO> CLOSE_PARENTHESIS OPEN_CLAUDATOR <BODY> CLOSE_CLAUDATOR <CONDICIONAL'>
+                Node c0 = child(node, "IF");
+                Node c1 = child(node, "OPEN_PARENTHESIS");
+                Node c2 = child(node, "<CONDICIO>");
+                Node c3 = child(node, "CLOSE_PARENTHESIS");
+                Node c4 = child(node, "OPEN_CLAUDATOR");
+                Node c5 = child(node, "<BODY>");
+                Node c6 = child(node, "CLOSE_CLAUDATOR");
+                Node c7 = child(node, "<CONDICIONAL'>");
+                node.setKind(NodeKind.IF);
+                match(c0, IF, "IF");
+                match(c1, OPEN_PARENTHESIS, "OPEN_PARENTHESIS");
+                parseCondicio(c2);
+                match(c3, CLOSE_PARENTHESIS, "CLOSE_PARENTHESIS");
+                match(c4, OPEN_CLAUDATOR, "OPEN_CLAUDATOR");
+                parseBody(c5);
+                match(c6, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                parseCondicionalPrime(c7);
+                return;
+            }
+            case BUCLE:
+            {
+                // <CONTENT> -> BUCLE OPEN_PARENTHESIS <CONDICIO> CLOSE_PARENTHESIS OPEN_CLAUDATOR <BODY> CLOSE_CLAUDATOR
+                Node c0 = child(node, "BUCLE");
+                Node c1 = child(node, "OPEN_PARENTHESIS");
+                Node c2 = child(node, "<CONDICIO>");
+                Node c3 = child(node, "CLOSE_PARENTHESIS");
+                Node c4 = child(node, "OPEN_CLAUDATOR");
+                Node c5 = child(node, "<BODY>");
+                Node c6 = child(node, "CLOSE_CLAUDATOR");
+                node.setKind(NodeKind.WHILE);
+                match(c0, BUCLE, "BUCLE");
+                match(c1, OPEN_PARENTHESIS, "OPEN_PARENTHESIS");
+                parseCondicio(c2);
+                match(c3, CLOSE_PARENTHESIS, "CLOSE_PARENTHESIS");
+                match(c4, OPEN_CLAUDATOR, "OPEN_CLAUDATOR");
+                parseBody(c5);
+                match(c6, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                return;
+            }
+            case RETURN:
+            {
+                // <CONTENT> -> RETURN <EXPRESSIO> LINE_DELIMITER
+                Node c0 = child(node, "RETURN");
+                Node c1 = child(node, "<EXPRESSIO>");
+                Node c2 = child(node, "LINE_DELIMITER");
+                node.setKind(NodeKind.RETURN);
+                match(c0, RETURN, "RETURN");
+                parseExpressio(c1);
+                match(c2, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case LINE_DELIMITER:
+            {
+                // <CONTENT> -> LINE_DELIMITER
+                Node c0 = child(node, "LINE_DELIMITER");
+                match(c0, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <DECL_OR_FUNC_TAIL>
+    private void parseDeclOrFuncTail(Node node) {
+        switch (lookId) {
+            case EQUAL_ASSIGNATION:
+            {
+                // <DECL_OR_FUNC_TAIL> -> EQUAL_ASSIGNATION <EXPRESSIO> LINE_DELIMITER
+                Node c0 = child(node, "EQUAL_ASSIGNATION");
+                Node c1 = child(node, "<EXPRESSIO>");
+                Node c2 = child(node, "LINE_DELIMITER");
+                tag(node, "<UNIT>", NodeKind.GLOBAL_DECLARATION);
+                match(c0, EQUAL_ASSIGNATION, "EQUAL_ASSIGNATION");
+                parseExpressio(c1);
+                match(c2, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case OPEN_CLAUDATOR:
+            {
+                // <DECL_OR_FUNC_TAIL> -> OPEN_CLAUDATOR <DECL_OR_FUNC_TAIL_REST>
+                Node c0 = child(node, "OPEN_CLAUDATOR");
+                Node c1 = child(node, "<DECL_OR_FUNC_TAIL_REST>");
+                tag(node, "<UNIT>", NodeKind.FUNCTION);
+                match(c0, OPEN_CLAUDATOR, "OPEN_CLAUDATOR");
+                parseDeclOrFuncTailRest(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <DECL_OR_FUNC_TAIL_REST>
+    private void parseDeclOrFuncTailRest(Node node) {
+        switch (lookId) {
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case INT_VALUE:
+            {
+                // <DECL_OR_FUNC_TAIL_REST> -> <INIT_ARRAY> CLOSE_CLAUDATOR LINE_DELIMITER
+                Node c0 = child(node, "<INIT_ARRAY>");
+                Node c1 = child(node, "CLOSE_CLAUDATOR");
+                Node c2 = child(node, "LINE_DELIMITER");
+                parseInitArray(c0);
+                match(c1, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                match(c2, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case ARRAY:
+            case BUCLE:
+            case CHAR:
+            case FLOAT:
+            case ID:
+            case IF:
+            case INT:
+            case LINE_DELIMITER:
+            case POS:
+            case RETURN:
+            {
+                // <DECL_OR_FUNC_TAIL_REST> -> <BODY> CLOSE_CLAUDATOR
+                Node c0 = child(node, "<BODY>");
+                Node c1 = child(node, "CLOSE_CLAUDATOR");
+                parseBody(c0);
+                match(c1, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <ELEMENT>
+    private void parseElement(Node node) {
+        switch (lookId) {
+            case ID:
+            {
+                // <ELEMENT> -> ID
+                Node c0 = child(node, "ID");
+                match(c0, ID, "ID");
+                return;
+            }
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case INT_VALUE:
+            {
+                // <ELEMENT> -> <VALOR>
+                Node c0 = child(node, "<VALOR>");
+                parseValor(c0);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <EXPRESSIO'>
+    private void parseExpressioPrime(Node node) {
+        while (true) {
+            switch (lookId) {
+                case SUM:
+                {
+                    // <EXPRESSIO'> -> SUM <TERME> <EXPRESSIO'>
+                    Node c0 = child(node, "SUM");
+                    Node c1 = child(node, "<TERME>");
+                    Node c2 = child(node, "<EXPRESSIO'>");
+                    match(c0, SUM, "SUM");
+                    parseTerme(c1);
+                    node = c2;
+                    continue;
+                }
+                case MINUS:
+                {
+                    // <EXPRESSIO'> -> MINUS <TERME> <EXPRESSIO'>
+                    Node c0 = child(node, "MINUS");
+                    Node c1 = child(node, "<TERME>");
+                    Node c2 = child(node, "<EXPRESSIO'>");
+                    match(c0, MINUS, "MINUS");
+                    parseTerme(c1);
+                    node = c2;
+                    continue;
+                }
+                case CLOSE_PARENTHESIS:
+                case LINE_DELIMITER:
+                {
+                    // <EXPRESSIO'> -> ε
+                    Node c0 = child(node, "ε");
+                    return;
+                }
+                default:
+                    throw noProduction();
+            }
+        }
+    }
+
+    // <EXPRESSIO>
+    private void parseExpressio(Node node) {
+        switch (lookId) {
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case ID:
+            case INT_VALUE:
+            case OPEN_PARENTHESIS:
+            {
+                // <EXPRESSIO> -> <TERME> <EXPRESSIO'>
+                Node c0 = child(node, "<TERME>");
+                Node c1 = child(node, "<EXPRESSIO'>");
+                node.setKind(NodeKind.OPERATION);
+                parseTerme(c0);
+                parseExpressioPrime(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <FACTOR>
+    private void parseFactor(Node node) {
+        switch (lookId) {
+            case OPEN_PARENTHESIS:
+            {
+                // <FACTOR> -> OPEN_PARENTHESIS <EXPRESSIO> CLOSE_PARENTHESIS
+                Node c0 = child(node, "OPEN_PARENTHESIS");
+                Node c1 = child(node, "<EXPRESSIO>");
+                Node c2 = child(node, "CLOSE_PARENTHESIS");
+                match(c0, OPEN_PARENTHESIS, "OPEN_PARENTHESIS");
+                parseExpressio(c1);
+                match(c2, CLOSE_PARENTHESIS, "CLOSE_PARENTHESIS");
+                return;
+            }
+            case ID:
+            {
+                // <FACTOR> -> ID
+                Node c0 = child(node, "ID");
+                match(c0, ID, "ID");
+                return;
+            }
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case INT_VALUE:
+            {
+                // <FACTOR> -> <VALOR>
+                Node c0 = child(node, "<VALOR>");
+                parseValor(c0);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <ID_CONTENT>
+    private void parseIdContent(Node node) {
+        switch (lookId) {
+            case EQUAL_ASSIGNATION:
+            {
+                // <ID_CONTENT> -> EQUAL_ASSIGNATION <EXPRESSIO> LINE_DELIMITER
+                Node c0 = child(node, "EQUAL_ASSIGNATION");
+                Node c1 = child(node, "<EXPRESSIO>");
+                Node c2 = child(node, "LINE_DELIMITER");
+                node.setKind(NodeKind.ASSIGNATION);
+                match(c0, EQUAL_ASSIGNATION, "EQUAL_ASSIGNATION");
+                parseExpressio(c1);
+                match(c2, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case OPEN_PARENTHESIS:
+            {
+                // <ID_CONTENT> -> OPEN_PARENTHESIS CLOSE_PARENTHESIS LINE_DELIMITER
+                Node c0 = child(node, "OPEN_PARENTHESIS");
+                Node c1 = child(node, "CLOSE_PARENTHESIS");
+                Node c2 = child(node, "LINE_DELIMITER");
+                match(c0, OPEN_PARENTHESIS, "OPEN_PARENTHESIS");
+                match(c1, CLOSE_PARENTHESIS, "CLOSE_PARENTHESIS");
+                match(c2, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case SUM:
+            {
+                // <ID_CONTENT> -> SUM <EXPRESSIO> LINE_DELIMITER
+                Node c0 = child(node, "SUM");
+                Node c1 = child(node, "<EXPRESSIO>");
+                Node c2 = child(node, "LINE_DELIMITER");
+                match(c0, SUM, "SUM");
+                parseExpressio(c1);
+                match(c2, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case MINUS:
+            {
+                // <ID_CONTENT> -> MINUS <EXPRESSIO> LINE_DELIMITER
+                Node c0 = child(node, "MINUS");
+                Node c1 = child(node, "<EXPRESSIO>");
+                Node c2 = child(node, "LINE_DELIMITER");
+                match(c0, MINUS, "MINUS");
+                parseExpressio(c1);
+                match(c2, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case MULTIPLY:
+            {
+                // <ID_CONTENT> -> MULTIPLY <TERME> <EXPRESSIO'> LINE_DELIMITER
+                Node c0 = child(node, "MULTIPLY");
+                Node c1 = child(node, "<TERME>");
+                Node c2 = child(node, "<EXPRESSIO'>");
+                Node c3 = child(node, "LINE_DELIMITER");
+                match(c0, MULTIPLY, "MULTIPLY");
+                parseTerme(c1);
+                parseExpressioPrime(c2);
+                match(c3, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            case DIVISION:
+            {
+                // <ID_CONTENT> -> DIVISION <TERME> <EXPRESSIO'> LINE_DELIMITER
+                Node c0 = child(node, "DIVISION");
+                Node c1 = child(node, "<TERME>");
+                Node c2 = child(node, "<EXPRESSIO'>");
+                Node c3 = child(node, "LINE_DELIMITER");
+                match(c0, DIVISION, "DIVISION");
+                parseTerme(c1);
+                parseExpressioPrime(c2);
+                match(c3, LINE_DELIMITER, "LINE_DELIMITER");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <INIT_ARRAY>
+    private void parseInitArray(Node node) {
+        switch (lookId) {
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case INT_VALUE:
+            {
+                // <INIT_ARRAY> -> <VALOR> <VALOR'>
+                Node c0 = child(node, "<VALOR>");
+                Node c1 = child(node, "<VALOR'>");
+                parseValor(c0);
+                parseValorPrime(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <LOCAL_DECL_SUFFIX>
+    private void parseLocalDeclSuffix(Node node) {
+        switch (lookId) {
+            case EQUAL_ASSIGNATION:
+            {
+                // <LOCAL_DECL_SUFFIX> -> EQUAL_ASSIGNATION <EXPRESSIO>
+                Node c0 = child(node, "EQUAL_ASSIGNATION");
+                Node c1 = child(node, "<EXPRESSIO>");
+                match(c0, EQUAL_ASSIGNATION, "EQUAL_ASSIGNATION");
+                parseExpressio(c1);
+                return;
+            }
+            case OPEN_CLAUDATOR:
+            {
+                // <LOCAL_DECL_SUFFIX> -> OPEN_CLAUDATOR <INIT_ARRAY> CLOSE_CLAUDATOR
+                Node c0 = child(node, "OPEN_CLAUDATOR");
+                Node c1 = child(node, "<INIT_ARRAY>");
+                Node c2 = child(node, "CLOSE_CLAUDATOR");
+                match(c0, OPEN_CLAUDATOR, "OPEN_CLAUDATOR");
+                parseInitArray(c1);
+                match(c2, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                return;
+            }
+            case LINE_DELIMITER:
+            {
+                // <LOCAL_DECL_SUFFIX> -> ε
+                Node c0 = child(node, "ε");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <TERME'>
+    private void parseTermePrime(Node node) {
+        while (true) {
+            switch (lookId) {
+                case MULTIPLY:
+                {
+                    // <TERME'> -> MULTIPLY <FACTOR> <TERME'>
+                    Node c0 = child(node, "MULTIPLY");
+                    Node c1 = child(node, "<FACTOR>");
+                    Node c2 = child(node, "<TERME'>");
+                    match(c0, MULTIPLY, "MULTIPLY");
+                    parseFactor(c1);
+                    node = c2;
+                    continue;
+                }
+                case DIVISION:
+                {
+                    // <TERME'> -> DIVISION <FACTOR> <TERME'>
+                    Node c0 = child(node, "DIVISION");
+                    Node c1 = child(node, "<FACTOR>");
+                    Node c2 = child(node, "<TERME'>");
+                    match(c0, DIVISION, "DIVISION");
+                    parseFactor(c1);
+                    node = c2;
+                    continue;
+                }
+                case CLOSE_PARENTHESIS:
+                case LINE_DELIMITER:
+                case MINUS:
+                case SUM:
+                {
+                    // <TERME'> -> ε
+                    Node c0 = child(node, "ε");
+                    return;
+                }
+                default:
+                    throw noProduction();
+            }
+        }
+    }
+
+    // <TERME>
+    private void parseTerme(Node node) {
+        switch (lookId) {
+            case CHAR_VALUE:
+            case FLOAT_VALUE:
+            case ID:
+            case INT_VALUE:
+            case OPEN_PARENTHESIS:
+            {
+                // <TERME> -> <FACTOR> <TERME'>
+                Node c0 = child(node, "<FACTOR>");
+                Node c1 = child(node, "<TERME'>");
+                node.setKind(NodeKind.OPERATION);
+                parseFactor(c0);
+                parseTermePrime(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <TIPUS>
+    private void parseTipus(Node node) {
+        switch (lookId) {
+            case CHAR:
+            case FLOAT:
+            case INT:
+            {
+                // <TIPUS> -> <TIPUS_BASE>
+                Node c0 = child(node, "<TIPUS_BASE>");
+                parseTipusBase(c0);
+                return;
+            }
+            case ARRAY:
+            {
+                // <TIPUS> -> ARRAY DE INT_VALUE <TIPUS_BASE>
+                Node c0 = child(node, "ARRAY");
+                Node c1 = child(node, "DE");
+                Node c2 = child(node, "INT_VALUE");
+                Node c3 = child(node, "<TIPUS_BASE>");
+                match(c0, ARRAY, "ARRAY");
+                match(c1, DE, "DE");
+                match(c2, INT_VALUE, "INT_VALUE");
+                parseTipusBase(c3);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <TIPUS_BASE>
+    private void parseTipusBase(Node node) {
+        switch (lookId) {
+            case INT:
+            {
+                // <TIPUS_BASE> -> INT
+                Node c0 = child(node, "INT");
+                match(c0, INT, "INT");
+                return;
+            }
+            case FLOAT:
+            {
+                // <TIPUS_BASE> -> FLOAT
+                Node c0 = child(node, "FLOAT");
+                match(c0, FLOAT, "FLOAT");
+                return;
+            }
+            case CHAR:
+            {
+                // <TIPUS_BASE> -> CHAR
+                Node c0 = child(node, "CHAR");
+                match(c0, CHAR, "CHAR");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <TOKEN_CONCATENACIO>
+    private void parseTokenConcatenacio(Node node) {
+        switch (lookId) {
+            case AND:
+            {
+                // <TOKEN_CONCATENACIO> -> AND
+                Node c0 = child(node, "AND");
+                match(c0, AND, "AND");
+                return;
+            }
+            case OR:
+            {
+                // <TOKEN_CONCATENACIO> -> OR
+                Node c0 = child(node, "OR");
+                match(c0, OR, "OR");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <TOKEN_CONDICIONAL>
+    private void parseTokenCondicional(Node node) {
+        switch (lookId) {
+            case EQUAL_COMPARATION:
+            {
+                // <TOKEN_CONDICIONAL> -> EQUAL_COMPARATION
+                Node c0 = child(node, "EQUAL_COMPARATION");
+                match(c0, EQUAL_COMPARATION, "EQUAL_COMPARATION");
+                return;
+            }
+            case DIFFERENT:
+            {
+                // <TOKEN_CONDICIONAL> -> DIFFERENT
+                Node c0 = child(node, "DIFFERENT");
+                match(c0, DIFFERENT, "DIFFERENT");
+                return;
+            }
+            case BIGGER:
+            {
+                // <TOKEN_CONDICIONAL> -> BIGGER
+                Node c0 = child(node, "BIGGER");
+                match(c0, BIGGER, "BIGGER");
+                return;
+            }
+            case LOWER:
+            {
+                // <TOKEN_CONDICIONAL> -> LOWER
+                Node c0 = child(node, "LOWER");
+                match(c0, LOWER, "LOWER");
+                return;
+            }
+            case BIGGER_EQUAL:
+            {
+                // <TOKEN_CONDICIONAL> -> BIGGER_EQUAL
+                Node c0 = child(node, "BIGGER_EQUAL");
+                match(c0, BIGGER_EQUAL, "BIGGER_EQUAL");
+                return;
+            }
+            case LOWER_EQUAL:
+            {
+                // <TOKEN_CONDICIONAL> -> LOWER_EQUAL
+                Node c0 = child(node, "LOWER_EQUAL");
+                match(c0, LOWER_EQUAL, "LOWER_EQUAL");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <UNIT>
+    private void parseUnit(Node node) {
+        switch (lookId) {
+            case ARRAY:
+            case CHAR:
+            case FLOAT:
+            case INT:
+            {
+                // <UNIT> -> <TIPUS> <UNIT_TAIL>
+                Node c0 = child(node, "<TIPUS>");
+                Node c1 = child(node, "<UNIT_TAIL>");
+                parseTipus(c0);
+                parseUnitTail(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <UNIT_LIST>
+    private void parseUnitList(Node node) {
+        while (true) {
+            switch (lookId) {
+                case ARRAY:
+                case CHAR:
+                case FLOAT:
+                case INT:
+                {
+                    // <UNIT_LIST> -> <UNIT> <UNIT_LIST>
+                    Node c0 = child(node, "<UNIT>");
+                    Node c1 = child(node, "<UNIT_LIST>");
+                    parseUnit(c0);
+                    node = c1;
+                    continue;
+                }
+                case END_MARKER:
+                {
+                    // <UNIT_LIST> -> ε
+                    Node c0 = child(node, "ε");
+                    return;
+                }
+                default:
+                    throw noProduction();
+            }
+        }
+    }
+
+    // <UNIT_TAIL>
+    private void parseUnitTail(Node node) {
+        switch (lookId) {
+            case MAIN:
+            {
+                // <UNIT_TAIL> -> MAIN OPEN_CLAUDATOR <BODY> CLOSE_CLAUDATOR
+                Node c0 = child(node, "MAIN");
+                Node c1 = child(node, "OPEN_CLAUDATOR");
+                Node c2 = child(node, "<BODY>");
+                Node c3 = child(node, "CLOSE_CLAUDATOR");
+                tag(node, "<UNIT>", NodeKind.MAIN);
+                match(c0, MAIN, "MAIN");
+                match(c1, OPEN_CLAUDATOR, "OPEN_CLAUDATOR");
+                parseBody(c2);
+                match(c3, CLOSE_CLAUDATOR, "CLOSE_CLAUDATOR");
+                return;
+            }
+            case ID:
+            {
+                // <UNIT_TAIL> -> ID <DECL_OR_FUNC_TAIL>
+                Node c0 = child(node, "ID");
+                Node c1 = child(node, "<DECL_OR_FUNC_TAIL>");
+                match(c0, ID, "ID");
+                parseDeclOrFuncTail(c1);
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <VALOR'>
+    private void parseValorPrime(Node node) {
+        switch (lookId) {
+            case ARGUMENT_SEPARATOR:
+            {
+                // <VALOR'> -> ARGUMENT_SEPARATOR <INIT_ARRAY>
+                Node c0 = child(node, "ARGUMENT_SEPARATOR");
+                Node c1 = child(node, "<INIT_ARRAY>");
+                match(c0, ARGUMENT_SEPARATOR, "ARGUMENT_SEPARATOR");
+                parseInitArray(c1);
+                return;
+            }
+            case CLOSE_CLAUDATOR:
+            {
+                // <VALOR'> -> ε
+                Node c0 = child(node, "ε");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    // <VALOR>
+    private void parseValor(Node node) {
+        switch (lookId) {
+            case INT_VALUE:
+            {
+                // <VALOR> -> INT_VALUE
+                Node c0 = child(node, "INT_VALUE");
+                match(c0, INT_VALUE, "INT_VALUE");
+                return;
+            }
+            case FLOAT_VALUE:
+            {
+                // <VALOR> -> FLOAT_VALUE
+                Node c0 = child(node, "FLOAT_VALUE");
+                match(c0, FLOAT_VALUE, "FLOAT_VALUE");
+                return;
+            }
+            case CHAR_VALUE:
+            {
+                // <VALOR> -> CHAR_VALUE
+                Node c0 = child(node, "CHAR_VALUE");
+                match(c0, CHAR_VALUE, "CHAR_VALUE");
+                return;
+            }
+            default:
+                throw noProduction();
+        }
+    }
+
+    private static Node child(Node parent, String symbol) {
+        Node child = new Node(symbol);
+        parent.addChild(child);
+        return child;
+    }
+
+    private static void tag(Node node, String target, NodeKind kind) {
+        while (node != null && !target.equals(node.getSymbol())) node = node.getParent();
+        if (node != null) node.setKind(kind);
+    }
+
+    private void match(Node node, int expected, String name) {
+        if (lookId != expected) {
+            throw new RuntimeException(
+                    String.format("Error sintáctico: esperaba %s pero llegó %s en línea %d,col %d",
+                            name, look.getType(), look.getLine(), look.getColumn())
+            );
+        }
+        node.setToken(look);
+        advance();
+    }
+
+    private RuntimeException noProduction() {
+        return new RuntimeException(
+                String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), look.getLine(), look.getLexeme())
+        );
+    }
+
+    private void advance() {
+        Token token = lexer.getNextToken();
+        look = token != null ? token : new Token(END_MARKER, "$", "$", -1, -1);
+        int id = look.getTypeId();
+        if (id >= 0 && id <= END_MARKER && (id == END_MARKER ? "$" : TOKEN_TYPES.get(id)).equals(look.getType())) {
+            lookId = id;
+        } else {
+            id = TOKEN_TYPES.indexOf(look.getType());
+            lookId = id >= 0 ? id : "$".equals(look.getType()) ? END_MARKER : UNKNOWN;
+        }
+    }
+}
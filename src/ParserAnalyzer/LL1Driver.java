@@ -0,0 +1,173 @@
+package ParserAnalyzer;
+
+import entities.LL1Table;
+import entities.Token;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Bucle LL(1) que comparten todos los modos de {@link ParserAnalyzer}: saca símbolos de la pila,
+ * hace match de los terminales con el lookahead y expande los no terminales con la tabla. Cada modo
+ * es una subclase que dice qué hace con lo que se reconoce ({@link #matched}, {@link #expand}), qué
+ * no terminales parsea por otra vía ({@link #parseApart}) y qué pasa con un error
+ * ({@link #unexpectedTerminal}, {@link #noProduction}); por defecto un error lanza una
+ * RuntimeException.
+ * <p>
+ * Los símbolos se manejan como ids enteros de la {@link LL1Table}: el bucle solo indexa arrays. Un
+ * id negativo {@code ~noTerminal} es una marca que apila un modo para saber cuándo se ha reconocido
+ * entero ese no terminal ({@link #exited}). Lo que cada modo guarda por símbolo va en arrays
+ * paralelos a la pila, con la misma posición ({@code slot}), que amplía en {@link #grow}.
+ */
+abstract class LL1Driver {
+    protected final ParserAnalyzer parser;
+    protected final LL1Table table;
+    protected final int endMarker;
+    private final Supplier<Token> source;
+    // read() como Supplier, para quien tenga que leer tokens por su cuenta (PrattParser)
+    protected final Supplier<Token> reader = this::read;
+
+    protected Token look;
+    protected int lookId;
+    protected int[] symbols = new int[64];
+    protected int top;
+
+    LL1Driver(ParserAnalyzer parser, LL1Table table, Supplier<Token> source) {
+        this.parser = parser;
+        this.table = table;
+        this.endMarker = table.getEndMarker();
+        this.source = source;
+    }
+
+    /**
+     * Reconoce {@code startSymbol} con los tokens de la entrada.
+     * @return el lookahead que queda sin consumir (el token {@code $} si se ha leído todo)
+     */
+    final Token run(String startSymbol) {
+        // Primer token de lookahead y pila con la marca de fin debajo del símbolo inicial
+        advance();
+        push(endMarker);
+        started(push(table.getSymbolId(startSymbol)));
+
+        while (top > 0) {
+            int slot = --top;
+            int symbol = symbols[slot];
+            if (symbol == endMarker) break;
+
+            if (symbol < 0) {
+                exited(slot, ~symbol);
+            } else if (symbol == table.getEpsilon()) {
+                skipped(slot);
+            } else if (table.isTerminal(symbol)) {
+                if (symbol == lookId) {
+                    matched(slot, symbol, look);
+                    advance();
+                } else if (!unexpectedTerminal(slot, symbol)) {
+                    break;
+                }
+            } else if (!parseApart(slot, symbol)) {
+                int index = lookId < 0 || lookId > endMarker ? LL1Table.NO_PRODUCTION : table.predict(symbol, lookId);
+                if (index != LL1Table.NO_PRODUCTION) expand(slot, symbol, index);
+                else if (!noProduction(slot, symbol)) break;
+            }
+        }
+        return look;
+    }
+
+    /** El símbolo inicial está en {@code slot}. */
+    protected void started(int slot) {}
+
+    /** El terminal de {@code slot} se ha reconocido con {@code token}, que aún es el lookahead. */
+    protected abstract void matched(int slot, int terminal, Token token);
+
+    /**
+     * Se aplica la producción {@code production} al no terminal de {@code slot}: el modo tiene que
+     * apilar su parte derecha ({@link #pushProduction}).
+     */
+    protected abstract void expand(int slot, int nonTerminal, int production);
+
+    /** El símbolo de {@code slot} era ε. */
+    protected void skipped(int slot) {}
+
+    /** Se ha llegado a la marca {@code ~nonTerminal} que el modo había apilado en {@code slot}. */
+    protected void exited(int slot, int nonTerminal) {}
+
+    /**
+     * Da al modo la ocasión de reconocer el no terminal de {@code slot} sin la tabla, dejando
+     * {@link #look} en el token que va detrás.
+     * @return si lo ha hecho
+     */
+    protected boolean parseApart(int slot, int nonTerminal) {
+        return false;
+    }
+
+    /**
+     * El lookahead no es el terminal de {@code slot}.
+     * @return si el parseo sigue
+     */
+    protected boolean unexpectedTerminal(int slot, int terminal) {
+        throw new RuntimeException(expectedMessage(terminal));
+    }
+
+    /**
+     * La tabla no tiene producción para el no terminal de {@code slot} con el lookahead.
+     * @return si el parseo sigue
+     */
+    protected boolean noProduction(int slot, int nonTerminal) {
+        throw new RuntimeException(unsupportedMessage());
+    }
+
+    protected final String expectedMessage(int terminal) {
+        return String.format("Error sintáctico: esperaba %s pero llegó %s en línea %d,col %d",
+                table.getSymbolName(terminal), look.getType(), look.getLine(), look.getColumn());
+    }
+
+    protected final String unsupportedMessage() {
+        return String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), look.getLine(), look.getLexeme());
+    }
+
+    /** El siguiente token de la entrada, o {@code null} si se ha acabado. */
+    protected Token read() {
+        return source.get();
+    }
+
+    /** Pasa al siguiente token de lookahead; al acabar la entrada es el token {@code $}. */
+    protected final void advance() {
+        look = parser.nextToken(reader);
+        lookId = parser.symbolOf(look);
+    }
+
+    /** @return la posición donde ha quedado {@code symbol} */
+    protected final int push(int symbol) {
+        reserve(1);
+        symbols[top] = symbol;
+        return top++;
+    }
+
+    /**
+     * Apila la parte derecha de una producción en orden inverso, para que el primer símbolo quede
+     * arriba.
+     * @return la posición del último símbolo: el símbolo {@code i} queda en
+     *         {@code base + production.length - 1 - i}
+     */
+    protected final int pushProduction(int[] production) {
+        reserve(production.length);
+        int base = top;
+        for (int i = 0; i < production.length; i++) {
+            symbols[base + production.length - 1 - i] = production[i];
+        }
+        top += production.length;
+        return base;
+    }
+
+    private void reserve(int count) {
+        if (top + count > symbols.length) {
+            int length = Math.max(symbols.length * 2, top + count);
+            symbols = Arrays.copyOf(symbols, length);
+            grow(length);
+        }
+    }
+
+    /** Amplía los arrays paralelos a la pila hasta {@code length}. */
+    protected void grow(int length) {}
+}
@@ -0,0 +1,52 @@
+package ParserAnalyzer;
+
+import entities.Node;
+import entities.Token;
+
+import java.util.List;
+
+/**
+ * {@code <BODY>} de una función que {@link ParserAnalyzer#parseLazy} no ha parseado: guarda el
+ * rango de sus tokens y se parsea la primera vez que se piden sus hijos.
+ */
+class LazyBodyNode extends Node {
+    private final ParserAnalyzer parser;
+    private List<Token> tokens;
+    private int from;
+    private int to;
+    // Error sintáctico del cuerpo: se vuelve a lanzar cada vez que se piden los hijos, que se han
+    // quedado a medias
+    private RuntimeException failure;
+
+    LazyBodyNode(ParserAnalyzer parser, String symbol) {
+        super(symbol);
+        this.parser = parser;
+    }
+
+    /**
+     * @param from primer token del cuerpo
+     * @param to   uno más allá del token que lo cierra, que solo hace de lookahead
+     */
+    void setTokens(List<Token> tokens, int from, int to) {
+        this.tokens = tokens;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public List<Node> getChildren() {
+        if (failure != null) throw failure;
+        if (tokens != null) {
+            List<Token> range = tokens.subList(from, to);
+            // Mientras se parsea, el parser pide los hijos de este mismo nodo para irlo llenando
+            tokens = null;
+            try {
+                parser.parseBody(this, range);
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            }
+        }
+        return super.getChildren();
+    }
+}
@@ -0,0 +1,32 @@
+package ParserAnalyzer;
+
+import entities.Token;
+
+/**
+ * Eventos del parser LL(1) mientras avanza, sin construir ningún árbol
+ * ({@link ParserAnalyzer#parse(LexicalAnalyzer.LexicalAnalyzer, ParseListener)}).
+ * <p>
+ * Llegan en preorden: {@link #enterNonTerminal} al expandir un no terminal, luego los eventos de
+ * toda su parte derecha y por último {@link #exitNonTerminal}. Una producción ε da un
+ * {@code enter} seguido directamente de su {@code exit}. Los ids son los de la
+ * {@link entities.LL1Table} del parser ({@code getSymbolName}, {@code getProduction}, ...).
+ * Todos los métodos tienen una implementación vacía, así que basta con sobrescribir los que hagan
+ * falta.
+ */
+public interface ParseListener {
+
+    /**
+     * @param nonTerminal id del no terminal que se expande
+     * @param production  índice de la producción elegida
+     */
+    default void enterNonTerminal(int nonTerminal, int production) {}
+
+    /** Se ha terminado de reconocer todo lo que deriva {@code nonTerminal}. */
+    default void exitNonTerminal(int nonTerminal) {}
+
+    /**
+     * @param terminal id del terminal reconocido
+     * @param token    el token del lexer
+     */
+    default void token(int terminal, Token token) {}
+}
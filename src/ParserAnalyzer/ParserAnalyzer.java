@@ -1,106 +1,683 @@
 package ParserAnalyzer;
 
+import entities.AstNode;
+import entities.Diagnostics;
+import entities.FlatTree;
 import entities.Grammar;
 import entities.Node;
+import entities.NodeKind;
+import entities.PrecedenceTable;
 import entities.Token;
+import entities.LL1Table;
 import entities.ParserTableBuilder;
 import LexicalAnalyzer.LexicalAnalyzer;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
 
 public class ParserAnalyzer {
     private static final String END_MARKER = "$";
-    private static final String EPSILON    = "ε";
+    private static final String AXIOMA     = "<AXIOMA>";
+    // Cuerpo de función que parseLazy deja sin parsear, delimitado por jajaj ... jejej
+    static final String LAZY_SYMBOL       = "<BODY>";
+    private static final String OPEN_BODY  = "OPEN_CLAUDATOR";
+    private static final String CLOSE_BODY = "CLOSE_CLAUDATOR";
+    private static final String UNIT_LIST  = "<UNIT_LIST>";
+    private static final String UNIT       = "<UNIT>";
+    private static final String LINE_DELIMITER = "LINE_DELIMITER";
+    // Tokens que parsea cada tarea de parseParallel, como mínimo
+    private static final int UNIT_CHUNK_TOKENS = 8192;
+    // Tokens que hay que reconocer después de un error antes de informar del siguiente
+    private static final int RECOVERY_QUIET_TOKENS = 3;
 
     private final Grammar grammar;
-    private final Map<String, Map<String, List<String>>> table;
+    private final LL1Table table;
+    // FOLLOW de cada no terminal por id, para el modo recuperación y el parser de expresiones; se
+    // calcula al crear el parser porque el mismo parser se usa desde varios hilos (parseParallel)
+    private final BitSet[] follow;
+    // Parser de expresiones por precedencias, o null si todo se parsea con la tabla LL(1)
+    private final PrattParser pratt;
 
     public ParserAnalyzer(Grammar grammar, ParserTableBuilder builder) {
         this.grammar = grammar;
-        this.table   = builder.getParsingTable();
+        this.table   = builder.getIntTable();
+        this.follow  = followSets();
+        this.pratt   = null;
     }
 
     /**
-     * Arranca el parseo LL(1) con el lexer ya tokenizado.
+     * Igual que {@link #ParserAnalyzer(Grammar, ParserTableBuilder)}, pero los no terminales de
+     * {@code precedences} ({@code <EXPRESSIO>}, {@code <CONDICIO>}) se parsean por precedencias:
+     * cada expresión queda como un árbol de nodos {@code <BINARY>} asociativos por la izquierda en
+     * vez de la cadena de no terminales de la gramática. Solo cambia el árbol de
+     * {@link #parse(LexicalAnalyzer)} y de los modos que lo construyen igual (lazy, en paralelo);
+     * los demás modos y la recuperación de errores siguen con la tabla LL(1).
+     */
+    public ParserAnalyzer(Grammar grammar, ParserTableBuilder builder, PrecedenceTable precedences) {
+        this.grammar = grammar;
+        this.table   = builder.getIntTable();
+        this.follow  = followSets();
+        this.pratt   = new PrattParser(this, table, precedences, follow);
+    }
+
+    /**
+     * Arranca el parseo LL(1) pidiendo los tokens al lexer uno a uno.
+     * Sirve tanto con el lexer ya tokenizado como con uno abierto en modo streaming,
+     * en cuyo caso el parseo avanza a la vez que la lectura del fichero.
+     * Los símbolos se manejan como ids enteros de la {@link LL1Table}: el bucle solo indexa arrays.
      * @return la raíz del árbol de parseo
      */
     public Node parse(LexicalAnalyzer lexer) {
-        // 1) Obtener lista de tokens + marcador de fin
-        List<Token> tokens = new ArrayList<>(lexer.getTokens());
-        tokens.add(new Token(END_MARKER, END_MARKER, -1, -1));
-
-        // 2) Pilas: símbolos y nodos
-        Deque<String> symbolStack = new ArrayDeque<>();
-        Deque<Node>   nodeStack   = new ArrayDeque<>();
-
-        // 3) Inicializar: primero marcamos fin, luego axioma
-        symbolStack.push(END_MARKER);
-        symbolStack.push("<AXIOMA>");
-        Node root = new Node("<AXIOMA>");
-        nodeStack.push(root);
-
-        int index = 0;
-        // 4) Loop hasta encontrar END_MARKER
-        while (!symbolStack.isEmpty()) {
-            String topSym = symbolStack.pop();
-            // Si encontramos el marcador de fin, salimos
-            if (END_MARKER.equals(topSym)) {
-                break;
+        Node root = new Node(AXIOMA);
+        new TreeDriver(lexer::getNextToken, root).run(AXIOMA);
+        return root;
+    }
+
+    /**
+     * Igual que {@link #parse(LexicalAnalyzer)}, pero en modo pánico: cada error léxico o sintáctico
+     * se apunta en {@code diagnostics} y el parseo sigue. Tras un error se descartan tokens hasta
+     * uno que pueda empezar el no terminal, que esté en su FOLLOW o que sea un {@code xd} o el fin
+     * de fichero; con estos dos últimos se desapila hasta el símbolo que los acepta. Para no
+     * encadenar errores falsos, tras uno, léxico o sintáctico, no se informa de otro error sintáctico
+     * hasta haber reconocido {@value #RECOVERY_QUIET_TOKENS} tokens. Para en cuanto {@code diagnostics} está lleno.
+     * <p>
+     * Los nodos que se quedan a medias se marcan con {@link Node#setIncomplete}.
+     * @return la raíz del árbol de parseo, completo solo si no ha habido errores
+     */
+    public Node parse(LexicalAnalyzer lexer, Diagnostics diagnostics) {
+        Node root = new Node(AXIOMA);
+        new RecoveryDriver(lexer, root, diagnostics).run(AXIOMA);
+        return root;
+    }
+
+    /** FOLLOW de cada no terminal, indexado por id de la tabla; los terminales quedan a {@code null}. */
+    private BitSet[] followSets() {
+        Map<String, List<List<String>>> rules = grammar.getGrammarRules();
+        Map<String, Set<String>> sets = ParserTableBuilder.computeFollowSets(
+                rules, ParserTableBuilder.computeFirstSets(rules), AXIOMA);
+        BitSet[] result = new BitSet[table.getSymbolCount()];
+        for (Map.Entry<String, Set<String>> entry : sets.entrySet()) {
+            BitSet bits = new BitSet(table.getEndMarker() + 1);
+            for (String terminal : entry.getValue()) {
+                int id = table.getSymbolId(terminal);
+                if (id >= 0 && id <= table.getEndMarker()) bits.set(id);
             }
+            result[table.getSymbolId(entry.getKey())] = bits;
+        }
+        return result;
+    }
 
-            Node cur = nodeStack.pop();
-            Token look = tokens.get(index);
+    /**
+     * Parsea una lista de tokens a partir de cualquier no terminal, no solo del axioma. Termina en
+     * cuanto el símbolo está reconocido entero: los tokens que sobren no se leen, pero el siguiente
+     * tiene que estar para decidir las producciones ε (por ejemplo, el {@code jejej} que cierra un
+     * {@code <BODY>}).
+     * @return el nodo de {@code startSymbol} con su subárbol
+     */
+    public Node parse(List<Token> tokens, String startSymbol) {
+        if (table.getSymbolId(startSymbol) < 0 || table.isTerminal(table.getSymbolId(startSymbol))) {
+            throw new IllegalArgumentException("No es un no terminal de la gramática: " + startSymbol);
+        }
+        Node root = new Node(startSymbol);
+        new TreeDriver(tokensOf(tokens), root).run(startSymbol);
+        return root;
+    }
 
-            // 5) Si es ε, lo ignoramos
-            if (EPSILON.equals(topSym)) {
-                continue;
+    /**
+     * Parsea el programa sin entrar en los cuerpos de las funciones (ni de {@code xat}): cada
+     * {@code <BODY>} se salta contando {@code jajaj}/{@code jejej} y se guarda el rango de sus
+     * tokens. El nodo se parsea la primera vez que alguien pide sus hijos, así que
+     * {@code SemanticAnalyzer} y {@code TACGenerator} funcionan igual, y una función que nadie
+     * recorre casi no cuesta nada. Los errores sintácticos de un cuerpo aparecen al parsearlo.
+     * @return la raíz del árbol de parseo, con los cuerpos pendientes
+     */
+    public Node parseLazy(LexicalAnalyzer lexer) {
+        Node root = new Node(AXIOMA);
+        new LazyTreeDriver(lexer::getNextToken, root).run(AXIOMA);
+        return root;
+    }
+
+    /**
+     * Parsea en paralelo en el ForkJoinPool común.
+     * @see #parseParallel(LexicalAnalyzer, ForkJoinPool)
+     */
+    public Node parseParallel(LexicalAnalyzer lexer) {
+        return parseParallel(lexer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parsea cada {@code <UNIT>} del programa por separado en el pool y cuelga los subárboles
+     * de la cadena de {@code <UNIT_LIST>} en el orden del código: el árbol es el mismo que el de
+     * {@link #parse(LexicalAnalyzer)}.
+     * <p>
+     * Primero se leen todos los tokens y se buscan los límites de cada unidad contando
+     * {@code jajaj}/{@code jejej}: una unidad acaba en un {@code xd} fuera de llaves (variable
+     * global) o en el {@code jejej} que vuelve al nivel 0 si no le sigue un {@code xd} (función).
+     * Si una unidad no se puede parsear, o no se consume entera, se vuelve a parsear todo en
+     * secuencial, así que los errores son exactamente los del parseo normal.
+     * @return la raíz del árbol de parseo
+     */
+    public Node parseParallel(LexicalAnalyzer lexer, ForkJoinPool pool) {
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = lexer.getNextToken(); token != null; token = lexer.getNextToken()) {
+            tokens.add(token);
+        }
+
+        // Con un solo hilo, repartir las unidades no gana nada
+        int[] ends = pool.getParallelism() > 1 ? unitEnds(tokens) : null;
+        if (ends == null) return parse(tokens, AXIOMA);
+        List<Node> units;
+        try {
+            units = pool.invoke(new UnitTask(tokens, ends, 0, ends.length));
+        } catch (RuntimeException e) {
+            return parse(tokens, AXIOMA);
+        }
+
+        // <AXIOMA> -> <UNIT_LIST>;  <UNIT_LIST> -> <UNIT> <UNIT_LIST> | ε
+        Node root = new Node(AXIOMA);
+        Node list = new Node(UNIT_LIST);
+        root.addChild(list);
+        for (Node unit : units) {
+            list.addChild(unit);
+            Node next = new Node(UNIT_LIST);
+            list.addChild(next);
+            list = next;
+        }
+        list.addChild(new Node(table.getSymbolName(table.getEpsilon())));
+        return root;
+    }
+
+    /**
+     * Índice (exclusivo) del último token de cada unidad, o {@code null} si la gramática no tiene
+     * la forma {@code <AXIOMA> -> <UNIT_LIST>}, {@code <UNIT_LIST> -> <UNIT> <UNIT_LIST> | ε}.
+     */
+    private int[] unitEnds(List<Token> tokens) {
+        if (!hasUnitListShape()) return null;
+        int open = table.getSymbolId(OPEN_BODY);
+        int close = table.getSymbolId(CLOSE_BODY);
+        int delimiter = table.getSymbolId(LINE_DELIMITER);
+
+        int[] ends = new int[16];
+        int count = 0;
+        int depth = 0;
+        int n = tokens.size();
+        for (int i = 0; i < n; i++) {
+            int id = symbolOf(tokens.get(i));
+            boolean end = false;
+            if (id == open) {
+                depth++;
+            } else if (id == close) {
+                depth--;
+                end = depth == 0 && (i + 1 == n || symbolOf(tokens.get(i + 1)) != delimiter);
+            } else if (id == delimiter) {
+                end = depth == 0;
             }
+            if (end || i + 1 == n) {
+                if (count == ends.length) ends = Arrays.copyOf(ends, count * 2);
+                ends[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(ends, count);
+    }
 
-            // 6) Si es terminal, hacemos match
-            if (isTerminal(topSym)) {
-                if (topSym.equals(look.getType())) {
-                    cur.setToken(look);
-                    index++;
-                } else {
-                    throw new RuntimeException(
-                            String.format("Error sintáctico: esperaba %s pero llegó %s en línea %d,col %d",
-                                    topSym, look.getType(), look.getLine(), look.getColumn())
-                    );
-                }
+    private boolean hasUnitListShape() {
+        int axioma = table.getSymbolId(AXIOMA);
+        int unitList = table.getSymbolId(UNIT_LIST);
+        int unit = table.getSymbolId(UNIT);
+        if (unitList < 0 || unit < 0) return false;
+        int[] shape = new int[2];  // producciones de <AXIOMA> y de <UNIT_LIST> que encajan
+        for (int p = 0; p < table.getProductionCount(); p++) {
+            int[] production = table.getProduction(p);
+            if (table.getProductionLhs(p) == axioma) {
+                if (!Arrays.equals(production, new int[]{unitList})) return false;
+                shape[0]++;
+            } else if (table.getProductionLhs(p) == unitList) {
+                if (!Arrays.equals(production, new int[]{unit, unitList})
+                        && !Arrays.equals(production, new int[]{table.getEpsilon()})) return false;
+                shape[1]++;
+            }
+        }
+        return shape[0] == 1 && shape[1] == 2;
+    }
 
-            } else {
-                // 7) No terminal: consultar tabla
-                Map<String, List<String>> row = table.get(topSym);
-                if (row == null) {
-                    throw new RuntimeException("No existe fila para no terminal " + topSym);
+    /**
+     * Parsea las unidades {@code [from, to)}; parte el rango por la mitad mientras tenga más de
+     * {@link #UNIT_CHUNK_TOKENS} tokens y más de una unidad.
+     */
+    private class UnitTask extends RecursiveTask<List<Node>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Token> tokens;
+        private final int[] ends;
+        private final int from;
+        private final int to;
+
+        UnitTask(List<Token> tokens, int[] ends, int from, int to) {
+            this.tokens = tokens;
+            this.ends = ends;
+            this.from = from;
+            this.to = to;
+        }
+
+        private int start(int unit) {
+            return unit == 0 ? 0 : ends[unit - 1];
+        }
+
+        @Override
+        protected List<Node> compute() {
+            if (to - from > 1 && start(to) - start(from) > UNIT_CHUNK_TOKENS) {
+                int middle = (from + to) >>> 1;
+                UnitTask left = new UnitTask(tokens, ends, from, middle);
+                UnitTask right = new UnitTask(tokens, ends, middle, to);
+                left.fork();
+                List<Node> rightUnits = right.compute();
+                List<Node> units = new ArrayList<>(left.join());
+                units.addAll(rightUnits);
+                return units;
+            }
+
+            List<Node> units = new ArrayList<>(to - from);
+            for (int u = from; u < to; u++) {
+                Node unit = new Node(UNIT);
+                Token rest = new TreeDriver(tokensOf(tokens.subList(start(u), ends[u])), unit).run(UNIT);
+                if (rest.getTypeId() != table.getEndMarker()) {
+                    throw new RuntimeException("La unidad no acaba donde indicaba el recuento de llaves");
                 }
-                List<String> production = row.get(look.getType());
-                if (production == null) {
-                    throw new RuntimeException(
-                            String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), look.getLine(), look.getLexeme())
-                    );
+                units.add(unit);
+            }
+            return units;
+        }
+    }
+
+    /**
+     * Parsea el cuerpo pendiente de {@code body} sobre sus tokens (el último es el que lo cierra).
+     */
+    void parseBody(LazyBodyNode body, List<Token> tokens) {
+        new TreeDriver(tokensOf(tokens), body).run(LAZY_SYMBOL);
+    }
+
+    /**
+     * Parsea {@code node}, un nodo nuevo con el símbolo que se quiere reconocer, sobre {@code tokens}
+     * seguidos de {@code next}, el token que va detrás en el documento ({@code null} si no hay).
+     * Sirve para volver a parsear un trozo de un árbol ya construido ({@link DocumentModel}).
+     * @return si el símbolo se ha reconocido sin errores con justo esos tokens, dejando {@code next}
+     *         de lookahead
+     */
+    boolean reparse(Node node, List<Token> tokens, Token next) {
+        Iterator<Token> it = tokens.iterator();
+        boolean[] nextRead = {false};
+        Supplier<Token> source = () -> {
+            if (it.hasNext()) return it.next();
+            if (nextRead[0]) return null;
+            nextRead[0] = true;
+            return next;
+        };
+        try {
+            Token rest = new TreeDriver(source, node).run(node.getSymbol());
+            return next != null ? rest == next : !it.hasNext() && rest.getTypeId() == table.getEndMarker();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static Supplier<Token> tokensOf(List<Token> tokens) {
+        Iterator<Token> it = tokens.iterator();
+        return () -> it.hasNext() ? it.next() : null;
+    }
+
+    /**
+     * Parsea igual que {@link #parse} pero devuelve directamente el {@link AstNode}: no se crea
+     * ningún {@link Node}, solo se apunta la derivación y al terminar se reconstruye el AST con
+     * {@link AstBuilder}. Los errores sintácticos son los mismos.
+     * @return el programa, sin no terminales auxiliares ni nodos ε
+     */
+    public AstNode.Program parseAst(LexicalAnalyzer lexer) {
+        Derivation derivation = new Derivation();
+        new EventDriver(lexer::getNextToken, derivation).run(AXIOMA);
+        return new AstBuilder(table, derivation).build();
+    }
+
+    /**
+     * Parsea igual que {@link #parse} pero guarda el árbol en un {@link FlatTree}, en arrays de
+     * enteros y en preorden, en lugar de un {@link Node} por nodo.
+     * @return el árbol de parseo completo, nodos ε incluidos
+     */
+    public FlatTree parseFlat(LexicalAnalyzer lexer) {
+        Derivation derivation = new Derivation();
+        new EventDriver(lexer::getNextToken, derivation).run(AXIOMA);
+
+        // Cada producción aplicada añade un nodo por símbolo de su parte derecha
+        int nodes = 1;
+        for (int p = 0; p < derivation.getProductionCount(); p++) {
+            nodes += table.getProduction(derivation.getProduction(p)).length;
+        }
+        FlatTree tree = new FlatTree(table, nodes);
+
+        // Se repite la derivación con una pila de (símbolo, padre): los nodos salen en preorden
+        int[] symbolStack = new int[64];
+        int[] parentStack = new int[64];
+        int top = 0;
+        symbolStack[top] = table.getSymbolId(AXIOMA);
+        parentStack[top] = FlatTree.NONE;
+        top++;
+        int nextProduction = 0;
+        int nextToken = 0;
+        while (top > 0) {
+            top--;
+            int symbol = symbolStack[top];
+            int node = tree.add(parentStack[top], symbol);
+            if (symbol == table.getEpsilon()) continue;
+            if (table.isTerminal(symbol)) {
+                tree.setToken(node, derivation.getToken(nextToken++));
+                continue;
+            }
+            int index = derivation.getProduction(nextProduction++);
+            int[] production = table.getProduction(index);
+            NodeKind kind = table.getProductionKind(index);
+            if (kind != null) {
+                int target = node;
+                while (target != FlatTree.NONE && tree.getSymbolId(target) != table.getProductionKindTarget(index)) {
+                    target = tree.getParent(target);
                 }
+                if (target != FlatTree.NONE) tree.setKind(target, kind);
+            }
+            if (top + production.length > symbolStack.length) {
+                symbolStack = Arrays.copyOf(symbolStack, Math.max(symbolStack.length * 2, top + production.length));
+                parentStack = Arrays.copyOf(parentStack, symbolStack.length);
+            }
+            for (int i = 0; i < production.length; i++) {
+                symbolStack[top + production.length - 1 - i] = production[i];
+                parentStack[top + i] = node;
+            }
+            top += production.length;
+        }
+        tree.close();
+        return tree;
+    }
+
+    /**
+     * Parsea sin construir ningún árbol: solo avisa a {@code listener} de cada no terminal que
+     * se expande o se termina y de cada token reconocido. Con el lexer en modo streaming la
+     * memoria no depende del tamaño del fichero, solo de la profundidad del anidamiento.
+     */
+    public void parse(LexicalAnalyzer lexer, ParseListener listener) {
+        new EventDriver(lexer::getNextToken, listener).run(AXIOMA);
+    }
+
+    /**
+     * Construye el árbol de parseo: un {@link Node} por símbolo, colgado de la raíz que se le pasa.
+     * Los errores lanzan excepción. Si hay {@link PrattParser}, sus no terminales no se expanden con
+     * la tabla: se le pasan enteros y se sigue con el lookahead que devuelve.
+     */
+    private class TreeDriver extends LL1Driver {
+        private final Node root;
+        protected Node[] nodes = new Node[64];
+
+        TreeDriver(Supplier<Token> source, Node root) {
+            super(ParserAnalyzer.this, ParserAnalyzer.this.table, source);
+            this.root = root;
+        }
+
+        @Override
+        protected void started(int slot) {
+            nodes[slot] = root;
+        }
+
+        @Override
+        protected void grow(int length) {
+            nodes = Arrays.copyOf(nodes, length);
+        }
+
+        /** Saca el nodo de {@code slot}, que ya no hace falta en la pila. */
+        protected final Node take(int slot) {
+            Node node = nodes[slot];
+            nodes[slot] = null;
+            return node;
+        }
+
+        @Override
+        protected void skipped(int slot) {
+            nodes[slot] = null;
+        }
+
+        @Override
+        protected void matched(int slot, int terminal, Token token) {
+            take(slot).setToken(token);
+        }
+
+        @Override
+        protected void expand(int slot, int nonTerminal, int index) {
+            Node cur = take(slot);
+            int[] production = table.getProduction(index);
+            int base = pushProduction(production);
+            for (int i = 0; i < production.length; i++) {
+                Node child = newNode(production[i]);
+                cur.addChild(child);
+                nodes[base + production.length - 1 - i] = child;
+            }
+            NodeKind kind = table.getProductionKind(index);
+            if (kind != null) tag(cur, table.getSymbolName(table.getProductionKindTarget(index)), kind);
+        }
+
+        protected Node newNode(int symbol) {
+            return new Node(table.getSymbolName(symbol));
+        }
+
+        @Override
+        protected boolean parseApart(int slot, int nonTerminal) {
+            if (pratt == null || !pratt.handles(nonTerminal)) return false;
+            look = pratt.parse(nonTerminal, take(slot), look, reader);
+            lookId = symbolOf(look);
+            return true;
+        }
+    }
+
+    /**
+     * Como {@link TreeDriver}, pero cada {@link #LAZY_SYMBOL} se crea como {@link LazyBodyNode} y, en
+     * vez de expandirlo, sus tokens se guardan hasta el {@code jejej} que lo cierra. Todos los
+     * cuerpos comparten la misma lista de tokens.
+     */
+    private final class LazyTreeDriver extends TreeDriver {
+        private final int lazySymbol = table.getSymbolId(LAZY_SYMBOL);
+        private final int openBody   = table.getSymbolId(OPEN_BODY);
+        private final int closeBody  = table.getSymbolId(CLOSE_BODY);
+        private final List<Token> tokens = new ArrayList<>();
+
+        LazyTreeDriver(Supplier<Token> source, Node root) {
+            super(source, root);
+        }
+
+        @Override
+        protected Node newNode(int symbol) {
+            return symbol == lazySymbol ? new LazyBodyNode(ParserAnalyzer.this, table.getSymbolName(symbol)) : super.newNode(symbol);
+        }
+
+        @Override
+        protected boolean parseApart(int slot, int nonTerminal) {
+            if (nonTerminal != lazySymbol) return super.parseApart(slot, nonTerminal);
+            // Cuerpo de función: guardar sus tokens hasta el jejej de su nivel, sin parsearlos
+            int from = tokens.size();
+            int depth = 0;
+            while (lookId != endMarker && (lookId != closeBody || depth > 0)) {
+                if (lookId == openBody) depth++;
+                else if (lookId == closeBody) depth--;
+                tokens.add(look);
+                advance();
+            }
+            tokens.add(look);
+            ((LazyBodyNode) take(slot)).setTokens(tokens, from, tokens.size());
+            return true;
+        }
+    }
+
+    /**
+     * Modo pánico de {@link #parse(LexicalAnalyzer, Diagnostics)}: los errores léxicos y sintácticos
+     * se apuntan en {@code diagnostics} en vez de lanzarse. Las expresiones se expanden siempre con
+     * la tabla, aunque haya {@link PrattParser}: él no sabe recuperarse de un error.
+     */
+    private final class RecoveryDriver extends TreeDriver {
+        private final LexicalAnalyzer lexer;
+        private final Diagnostics diagnostics;
+        private final int lineDelimiter = table.getSymbolId(LINE_DELIMITER);
+        // Tokens que aún hay que reconocer antes de volver a informar de un error
+        private int quiet;
+
+        RecoveryDriver(LexicalAnalyzer lexer, Node root, Diagnostics diagnostics) {
+            super(lexer::getNextToken, root);
+            this.lexer = lexer;
+            this.diagnostics = diagnostics;
+        }
 
-                // 8) Crear nodos hijos y anexarlos
-                List<Node> children = new ArrayList<>();
-                for (String sym : production) {
-                    Node child = new Node(sym);
-                    children.add(child);
-                    cur.addChild(child);
+        @Override
+        protected Token read() {
+            while (!diagnostics.isFull()) {
+                try {
+                    return super.read();
+                } catch (RuntimeException e) {
+                    // El carácter descartado suele dejar un token fuera de sitio: que no cuente como otro error
+                    diagnostics.add(Diagnostics.Phase.SYNTAX, lexer.getLineNumber(), e.getMessage());
+                    quiet = RECOVERY_QUIET_TOKENS;
                 }
+            }
+            return null;
+        }
+
+        @Override
+        protected void matched(int slot, int terminal, Token token) {
+            super.matched(slot, terminal, token);
+            if (quiet > 0) quiet--;
+        }
+
+        @Override
+        protected boolean parseApart(int slot, int nonTerminal) {
+            return false;
+        }
+
+        /** Apunta el error, salvo si aún no se han reconocido tokens desde el anterior. */
+        private boolean report(String message) {
+            if (quiet == 0) diagnostics.add(Diagnostics.Phase.SYNTAX, look.getLine(), message);
+            quiet = RECOVERY_QUIET_TOKENS;
+            return !diagnostics.isFull();
+        }
+
+        @Override
+        protected boolean unexpectedTerminal(int slot, int terminal) {
+            // Se da el terminal por insertado y se sigue con el mismo lookahead
+            if (!report(expectedMessage(terminal))) return false;
+            take(slot).setIncomplete(true);
+            return true;
+        }
 
-                // 9) Apilar en orden inverso
-                for (int i = production.size() - 1; i >= 0; i--) {
-                    symbolStack.push(production.get(i));
-                    nodeStack.push(children.get(i));
+        @Override
+        protected boolean noProduction(int slot, int nonTerminal) {
+            if (!report(unsupportedMessage())) return false;
+
+            // Descartar tokens hasta poder seguir
+            while (true) {
+                if (lookId >= 0 && lookId <= endMarker && table.predict(nonTerminal, lookId) != LL1Table.NO_PRODUCTION) {
+                    // El no terminal puede empezar aquí: se vuelve a expandir
+                    top++;
+                    return true;
+                }
+                if (lookId >= 0 && follow[nonTerminal] != null && follow[nonTerminal].get(lookId)) {
+                    // Lo que sigue ya es del padre: se deja el no terminal vacío
+                    take(slot).setIncomplete(true);
+                    return true;
+                }
+                if (lookId == lineDelimiter || lookId == endMarker) {
+                    // Desapilar hasta el símbolo que acepte el xd o el fin de fichero
+                    int keep = slot - 1;
+                    while (keep > 0 && !accepts(symbols[keep], lookId)) keep--;
+                    if (keep > 0 || lookId == endMarker) {
+                        take(slot).setIncomplete(true);
+                        for (int i = keep + 1; i < slot; i++) {
+                            if (nodes[i] != null) nodes[i].setIncomplete(true);
+                            nodes[i] = null;
+                        }
+                        top = keep + 1;
+                        return true;
+                    }
                 }
+                advance();
             }
         }
-        return root;
     }
 
-    private boolean isTerminal(String sym) {
-        if (EPSILON.equals(sym) || END_MARKER.equals(sym)) return true;
-        return !grammar.getGrammarRules().containsKey(sym);
+    /**
+     * No crea ningún {@link Node}: pasa a {@code listener} cada no terminal que se expande o se
+     * termina y cada token reconocido. Para los eventos de salida, debajo de la parte derecha de cada
+     * producción se apila una marca {@code ~noTerminal}. En las listas recursivas por la derecha
+     * ({@code <UNIT_LIST>}, {@code <BODY'>}) el no terminal se expande justo encima de su propia
+     * marca: en vez de apilar otra se cuenta una salida más, así la pila no crece con la longitud de
+     * la lista. Las expresiones también van por la tabla, para que los eventos sean siempre los de
+     * la gramática.
+     */
+    private final class EventDriver extends LL1Driver {
+        private final ParseListener listener;
+        private int[] exitCount = new int[64];
+
+        EventDriver(Supplier<Token> source, ParseListener listener) {
+            super(ParserAnalyzer.this, ParserAnalyzer.this.table, source);
+            this.listener = listener;
+        }
+
+        @Override
+        protected void grow(int length) {
+            exitCount = Arrays.copyOf(exitCount, length);
+        }
+
+        @Override
+        protected void matched(int slot, int terminal, Token token) {
+            listener.token(terminal, token);
+        }
+
+        @Override
+        protected void expand(int slot, int nonTerminal, int index) {
+            listener.enterNonTerminal(nonTerminal, index);
+            if (top > 0 && symbols[top - 1] == ~nonTerminal) {
+                exitCount[top - 1]++;
+            } else {
+                exitCount[push(~nonTerminal)] = 1;
+            }
+            pushProduction(table.getProduction(index));
+        }
+
+        @Override
+        protected void exited(int slot, int nonTerminal) {
+            for (int i = exitCount[slot]; i > 0; i--) listener.exitNonTerminal(nonTerminal);
+        }
+    }
+
+    /**
+     * Aplica la acción de una producción: marca el nodo del no terminal o, si la acción apunta a
+     * otro símbolo, el ancestro más cercano con ese símbolo (por ejemplo, el {@code <UNIT>} de una
+     * función se reconoce al expandir su {@code <DECL_OR_FUNC_TAIL>}).
+     */
+    private static void tag(Node node, String target, NodeKind kind) {
+        while (node != null && !target.equals(node.getSymbol())) node = node.getParent();
+        if (node != null) node.setKind(kind);
+    }
+
+    /** Si {@code symbol}, en la pila, puede consumir el terminal {@code terminal} como siguiente token. */
+    private boolean accepts(int symbol, int terminal) {
+        if (symbol == terminal) return true;
+        return symbol >= 0 && !table.isTerminal(symbol) && table.predict(symbol, terminal) != LL1Table.NO_PRODUCTION;
+    }
+
+    Token nextToken(Supplier<Token> source) {
+        Token token = source.get();
+        return token != null ? token : new Token(table.getEndMarker(), END_MARKER, END_MARKER, -1, -1);
+    }
+
+    /**
+     * Columna de la tabla para un token. Los tokens del lexer ya traen el id del diccionario,
+     * que coincide con el de la tabla; solo los creados a mano se buscan por nombre.
+     */
+    int symbolOf(Token token) {
+        int id = token.getTypeId();
+        if (id >= 0 && id <= table.getEndMarker() && table.getSymbolName(id).equals(token.getType())) return id;
+        return table.getSymbolId(token.getType());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,286 @@
+package ParserAnalyzer;
+
+import entities.Dictionary;
+import entities.Grammar;
+import entities.LL1Table;
+import entities.NodeKind;
+import entities.ParserTableBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Genera un parser descendente recursivo especializado para la gramática, a partir de la misma
+ * tabla LL(1) que interpreta {@link ParserAnalyzer}.
+ * <p>
+ * El código generado tiene un método por no terminal que hace {@code switch} sobre el id entero
+ * del token de lookahead, y construye exactamente el mismo árbol que el parser de tabla (nodos ε
+ * incluidos), con los mismos errores. Cuando el último símbolo de una producción es el propio no
+ * terminal (listas como {@code <UNIT_LIST>} o {@code <BODY'>}) la llamada se convierte en un
+ * bucle, así la profundidad de la pila no crece con la longitud del programa.
+ * <p>
+ * Uso: {@code java ParserAnalyzer.ParserGenerator [diccionari.json] [grammar.json] [salida.java]}
+ */
+public class ParserGenerator {
+    private static final String CLASS_NAME = "GeneratedParser";
+    private static final String DEFAULT_OUTPUT = "src/ParserAnalyzer/" + CLASS_NAME + ".java";
+    private static final String AXIOMA = "<AXIOMA>";
+
+    private final Dictionary dictionary;
+    private final LL1Table table;
+    private final String grammarPath;
+    private final Map<Integer, String> methodNames = new HashMap<>();
+    private final Map<Integer, String> terminalNames = new HashMap<>();
+
+    public ParserGenerator(Dictionary dictionary, ParserTableBuilder builder, String grammarPath) {
+        this.dictionary = dictionary;
+        this.table = builder.getIntTable();
+        this.grammarPath = grammarPath;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String dictionaryPath = args.length > 0 ? args[0] : "resources/diccionari.json";
+        String grammarPath = args.length > 1 ? args[1] : "resources/grammar.json";
+        Path output = Paths.get(args.length > 2 ? args[2] : DEFAULT_OUTPUT);
+
+        Dictionary dictionary = new Dictionary(dictionaryPath);
+        ParserTableBuilder builder = new ParserTableBuilder(dictionary, new Grammar(grammarPath));
+        builder.buildParsingTable();
+
+        Files.writeString(output, new ParserGenerator(dictionary, builder, grammarPath).generate(), StandardCharsets.UTF_8);
+        System.out.println("Parser generado en " + output);
+    }
+
+    /**
+     * @return el código fuente de la clase generada
+     */
+    public String generate() {
+        assignNames();
+        StringBuilder out = new StringBuilder();
+
+        out.append("// Generado por ParserGenerator a partir de ").append(grammarPath).append(". No editar a mano.\n");
+        out.append("package ParserAnalyzer;\n\n");
+        out.append("import LexicalAnalyzer.LexicalAnalyzer;\n");
+        out.append("import entities.Dictionary;\n");
+        out.append("import entities.Node;\n");
+        out.append("import entities.NodeKind;\n");
+        out.append("import entities.Token;\n\n");
+        out.append("import java.util.List;\n\n");
+
+        out.append("/**\n");
+        out.append(" * Parser descendente recursivo generado: un método por no terminal con un switch sobre el id\n");
+        out.append(" * del token. Construye el mismo árbol que {@link ParserAnalyzer}.\n");
+        out.append(" */\n");
+        out.append("public class ").append(CLASS_NAME).append(" {\n");
+
+        // Tipos de token por id, para comprobar que el diccionario es el mismo que al generar
+        out.append("    private static final List<String> TOKEN_TYPES = List.of(\n");
+        List<String> types = dictionary.getTokenTypes();
+        for (int i = 0; i < types.size(); i++) {
+            out.append("            ").append(quote(types.get(i))).append(i + 1 < types.size() ? ",\n" : "\n");
+        }
+        out.append("    );\n\n");
+
+        for (int t = 0; t < types.size(); t++) {
+            out.append("    private static final int ").append(terminalNames.get(t)).append(" = ").append(t).append(";\n");
+        }
+        out.append("    private static final int END_MARKER = ").append(table.getEndMarker()).append(";\n");
+        out.append("    private static final int UNKNOWN = -2;            // lookahead de un tipo que el diccionario no tiene\n");
+        out.append("    private static final int NOT_IN_DICTIONARY = -3;  // terminal de la gramática que el lexer no produce\n\n");
+
+        out.append("    private LexicalAnalyzer lexer;\n");
+        out.append("    private Token look;\n");
+        out.append("    private int lookId;\n\n");
+
+        out.append("    public ").append(CLASS_NAME).append("(Dictionary dictionary) {\n");
+        out.append("        if (!TOKEN_TYPES.equals(dictionary.getTokenTypes())) {\n");
+        out.append("            throw new IllegalStateException(\"El diccionario no es el del parser generado: vuelve a ejecutar ParserGenerator\");\n");
+        out.append("        }\n");
+        out.append("    }\n\n");
+
+        out.append("    /**\n");
+        out.append("     * Parsea pidiendo los tokens al lexer uno a uno, igual que {@link ParserAnalyzer#parse}.\n");
+        out.append("     * @return la raíz del árbol de parseo\n");
+        out.append("     */\n");
+        out.append("    public Node parse(LexicalAnalyzer lexer) {\n");
+        out.append("        this.lexer = lexer;\n");
+        out.append("        advance();\n");
+        out.append("        Node root = new Node(").append(quote(AXIOMA)).append(");\n");
+        out.append("        ").append(methodNames.get(table.getSymbolId(AXIOMA))).append("(root);\n");
+        out.append("        this.lexer = null;\n");
+        out.append("        return root;\n");
+        out.append("    }\n");
+
+        List<Integer> nonTerminals = new ArrayList<>(methodNames.keySet());
+        Collections.sort(nonTerminals);
+        for (int nt : nonTerminals) {
+            generateMethod(out, nt);
+        }
+
+        out.append("\n");
+        out.append("    private static Node child(Node parent, String symbol) {\n");
+        out.append("        Node child = new Node(symbol);\n");
+        out.append("        parent.addChild(child);\n");
+        out.append("        return child;\n");
+        out.append("    }\n\n");
+
+        out.append("    private static void tag(Node node, String target, NodeKind kind) {\n");
+        out.append("        while (node != null && !target.equals(node.getSymbol())) node = node.getParent();\n");
+        out.append("        if (node != null) node.setKind(kind);\n");
+        out.append("    }\n\n");
+
+        out.append("    private void match(Node node, int expected, String name) {\n");
+        out.append("        if (lookId != expected) {\n");
+        out.append("            throw new RuntimeException(\n");
+        out.append("                    String.format(\"Error sintáctico: esperaba %s pero llegó %s en línea %d,col %d\",\n");
+        out.append("                            name, look.getType(), look.getLine(), look.getColumn())\n");
+        out.append("            );\n");
+        out.append("        }\n");
+        out.append("        node.setToken(look);\n");
+        out.append("        advance();\n");
+        out.append("    }\n\n");
+
+        out.append("    private RuntimeException noProduction() {\n");
+        out.append("        return new RuntimeException(\n");
+        out.append("                String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE), look.getLine(), look.getLexeme())\n");
+        out.append("        );\n");
+        out.append("    }\n\n");
+
+        out.append("    private void advance() {\n");
+        out.append("        Token token = lexer.getNextToken();\n");
+        out.append("        look = token != null ? token : new Token(END_MARKER, \"$\", \"$\", -1, -1);\n");
+        out.append("        int id = look.getTypeId();\n");
+        out.append("        if (id >= 0 && id <= END_MARKER && (id == END_MARKER ? \"$\" : TOKEN_TYPES.get(id)).equals(look.getType())) {\n");
+        out.append("            lookId = id;\n");
+        out.append("        } else {\n");
+        out.append("            id = TOKEN_TYPES.indexOf(look.getType());\n");
+        out.append("            lookId = id >= 0 ? id : \"$\".equals(look.getType()) ? END_MARKER : UNKNOWN;\n");
+        out.append("        }\n");
+        out.append("    }\n");
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private void generateMethod(StringBuilder out, int nt) {
+        String name = table.getSymbolName(nt);
+
+        // Producciones de este no terminal y los terminales que llevan a cada una
+        Map<Integer, List<Integer>> casesByProduction = new TreeMap<>();
+        for (int t = 0; t <= table.getEndMarker(); t++) {
+            int p = table.predict(nt, t);
+            if (p != LL1Table.NO_PRODUCTION) casesByProduction.computeIfAbsent(p, k -> new ArrayList<>()).add(t);
+        }
+        boolean loops = casesByProduction.keySet().stream().anyMatch(p -> endsWith(p, nt));
+
+        out.append("\n");
+        out.append("    // ").append(name).append("\n");
+        out.append("    private void ").append(methodNames.get(nt)).append("(Node node) {\n");
+        String indent = "        ";
+        if (loops) {
+            out.append("        while (true) {\n");
+            indent = "            ";
+        }
+        out.append(indent).append("switch (lookId) {\n");
+
+        for (Map.Entry<Integer, List<Integer>> entry : casesByProduction.entrySet()) {
+            int[] production = table.getProduction(entry.getKey());
+            for (int t : entry.getValue()) {
+                out.append(indent).append("    case ").append(terminalConstant(t)).append(":\n");
+            }
+            out.append(indent).append("    {\n");
+            String body = indent + "        ";
+            out.append(body).append("// ").append(name).append(" ->");
+            for (int symbol : production) out.append(' ').append(table.getSymbolName(symbol));
+            out.append("\n");
+
+            for (int i = 0; i < production.length; i++) {
+                out.append(body).append("Node c").append(i).append(" = child(node, ")
+                        .append(quote(table.getSymbolName(production[i]))).append(");\n");
+            }
+            NodeKind kind = table.getProductionKind(entry.getKey());
+            if (kind != null && table.getProductionKindTarget(entry.getKey()) == nt) {
+                out.append(body).append("node.setKind(NodeKind.").append(kind.name()).append(");\n");
+            } else if (kind != null) {
+                out.append(body).append("tag(node, ").append(quote(table.getSymbolName(table.getProductionKindTarget(entry.getKey()))))
+                        .append(", NodeKind.").append(kind.name()).append(");\n");
+            }
+            boolean tailLoop = false;
+            for (int i = 0; i < production.length; i++) {
+                int symbol = production[i];
+                if (symbol == table.getEpsilon()) continue;
+                if (table.isTerminal(symbol)) {
+                    out.append(body).append("match(c").append(i).append(", ").append(terminalConstant(symbol))
+                            .append(", ").append(quote(table.getSymbolName(symbol))).append(");\n");
+                } else if (i == production.length - 1 && symbol == nt) {
+                    out.append(body).append("node = c").append(i).append(";\n");
+                    tailLoop = true;
+                } else {
+                    out.append(body).append(methodNames.get(symbol)).append("(c").append(i).append(");\n");
+                }
+            }
+            out.append(body).append(tailLoop ? "continue;\n" : "return;\n");
+            out.append(indent).append("    }\n");
+        }
+
+        out.append(indent).append("    default:\n");
+        out.append(indent).append("        throw noProduction();\n");
+        out.append(indent).append("}\n");
+        if (loops) out.append("        }\n");
+        out.append("    }\n");
+    }
+
+    private boolean endsWith(int production, int nt) {
+        int[] symbols = table.getProduction(production);
+        return symbols.length > 0 && symbols[symbols.length - 1] == nt;
+    }
+
+    private void assignNames() {
+        Set<String> used = new HashSet<>();
+        for (int s = 0; s < table.getSymbolCount(); s++) {
+            if (table.isTerminal(s)) {
+                if (s < table.getEndMarker()) {
+                    String name = table.getSymbolName(s);
+                    boolean valid = name.matches("[A-Z][A-Z0-9_]*")
+                            && !Set.of("TOKEN_TYPES", "END_MARKER", "UNKNOWN", "NOT_IN_DICTIONARY").contains(name);
+                    terminalNames.put(s, valid ? name : "T" + s);
+                }
+                continue;
+            }
+            String base = "parse" + camelCase(table.getSymbolName(s));
+            String method = base;
+            for (int n = 2; !used.add(method); n++) method = base + n;
+            methodNames.put(s, method);
+        }
+    }
+
+    private String terminalConstant(int symbol) {
+        if (symbol == table.getEndMarker()) return "END_MARKER";
+        return terminalNames.getOrDefault(symbol, "NOT_IN_DICTIONARY");
+    }
+
+    /** {@code <DECL_OR_FUNC_TAIL>} -> {@code DeclOrFuncTail}, {@code <VALOR'>} -> {@code ValorPrime}. */
+    private static String camelCase(String nonTerminal) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = true;
+        for (char c : nonTerminal.toCharArray()) {
+            if (c == '\'') {
+                name.append("Prime");
+                upper = true;
+            } else if (Character.isLetterOrDigit(c)) {
+                name.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                upper = false;
+            } else {
+                upper = true;
+            }
+        }
+        return name.toString();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,170 @@
+package ParserAnalyzer;
+
+import entities.LL1Table;
+import entities.Node;
+import entities.NodeKind;
+import entities.PrecedenceTable;
+import entities.Token;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Parser por precedencias (precedence climbing) para los no terminales de la
+ * {@link PrecedenceTable}. El bucle LL(1) le pasa el no terminal en cuanto lo tiene en la cima:
+ * en vez de la cadena {@code <EXPRESSIO> <TERME> <TERME'> <FACTOR> ...} de la gramática, cuelga
+ * del nodo un único hijo, un operando o un nodo {@code <BINARY>} (tipo {@link NodeKind#BINARY})
+ * con los hijos {@code [izquierda, operador, derecha]}. Los paréntesis no dejan nodo.
+ * <p>
+ * Acepta las mismas frases que la gramática, y los errores salen en el mismo token y con el
+ * mismo mensaje: si la tabla no tiene operandos u operadores de más, el lenguaje es el mismo; lo
+ * que no es operador tiene que estar en el FOLLOW del no terminal, igual que para las
+ * producciones ε del LL(1).
+ * <p>
+ * No guarda estado del parseo, así que lo pueden usar varios hilos a la vez (parseParallel).
+ */
+class PrattParser {
+    static final String BINARY = "<BINARY>";
+
+    /** Un no terminal de la tabla, con los símbolos ya pasados a ids de la {@link LL1Table}. */
+    private record Context(BitSet operands, int open, int close, int[] precedence,
+                           PrecedenceTable.Assoc[] assoc, BitSet follow) {}
+
+    private final ParserAnalyzer parser;
+    private final LL1Table table;
+    // Contexto de cada no terminal por id; null si lo parsea el LL(1)
+    private final Context[] contexts;
+
+    PrattParser(ParserAnalyzer parser, LL1Table table, PrecedenceTable precedences, BitSet[] follow) {
+        this.parser = parser;
+        this.table = table;
+        this.contexts = new Context[table.getSymbolCount()];
+        int terminals = table.getEndMarker() + 1;
+
+        for (Map.Entry<String, PrecedenceTable.Context> entry : precedences.getContexts().entrySet()) {
+            int nonTerminal = table.getSymbolId(entry.getKey());
+            if (nonTerminal < 0 || table.isTerminal(nonTerminal)) {
+                throw new RuntimeException("Tabla de precedencias: no es un no terminal de la gramática: " + entry.getKey());
+            }
+            PrecedenceTable.Context context = entry.getValue();
+
+            BitSet operands = new BitSet(terminals);
+            for (String operand : context.operands()) operands.set(terminal(operand));
+
+            int[] precedence = new int[terminals];
+            PrecedenceTable.Assoc[] assoc = new PrecedenceTable.Assoc[terminals];
+            for (Map.Entry<String, PrecedenceTable.Operator> op : context.operators().entrySet()) {
+                int id = terminal(op.getKey());
+                precedence[id] = op.getValue().precedence();
+                assoc[id] = op.getValue().assoc();
+            }
+
+            int open = context.open() != null ? terminal(context.open()) : -1;
+            int close = context.close() != null ? terminal(context.close()) : -1;
+            contexts[nonTerminal] = new Context(operands, open, close, precedence, assoc, follow[nonTerminal]);
+        }
+    }
+
+    private int terminal(String name) {
+        int id = table.getSymbolId(name);
+        if (id < 0 || id >= table.getEndMarker()) {
+            throw new RuntimeException("Tabla de precedencias: no es un terminal de la gramática: " + name);
+        }
+        return id;
+    }
+
+    /** Si el no terminal {@code symbol} se parsea aquí en vez de con la tabla LL(1). */
+    boolean handles(int symbol) {
+        return contexts[symbol] != null;
+    }
+
+    /**
+     * Parsea una expresión del no terminal {@code symbol} empezando en {@code look} y cuelga el
+     * resultado de {@code node}.
+     * @return el lookahead que queda, el primer token que ya no es de la expresión
+     */
+    Token parse(int symbol, Node node, Token look, Supplier<Token> source) {
+        Cursor cursor = new Cursor(contexts[symbol], look, source);
+        node.addChild(cursor.expression(1));
+        cursor.checkFollow();
+        return cursor.look;
+    }
+
+    /** Estado de un parseo: el lookahead y de dónde salen los siguientes tokens. */
+    private final class Cursor {
+        private final Context context;
+        private final Supplier<Token> source;
+        private Token look;
+        private int lookId;
+
+        Cursor(Context context, Token look, Supplier<Token> source) {
+            this.context = context;
+            this.source = source;
+            this.look = look;
+            this.lookId = parser.symbolOf(look);
+        }
+
+        private void advance() {
+            look = parser.nextToken(source);
+            lookId = parser.symbolOf(look);
+        }
+
+        /** Precedencia del lookahead como operador binario, o 0 si no lo es. */
+        private int precedence() {
+            return lookId >= 0 && lookId < context.precedence().length ? context.precedence()[lookId] : 0;
+        }
+
+        /** Operandos unidos por operadores de precedencia {@code minPrecedence} o mayor. */
+        Node expression(int minPrecedence) {
+            Node left = operand();
+            int last = 0;  // precedencia del operador anterior si no es asociativo (a < b < c)
+            for (int p = precedence(); p >= minPrecedence; p = precedence()) {
+                PrecedenceTable.Assoc assoc = context.assoc()[lookId];
+                if (assoc == PrecedenceTable.Assoc.NONE && p == last) throw syntaxError();
+                last = assoc == PrecedenceTable.Assoc.NONE ? p : 0;
+                Node operator = new Node(look);
+                advance();
+                Node right = expression(assoc == PrecedenceTable.Assoc.RIGHT ? p : p + 1);
+
+                Node binary = new Node(BINARY);
+                binary.setKind(NodeKind.BINARY);
+                binary.addChild(left);
+                binary.addChild(operator);
+                binary.addChild(right);
+                left = binary;
+            }
+            return left;
+        }
+
+        private Node operand() {
+            if (lookId >= 0 && context.operands().get(lookId)) {
+                Node leaf = new Node(look);
+                advance();
+                return leaf;
+            }
+            if (lookId >= 0 && lookId == context.open()) {
+                advance();
+                Node inner = expression(1);
+                checkFollow();
+                if (lookId != context.close()) {
+                    throw new RuntimeException(String.format("Error sintáctico: esperaba %s pero llegó %s en línea %d,col %d",
+                            table.getSymbolName(context.close()), look.getType(), look.getLine(), look.getColumn()));
+                }
+                advance();
+                return inner;
+            }
+            throw syntaxError();
+        }
+
+        /** Lo que sigue a una expresión tiene que poder ir detrás del no terminal. */
+        void checkFollow() {
+            if (lookId < 0 || context.follow() == null || !context.follow().get(lookId)) throw syntaxError();
+        }
+
+        private RuntimeException syntaxError() {
+            return new RuntimeException(String.format(String.valueOf(GramaticalErrorType.GRAMATICAL_ERROR_TYPE),
+                    look.getLine(), look.getLexeme()));
+        }
+    }
+}
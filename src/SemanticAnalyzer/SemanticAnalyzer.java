@@ -1,58 +1,339 @@
 
 package SemanticAnalyzer;
 
+import entities.Diagnostics;
 import entities.Node;
+import entities.NodeKind;
 import entities.SymbolTable;
 import entities.Token;
+import entities.Types;
 import entities.Symbol;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SemanticAnalyzer {
     private final Node root;
     private final SymbolTable symbolTable;
     private final Deque<Integer> scopeStack = new ArrayDeque<>();
-    private int nextScopeId = 1;
     private boolean insideFunction = false;
     private boolean mainDeclared = false;
-    private String currentFunctionReturnType = null;
+    private int currentFunctionReturnType = Types.UNTYPED;
+    // Modo recuperación: los errores se apuntan aquí en vez de lanzarse
+    private Diagnostics diagnostics;
+    private boolean skippedUnits = false;
+    // Símbolos sin declarar encontrados al tipar expresiones, para no tipar las que los contienen
+    private int undeclared = 0;
+    // Recorrido pendiente: nodos por visitar y acciones para cuando se hayan visitado los de encima
+    private final Deque<Object> work = new ArrayDeque<>();
+
+    // Primera fase de analyzeParallel: los cuerpos que quedan para después y, en modo recuperación,
+    // los errores de antes de cada uno (uno más que cuerpos)
+    private List<FunctionBody> bodies;
+    private List<Diagnostics> segments;
+    // Segunda fase: el ámbito global ya cerrado y el nombre de la función que se comprueba; de
+    // los globales solo se ven los declarados antes de él
+    private final SymbolTable globals;
+    private final Token visibleUntil;
+
+    // Cada análisis tiene su número: los tipos que un análisis anterior dejó en el árbol, quizá
+    // con otras declaraciones, no valen para este, y así no hace falta recorrer el árbol para
+    // borrarlos (lo que obligaría a parsear antes de tiempo los cuerpos perezosos)
+    private static final AtomicInteger EPOCHS = new AtomicInteger();
+    private int epoch;
 
     public SemanticAnalyzer(Node root, SymbolTable symbolTable) {
+        this(root, symbolTable, null);
+    }
+
+    /**
+     * Con {@code diagnostics} cada error se apunta en la lista y el análisis sigue, hasta que la
+     * lista se llena. Las sentencias y unidades que el parser ha dejado a medias
+     * ({@link Node#isIncomplete()}) no se comprueban: su error sintáctico ya está en la lista.
+     */
+    public SemanticAnalyzer(Node root, SymbolTable symbolTable, Diagnostics diagnostics) {
         this.root = root;
         this.symbolTable = symbolTable;
+        this.diagnostics = diagnostics;
+        this.globals = null;
+        this.visibleUntil = null;
+    }
+
+    /** Comprueba el cuerpo de una función de analyzeParallel con sus propios ámbitos locales. */
+    private SemanticAnalyzer(FunctionBody function, SymbolTable globals, Diagnostics diagnostics, int epoch) {
+        this.root = function.body;
+        this.symbolTable = new SymbolTable();
+        this.diagnostics = diagnostics;
+        this.globals = globals;
+        this.visibleUntil = function.name;
+        this.epoch = epoch;
     }
 
 
     public void analyze() {
-        scopeStack.push(0);
-        traverse(root);
-        if (!mainDeclared) throw new RuntimeException(SemanticErrorType.MISSING_MAIN.toString());
+        epoch = EPOCHS.incrementAndGet();
+        scopeStack.push(SymbolTable.GLOBAL);
+        try {
+            traverse(root);
+        } catch (LimitReached e) {
+            return;
+        }
+        checkMain();
 
         //symbolTable.printTable();
     }
 
+    /**
+     * Analiza en paralelo en el ForkJoinPool común.
+     * @see #analyzeParallel(ForkJoinPool)
+     */
+    public void analyzeParallel() {
+        analyzeParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analiza en dos fases. La primera recorre el programa en secuencial, como {@link #analyze()},
+     * pero sin entrar en los cuerpos de las funciones: deja en la tabla de símbolos las variables
+     * globales y las funciones, y esa tabla ya no cambia. En la segunda se comprueba cada cuerpo en
+     * el pool, con su propia tabla para los ámbitos locales; lo que no está en ella se busca en la
+     * global, entre lo declarado antes de la función.
+     * <p>
+     * Los errores son los mismos y en el mismo orden que con {@link #analyze()}: los de cada cuerpo
+     * se ponen detrás de los de su cabecera, y los de la primera fase se guardan por tramos entre
+     * cuerpo y cuerpo. Sin recuperación se lanza el primero en ese orden. Lo único que la primera
+     * fase no puede saber es si el nombre de una función ya es el de una variable local de una
+     * función anterior; eso se mira al juntar los resultados. Los símbolos locales no quedan en la
+     * tabla de símbolos recibida.
+     */
+    public void analyzeParallel(ForkJoinPool pool) {
+        epoch = EPOCHS.incrementAndGet();
+        Diagnostics target = diagnostics;
+        bodies = new ArrayList<>();
+        segments = target != null ? new ArrayList<>() : null;
+        nextSegment();
+
+        RuntimeException failure = null;
+        scopeStack.push(SymbolTable.GLOBAL);
+        try {
+            traverse(root);
+        } catch (LimitReached e) {
+            // El tramo está lleno: al juntarlo también se llenará la lista
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        List<FunctionBody> functions = bodies;
+        bodies = null;
+        diagnostics = target;
+
+        // Con un solo hilo, repartir los cuerpos en tareas no gana nada
+        if (pool.getParallelism() > 1 && functions.size() > 1) pool.invoke(new BodyTask(functions, 0, functions.size()));
+        else functions.forEach(this::checkFunction);
+
+        try {
+            Set<String> locals = new HashSet<>();
+            for (int i = 0; ; i++) {
+                if (segments != null) copy(segments.get(i));
+                if (i == functions.size()) break;
+
+                FunctionBody function = functions.get(i);
+                String name = function.name.getLexeme();
+                if (!function.redeclared && locals.contains(name)) {
+                    error(function.header, SemanticErrorType.FUNCTION_REDECLARED, name);
+                }
+                if (function.diagnostics != null) copy(function.diagnostics);
+                if (function.failure != null) throw function.failure;
+                for (Symbol local : function.locals) locals.add(local.getName());
+            }
+        } catch (LimitReached e) {
+            return;
+        } finally {
+            segments = null;
+        }
+        if (failure != null) throw failure;
+        checkMain();
+    }
+
+    private void checkMain() {
+        // Si se ha saltado alguna unidad rota, xat podía ser esa
+        if (!mainDeclared && !skippedUnits) {
+            if (diagnostics == null) throw new RuntimeException(SemanticErrorType.MISSING_MAIN.toString());
+            diagnostics.add(Diagnostics.Phase.SEMANTIC, -1, SemanticErrorType.MISSING_MAIN.toString());
+        }
+    }
+
+    /** Empieza el tramo de errores de la primera fase que va detrás del último cuerpo apuntado. */
+    private void nextSegment() {
+        if (segments == null) return;
+        diagnostics = new Diagnostics(diagnostics.getLimit());
+        segments.add(diagnostics);
+    }
+
+    private void copy(Diagnostics from) {
+        for (Diagnostics.Diagnostic d : from.getAll()) {
+            diagnostics.add(d.phase(), d.line(), d.message());
+            if (diagnostics.isFull()) throw new LimitReached();
+        }
+    }
+
+    /** Cuerpo de una función que la primera fase deja para la segunda, y lo que sale de él. */
+    private static final class FunctionBody {
+        final Node header;         // donde se apunta FUNCTION_REDECLARED
+        final Token name;
+        final boolean redeclared;  // la cabecera ya ha dado FUNCTION_REDECLARED
+        final int returnType;
+        final Node body;
+        Diagnostics diagnostics;
+        RuntimeException failure;  // el error sin recuperación, o un fallo inesperado
+        Collection<Symbol> locals = List.of();
+
+        FunctionBody(Node header, Token name, boolean redeclared, int returnType, Node body) {
+            this.header = header;
+            this.name = name;
+            this.redeclared = redeclared;
+            this.returnType = returnType;
+            this.body = body;
+        }
+    }
+
+    /** Comprueba los cuerpos {@code [from, to)}; parte el rango por la mitad mientras tenga más de uno. */
+    private final class BodyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<FunctionBody> functions;
+        private final int from;
+        private final int to;
+
+        BodyTask(List<FunctionBody> functions, int from, int to) {
+            this.functions = functions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BodyTask(functions, from, middle), new BodyTask(functions, middle, to));
+                return;
+            }
+            checkFunction(functions.get(from));
+        }
+    }
+
+    private void checkFunction(FunctionBody function) {
+        Diagnostics found = diagnostics != null ? new Diagnostics(diagnostics.getLimit()) : null;
+        new SemanticAnalyzer(function, symbolTable, found, epoch).analyzeBody(function);
+    }
+
+    private void analyzeBody(FunctionBody function) {
+        scopeStack.push(SymbolTable.GLOBAL);
+        currentFunctionReturnType = function.returnType;
+        insideFunction = true;
+        enterScope();
+        try {
+            traverse(root);
+        } catch (LimitReached e) {
+            // Con la lista llena, lo que falte ya no se mostraría
+        } catch (RuntimeException e) {
+            function.failure = e;
+        }
+        function.diagnostics = diagnostics;
+        function.locals = symbolTable.getAllSymbols();
+    }
+
     private int currentScope() { return scopeStack.peek(); }
-    private void enterScope() { scopeStack.push(nextScopeId++); }
+    private void enterScope() { scopeStack.push(symbolTable.openScope(currentScope())); }
     private void exitScope() { scopeStack.pop(); }
 
-    private Symbol getSymbol(String name) { return symbolTable.getSymbol(name, currentScope()); }
-
-    private void traverse(Node node) {
-        if (node == null) return;
-        String sym = node.getSymbol();
-        if (sym.startsWith("<") && sym.endsWith(">")) sym = sym.substring(1, sym.length() - 1);
-
-        switch (sym) {
-            case "UNIT" -> handleUnit(node);
-            case "DECLARACIO" -> handleDeclaration(node);
-            case "CREA_FUNCIO" -> handleFunction(node);
-            case "CREA_MAIN" -> handleMain(node);
-            case "CONTENT" -> handleContent(node);
-            case "ASSIGNACIO" -> handleAssignment(node);
-            case "XINPUM" -> handleReturn(node);
-            case "CALL_FUNCIO" -> handleFunctionCall(node);
-            default -> node.getChildren().forEach(this::traverse);
+    private Symbol getSymbol(String name) {
+        Symbol symbol = symbolTable.getSymbol(name, currentScope());
+        if (symbol == null && globals != null) {
+            symbol = globals.getSymbol(name, SymbolTable.GLOBAL);
+            // Lo declarado después de la función aún no existía en el análisis secuencial
+            if (symbol != null && (symbol.getLine() > visibleUntil.getLine()
+                    || symbol.getLine() == visibleUntil.getLine() && symbol.getColumn() > visibleUntil.getColumn())) {
+                symbol = null;
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * Recorre el árbol con la pila {@link #work} en vez de con recursión: las listas recursivas por
+     * la derecha de la gramática ({@code <BODY'>}, {@code <UNIT_LIST>}, ...) lo hacen tan profundo
+     * como sentencias tiene el programa. Los handlers apilan los hijos con {@link #later} y lo que
+     * va después de ellos con {@link #then}, en orden inverso.
+     */
+    private void traverse(Node root) {
+        work.clear();
+        later(root);
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+            if (next instanceof Runnable action) action.run();
+            else visit((Node) next);
+        }
+    }
+
+    private void later(Node node) {
+        if (node != null) work.push(node);
+    }
+
+    private void then(Runnable action) {
+        work.push(action);
+    }
+
+    private void visit(Node node) {
+        if (diagnostics != null && isStatement(node) && isBroken(node)) {
+            if ("<UNIT>".equals(node.getSymbol())) skippedUnits = true;
+            declareBroken(node);
+            return;
+        }
+
+        // El tipo lo pone el parser según las marcas "kind" de la gramática
+        switch (node.getKind()) {
+            case MAIN, FUNCTION, GLOBAL_DECLARATION -> handleUnit(node);
+            case DECLARATION -> handleLocalDeclaration(node);
+            case ASSIGNATION -> handleAssignation(node);
+            case ARRAY_ASSIGNATION -> handleArrayAssignment(node);
+            case RETURN -> handleReturnContent(node, node.getChildren().get(0));
+            default -> traverseChildren(node);
+        }
+    }
+
+    private static boolean isStatement(Node node) {
+        return "<UNIT>".equals(node.getSymbol()) || "<CONTENT>".equals(node.getSymbol());
+    }
+
+    /**
+     * Si falta algo en la propia sentencia o cabecera. No se mira dentro de los {@code <BODY>}:
+     * sus sentencias se comprueban una a una.
+     */
+    private boolean isBroken(Node node) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            if (current.isIncomplete()) return true;
+            if (current != node && "<BODY>".equals(current.getSymbol())) continue;
+            current.getChildren().forEach(pending::push);
         }
+        return false;
+    }
+
+    /**
+     * Declaración a medias ({@code num x -> 3 + xd}): si el tipo y el nombre están enteros, se
+     * declara igualmente para no dar después errores de variable no declarada que no lo son.
+     */
+    private void declareBroken(Node node) {
+        List<Node> children = node.getChildren();
+        if (children.size() < 2 || !"<TIPUS>".equals(children.get(0).getSymbol()) || isBroken(children.get(0))) return;
+        Node idNode = children.get(1);
+        if ("<UNIT_TAIL>".equals(idNode.getSymbol()) && !idNode.getChildren().isEmpty()) idNode = idNode.getChildren().get(0);
+        Token id = idNode.getToken();
+        if (id == null || !"ID".equals(id.getType())) return;
+        declare(id.getLexeme(), getTypeFromTipus(children.get(0)), currentScope(), id.getLine(), id.getColumn());
     }
 
     private void handleLocalDeclaration(Node node) {
@@ -68,7 +349,7 @@ public class SemanticAnalyzer {
         }
 
         // 3) añadir con el tipo correcto
-        symbolTable.addSymbol(
+        declare(
                 name,
                 type,
                 currentScope(),
@@ -86,53 +367,29 @@ public class SemanticAnalyzer {
                     // ya tenemos confirmada la asignación
                     // ojo: el expr estará en suffix.getChildren().get(1)
                     Node expr = suffix.getChildren().get(1);
-                    String actual = getExpressionType(expr);
-                    if (!type.equals(actual)) {
-                        error(node, SemanticErrorType.TYPE_MISMATCH_ASSIGN, actual, type);
+                    int actual = typeOf(expr);
+                    if (mismatch(Types.code(type), actual)) {
+                        error(node, SemanticErrorType.TYPE_MISMATCH_ASSIGN, Types.name(actual), type);
                     }
                 }
             }
         }
     }
 
-    private void handleContent(Node node) {
+    /** {@code <ID_CONTENT>} de una asignación; la variable es el {@code ID} de su {@code <CONTENT>}. */
+    private void handleAssignation(Node tail) {
+        Node node = tail.getParent();
         Node first = node.getChildren().get(0);
-        Token tok = first.getToken();
-
-        if (tok == null) {
-            String sym = first.getSymbol().replaceAll("[<>]", "");
-            if ("TIPUS".equals(sym)) {
-                handleLocalDeclaration(node);
-                return;
-            }
-            traverseChildren(node);
-            return;
-        }
-
-        switch (tok.getType()) {
-            case "ID" -> handleIDContent(node, first);
-            case "POS" -> handleArrayAssignment(node);
-            case "RETURN" -> handleReturnContent(node, first);
-            default -> traverseChildren(node);
-        }
-    }
-
-    private void handleIDContent(Node node, Node first) {
-        Node tail = node.getChildren().get(1);
-        Token tailTok = tail.getChildren().get(0).getToken();
         String name = first.getToken().getLexeme();
         Symbol sym = getSymbol(name);
 
-        if (tailTok != null && "EQUAL_ASSIGNATION".equals(tailTok.getType())) {
-            if (sym == null) error(first, SemanticErrorType.VARIABLE_NOT_DECLARED, name);
-            String expected = sym.getType();
-            String actual = getExpressionType(tail.getChildren().get(1));
-            if (!expected.equals(actual)) error(node, SemanticErrorType.TYPE_MISMATCH_ASSIGN, actual, expected);
-        } else if (tailTok != null && "OPEN_PARENTESIS".equals(tailTok.getType())) {
-            handleFunctionCall(node);
-        } else {
-            traverseChildren(node);
+        if (sym == null) {
+            error(first, SemanticErrorType.VARIABLE_NOT_DECLARED, name);
+            return;
         }
+        int expected = sym.getTypeCode();
+        int actual = typeOf(tail.getChildren().get(1));
+        if (mismatch(expected, actual)) error(node, SemanticErrorType.TYPE_MISMATCH_ASSIGN, Types.name(actual), sym.getType());
     }
 
     private void handleArrayAssignment(Node node) {
@@ -141,17 +398,20 @@ public class SemanticAnalyzer {
         String arrName = arrId.getToken().getLexeme();
         Symbol sym = getSymbol(arrName);
 
-        if (sym == null) error(arrId, SemanticErrorType.VARIABLE_NOT_DECLARED, arrName);
+        if (sym == null) {
+            error(arrId, SemanticErrorType.VARIABLE_NOT_DECLARED, arrName);
+            return;
+        }
 
-        String t = sym.getType();
-        if (!t.startsWith("ARRAY")) error(arrId, SemanticErrorType.NOT_AN_ARRAY, arrName);
+        int t = sym.getTypeCode();
+        if (!Types.isArray(t)) error(arrId, SemanticErrorType.NOT_AN_ARRAY, arrName);
 
-        String idxType = getExpressionType(idx);
-        if (!"INT".equals(idxType)) error(idx, SemanticErrorType.ARRAY_INDEX_TYPE, idxType);
+        int idxType = typeOf(idx);
+        if (mismatch(idxType, Types.INT)) error(idx, SemanticErrorType.ARRAY_INDEX_TYPE, Types.name(idxType));
 
-        String base = t.substring(t.indexOf("]") + 1).replace("_VALUE", "");
-        String valType = getExpressionType(node.getChildren().get(5));
-        if (!base.equals(valType)) error(node, SemanticErrorType.ARRAY_ASSIGN_TYPE, valType, base);
+        int base = Types.isArray(t) ? Types.elementOf(t) : t;
+        int valType = typeOf(node.getChildren().get(5));
+        if (mismatch(base, valType)) error(node, SemanticErrorType.ARRAY_ASSIGN_TYPE, Types.name(valType), Types.name(base));
     }
 
     private void handleReturnContent(Node node, Node first) {
@@ -165,48 +425,46 @@ public class SemanticAnalyzer {
             Symbol sym = getSymbol(varName);
             if (sym == null) {
                 error(expr, SemanticErrorType.UNKNOWN_SYMBOL, varName);
+                return;
             }
-            String rt = sym.getType();
-            if (!rt.equals(currentFunctionReturnType)) {
-                error(node, SemanticErrorType.RETURN_TYPE_MISMATCH, currentFunctionReturnType, rt);
+            if (mismatch(sym.getTypeCode(), currentFunctionReturnType)) {
+                error(node, SemanticErrorType.RETURN_TYPE_MISMATCH, returnTypeName(), sym.getType());
             }
         }
         else {
-            String rt = getExpressionType(expr);
-            if (!rt.equals(currentFunctionReturnType)) {
-                error(node, SemanticErrorType.RETURN_TYPE_MISMATCH, currentFunctionReturnType, rt);
+            int rt = typeOf(expr);
+            if (mismatch(rt, currentFunctionReturnType)) {
+                error(node, SemanticErrorType.RETURN_TYPE_MISMATCH, returnTypeName(), Types.name(rt));
             }
         }
     }
 
-    private void traverseChildren(Node node) { node.getChildren().forEach(this::traverse); }
+    private void traverseChildren(Node node) {
+        List<Node> children = node.getChildren();
+        for (int i = children.size() - 1; i >= 0; i--) later(children.get(i));
+    }
 
     private void handleUnit(Node unitNode) {
         Node tipusNode = unitNode.getChildren().get(0);
         Node tail = unitNode.getChildren().get(1);
-        Node first = tail.getChildren().get(0);
 
-        if (first.getToken() != null && "MAIN".equals(first.getToken().getType())) {
-            handleMainUnit(tipusNode, tail);
-        } else {
-            Node declTail = tail.getChildren().get(1);
-            Node declFirst = declTail.getChildren().get(0);
-            if ("EQUAL_ASSIGNATION".equals(declFirst.getToken().getType()))
-                                            handleDeclarationUnit(unitNode, tipusNode, first, declTail);
-            else handleFunctionUnit(tipusNode, first, declTail);
+        switch (unitNode.getKind()) {
+            case MAIN -> handleMainUnit(tipusNode, tail);
+            case GLOBAL_DECLARATION -> handleDeclarationUnit(unitNode, tipusNode, tail.getChildren().get(0), tail.getChildren().get(1));
+            default -> handleFunctionUnit(tipusNode, tail.getChildren().get(0), tail.getChildren().get(1));
         }
     }
 
     private void handleDeclarationUnit(Node unitNode, Node tipusNode, Node idNode, Node declTail) {
         String name      = idNode.getToken().getLexeme();
         String type      = getTypeFromTipus(tipusNode);
-        String valueType = getExpressionType(declTail.getChildren().get(1));
+        int valueType    = typeOf(declTail.getChildren().get(1));
 
-        if (symbolTable.getScopeSymbols(currentScope()).containsKey(name)) {
+        if (symbolTable.isDeclaredIn(name, currentScope())) {
             error(idNode, SemanticErrorType.VARIABLE_REDECLARED, name);
         }
 
-        symbolTable.addSymbol(
+        declare(
                 name,
                 type,
                 currentScope(),
@@ -214,8 +472,8 @@ public class SemanticAnalyzer {
                 idNode.getToken().getColumn()
         );
 
-        if (!type.equals(valueType)) {
-            error(idNode, SemanticErrorType.TYPE_MISMATCH_ASSIGN, valueType, type);
+        if (mismatch(Types.code(type), valueType)) {
+            error(idNode, SemanticErrorType.TYPE_MISMATCH_ASSIGN, Types.name(valueType), type);
         }
     }
 
@@ -224,203 +482,201 @@ public class SemanticAnalyzer {
         String name = idNode.getToken().getLexeme();
         String returnType = getTypeFromTipus(tipusNode);
 
-        currentFunctionReturnType = returnType;
-        insideFunction = true;
-
-        enterScope();
-
-        if (getSymbol(name) != null) error(idNode, SemanticErrorType.FUNCTION_REDECLARED, name);
+        // La función se declara en el ámbito que la contiene, para que la vean las demás; su
+        // nombre no puede estar ya usado en ningún ámbito
+        boolean redeclared = symbolTable.isDeclared(name);
+        if (redeclared) error(idNode, SemanticErrorType.FUNCTION_REDECLARED, name);
 
-        symbolTable.addSymbol(name, returnType, currentScope(),
+        declare(name, returnType, currentScope(),
                                     idNode.getToken().getLine(), idNode.getToken().getColumn());
 
-        traverse(declTail.getChildren().get(1).getChildren().get(0));
-
-        exitScope();
-
-        insideFunction = false;
-        currentFunctionReturnType = null;
+        checkBody(idNode, idNode.getToken(), redeclared, Types.code(returnType),
+                declTail.getChildren().get(1).getChildren().get(0));
     }
 
     private void handleMainUnit(Node tipusNode, Node tail) {
         String name = tail.getChildren().get(0).getToken().getLexeme();
-        currentFunctionReturnType = getTypeFromTipus(tipusNode);
-        insideFunction = true;
+        String returnType = getTypeFromTipus(tipusNode);
         mainDeclared = true;
 
-        enterScope();
+        boolean redeclared = symbolTable.isDeclared(name);
+        if (redeclared) error(tail, SemanticErrorType.FUNCTION_REDECLARED, name);
 
-        if (getSymbol(name) != null) error(tail, SemanticErrorType.FUNCTION_REDECLARED, name);
-
-        symbolTable.addSymbol(name, currentFunctionReturnType, currentScope(),
+        declare(name, returnType, currentScope(),
                 tail.getChildren().get(0).getToken().getLine(), tail.getChildren().get(0).getToken().getColumn());
 
-        traverse(tail.getChildren().get(2));
-
-        exitScope();
-
-        insideFunction = false;
-        currentFunctionReturnType = null;
+        checkBody(tail, tail.getChildren().get(0).getToken(), redeclared, Types.code(returnType),
+                tail.getChildren().get(2));
     }
 
-    private void handleFunction(Node node) {
-        String name = node.getChildren().get(1).getToken().getLexeme();
-        String returnType = node.getChildren().get(0).getSymbol();
+    /** Recorre el cuerpo de una función o, en la primera fase de analyzeParallel, lo deja apuntado. */
+    private void checkBody(Node header, Token name, boolean redeclared, int returnType, Node body) {
+        if (bodies != null) {
+            bodies.add(new FunctionBody(header, name, redeclared, returnType, body));
+            nextSegment();
+            return;
+        }
         currentFunctionReturnType = returnType;
         insideFunction = true;
-
         enterScope();
-
-        symbolTable.addSymbol(name, returnType, currentScope(),
-                node.getChildren().get(1).getToken().getLine(), node.getChildren().get(1).getToken().getColumn());
-
-        node.getChildren().forEach(this::traverse);
-
-        exitScope();
-
-        insideFunction = false;
-        currentFunctionReturnType = null;
+        then(this::leaveFunction);
+        later(body);
     }
 
-    private void handleMain(Node node) {
-        String name = node.getChildren().get(1).getToken().getLexeme();
-        String returnType = node.getChildren().get(0).getSymbol();
-        currentFunctionReturnType = node.getChildren().get(0).getSymbol();
-        insideFunction = true;
-        mainDeclared = true;
-
-        enterScope();
-
-        symbolTable.addSymbol(name, returnType, currentScope(),
-                node.getChildren().get(1).getToken().getLine(), node.getChildren().get(1).getToken().getColumn());
-
-        node.getChildren().forEach(this::traverse);
-
+    /** Al acabar el cuerpo de una función o de xat. */
+    private void leaveFunction() {
         exitScope();
 
         insideFunction = false;
-        currentFunctionReturnType = null;
+        currentFunctionReturnType = Types.UNTYPED;
     }
 
-    private void handleDeclaration(Node node) {
-        Node tipusNode = node.getChildren().get(0);
-        Node idNode = node.getChildren().get(1);
-        String name = idNode.getToken().getLexeme();
-        String type = getTypeFromTipus(tipusNode);
+    /**
+     * Añade el símbolo a la tabla. En modo recuperación, si el nombre ya está en el mismo scope el
+     * error ya se ha apuntado y se queda la primera declaración.
+     */
+    private void declare(String name, String type, int scope, int line, int column) {
+        if (diagnostics != null && symbolTable.isDeclaredIn(name, scope)) return;
+        symbolTable.addSymbol(name, type, scope, line, column);
+    }
 
-        if (symbolTable.getScopeSymbols(currentScope()).containsKey(name)) {
-            error(idNode, SemanticErrorType.VARIABLE_REDECLARED, name);
+    private String getTypeFromTipus(Node tipusNode) {
+        Node first = tipusNode.getChildren().get(0);
+        if ("ARRAY".equals(first.getSymbol())) {
+            String size = tipusNode.getChildren().get(2).getToken().getLexeme();
+            String baseType = tipusNode.getChildren().get(3).getChildren().get(0).getSymbol();
+            return "ARRAY[" + size + "]" + baseType;
+        } else {
+            return first.getChildren().get(0).getSymbol();
         }
-
-
-        symbolTable.addSymbol(name, type, currentScope(), idNode.getToken().getLine(), idNode.getToken().getColumn());
     }
 
-    private void handleAssignment(Node node) {
-        String name = node.getChildren().get(0).getChildren().get(0).getToken().getLexeme();
-        Symbol sym = getSymbol(name);
-        if (sym == null) error(node, SemanticErrorType.VARIABLE_NOT_DECLARED, name);
-
-        String expected = sym.getType();
-        String actual = getExpressionType(node.getChildren().get(1));
-        if (!expected.equals(actual)) error(node, SemanticErrorType.TYPE_MISMATCH_ASSIGN, actual, expected);
+    /** Nombre del tipo de retorno para los mensajes; {@code null} fuera de una función, como antes. */
+    private String returnTypeName() {
+        return currentFunctionReturnType == Types.UNTYPED ? null : Types.name(currentFunctionReturnType);
     }
 
-    private void handleReturn(Node node) {
-        if (!insideFunction)
-            error(node, SemanticErrorType.RETURN_OUTSIDE_FUNCTION);
+    /**
+     * Tipo de una expresión como código de {@link Types}. Se calcula una sola vez por nodo y se
+     * queda en el propio nodo ({@link Node#getTypeCode(int)}), así que volver a pedirlo no repite ni
+     * el recorrido ni los errores.
+     * <p>
+     * Va con una pila de {@link TypeFrame} en vez de recursión: una cadena {@code a + b + c ...}
+     * hace el árbol tan profundo como operandos tiene. Un nodo espera a que estén tipados los hijos
+     * que necesita, en el mismo orden en que los pedía la versión recursiva, así que los errores
+     * salen en el mismo orden.
+     */
+    private int typeOf(Node node) {
+        if (node.getTypeCode(epoch) != Types.UNTYPED) return node.getTypeCode(epoch);
+
+        Deque<TypeFrame> frames = new ArrayDeque<>();
+        frames.push(new TypeFrame(node, undeclared));
+        while (!frames.isEmpty()) {
+            TypeFrame frame = frames.peek();
+            Node current = frame.node;
+            List<Node> children = current.getChildren();
+
+            if (frame.child < 0) {
+                int type = leafType(current);
+                if (type != Types.UNTYPED) {
+                    current.setTypeCode(type, epoch);
+                    frames.pop();
+                    continue;
+                }
+                frame.child = 0;
+            }
 
-        if (node.getChildren().size() > 1) {
-            Node expr = node.getChildren().get(1);
+            if (frame.child < children.size() && children.get(frame.child).getTypeCode(epoch) == Types.UNTYPED) {
+                frames.push(new TypeFrame(children.get(frame.child), undeclared));
+                continue;
+            }
 
-            if (expr.getToken() != null && "ID".equals(expr.getToken().getType())) {
-                String varName = expr.getToken().getLexeme();
-                Symbol sym = getSymbol(varName);
-                if (sym == null) {
-                    error(expr, SemanticErrorType.UNKNOWN_SYMBOL, varName);
+            if (frame.operator) {
+                // <TERME> operador <TERME>: primero la izquierda y luego la derecha
+                if (frame.child == 0) {
+                    frame.child = 2;
+                    continue;
                 }
-                String retType = sym.getType();
-
-                if (!retType.equals(currentFunctionReturnType)) {
-                    error(node, SemanticErrorType.RETURN_TYPE_MISMATCH, currentFunctionReturnType, retType);
+                int left  = children.get(0).getTypeCode(epoch);
+                int right = children.get(2).getTypeCode(epoch);
+                if (mismatch(left, right)) {
+                    error(current, SemanticErrorType.EXPRESSION_TYPE_MISMATCH, Types.name(left), Types.name(right));
                 }
-            }
-            else {
-                // En cualquier otro caso (literal, expresión compuesta…), seguimos usando getExpressionType
-                String retType = getExpressionType(expr);
-                if (!retType.equals(currentFunctionReturnType)) {
-                    error(node, SemanticErrorType.RETURN_TYPE_MISMATCH, currentFunctionReturnType, retType);
+                current.setTypeCode(left, epoch);
+            } else {
+                // El tipo del primer hijo que lo tenga conocido; los siguientes no se miran
+                if (frame.child < children.size()) {
+                    if (children.get(frame.child).getTypeCode(epoch) == Types.UNKNOWN) {
+                        frame.child++;
+                        continue;
+                    }
+                    current.setTypeCode(children.get(frame.child).getTypeCode(epoch), epoch);
+                } else {
+                    current.setTypeCode(Types.UNKNOWN, epoch);
                 }
             }
+            // Con un símbolo sin declarar dentro, el tipo de los demás operandos no es el de la
+            // expresión: queda UNKNOWN y no da más errores de tipos
+            if (undeclared != frame.undeclared) current.setTypeCode(Types.UNKNOWN, epoch);
+            frames.pop();
         }
+        return node.getTypeCode(epoch);
     }
 
-    private void handleFunctionCall(Node node) {
-        String funcName = node.getChildren().get(0).getToken().getLexeme();
-        Symbol sym = getSymbol(funcName);
-        if (sym == null) error(node, SemanticErrorType.FUNCTION_NOT_DECLARED, funcName);
-    }
-
-    private String getTypeFromTipus(Node tipusNode) {
-        Node first = tipusNode.getChildren().get(0);
-        if ("ARRAY".equals(first.getSymbol())) {
-            String size = tipusNode.getChildren().get(2).getToken().getLexeme();
-            String baseType = tipusNode.getChildren().get(3).getChildren().get(0).getSymbol();
-            return "ARRAY[" + size + "]" + baseType;
-        } else {
-            return first.getChildren().get(0).getSymbol();
+    /** Un nodo de {@link #typeOf} y el siguiente hijo que le toca, o -1 si aún no se ha mirado. */
+    private static final class TypeFrame {
+        final Node node;
+        // Los <BINARY> del parser por precedencias van por el recorrido genérico, como la cadena
+        // <TERME> <TERME'> de la gramática: el tipo es el del primer operando conocido
+        final boolean operator;
+        // Símbolos sin declarar que se llevaban encontrados al empezar el nodo
+        final int undeclared;
+        int child = -1;
+
+        TypeFrame(Node node, int undeclared) {
+            this.node = node;
+            this.undeclared = undeclared;
+            this.operator = node.getKind() != NodeKind.BINARY && node.getChildren().size() == 3
+                    && isOperator(node.getChildren().get(1));
         }
     }
 
-    private String getExpressionType(Node node) {
-        String sym = node.getSymbol();
-
-        if (sym.startsWith("<") && sym.endsWith(">")) {
-            sym = sym.substring(1, sym.length() - 1);
-        }
-
-        if ("TIPUS".equals(sym)) {return getTypeFromTipus(node);}
+    /** El tipo que no depende de los hijos, o {@link Types#UNTYPED} si sale de ellos. */
+    private int leafType(Node node) {
+        if ("<TIPUS>".equals(node.getSymbol())) {return Types.code(getTypeFromTipus(node));}
 
         if (node.getToken() != null) {
             switch (node.getToken().getType()) {
-                case "INT_VALUE"   ->   { return "INT"; }
-                case "FLOAT_VALUE" ->   { return "FLOAT"; }
-                case "CHAR_VALUE"  ->   { return "CHAR"; }
+                case "INT_VALUE"   ->   { return Types.INT; }
+                case "FLOAT_VALUE" ->   { return Types.FLOAT; }
+                case "CHAR_VALUE"  ->   { return Types.CHAR; }
                 case "ID" -> {
                     String name = node.getToken().getLexeme();
                     Symbol s = getSymbol(name);
-                    if (s != null) return s.getType();
+                    if (s != null) return s.getTypeCode();
                     error(node, SemanticErrorType.UNKNOWN_SYMBOL, name);
-                    return "UNKNOWN";
+                    undeclared++;
+                    return Types.UNKNOWN;
                 }
                 case "TIPUS" -> {
-                    return node.getToken().getLexeme();
+                    return Types.code(node.getToken().getLexeme());
                 }
                 default -> {}
             }
         }
+        return Types.UNTYPED;
+    }
 
-        if (node.getChildren().size() == 3 && isOperator(node.getChildren().get(1))) {
-            String left  = getExpressionType(node.getChildren().get(0));
-            String right = getExpressionType(node.getChildren().get(2));
-            if (!left.equals(right)) {
-                error(node, SemanticErrorType.EXPRESSION_TYPE_MISMATCH, left, right);
-            }
-            return left;
-        }
-
-        for (Node child : node.getChildren()) {
-            String t = getExpressionType(child);
-            if (!"UNKNOWN".equals(t)) {
-                return t;
-            }
-        }
 
-        return "UNKNOWN";
+    /**
+     * Si dos tipos no casan. Un {@link Types#UNKNOWN} sale de un símbolo sin declarar, que ya tiene
+     * su error: en modo recuperación no se apunta además un error de tipos por la misma sentencia.
+     */
+    private static boolean mismatch(int a, int b) {
+        return a != b && a != Types.UNKNOWN && b != Types.UNKNOWN;
     }
 
-
-    private boolean isOperator(Node node) {
+    private static boolean isOperator(Node node) {
         return switch (node.getSymbol()) {
             case "SUM", "MINUS", "MULTIPLY", "DIVISION" -> true;
             default -> false;
@@ -436,6 +692,16 @@ public class SemanticAnalyzer {
                 break;
             }
         }
-        throw new RuntimeException("[Line " + line + "] " + type.format(args));
+        String message = "[Line " + line + "] " + type.format(args);
+        if (diagnostics == null) throw new RuntimeException(message);
+        diagnostics.add(Diagnostics.Phase.SEMANTIC, line, message);
+        if (diagnostics.isFull()) throw new LimitReached();
+    }
+
+    /** Corta el recorrido cuando la lista de errores se ha llenado. */
+    private static final class LimitReached extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LimitReached() { super(null, null, false, false); }
     }
 }
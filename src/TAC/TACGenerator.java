@@ -1,6 +1,8 @@
 package TAC;
 
+import entities.AstNode;
 import entities.Node;
+import entities.NodeKind;
 import entities.Token;
 
 import java.io.FileWriter;
@@ -16,15 +18,36 @@ public class TACGenerator {
     private int labelCounter = 0;
     private int tempCounter = 0;
     private String currentId = null;
+    // Recorregut pendent: nodes per visitar i accions per fer quan s'hagin visitat els de sobre
+    private final Deque<Object> work = new ArrayDeque<>();
 
     public TACGenerator() {}
 
     public void generateFile(Node root, String filename) {
         labelCounter = 0;
         tempCounter = 0;
+        work.clear();
 
         start(root);
+        writeFile(filename);
+    }
+
+    /**
+     * Genera el TAC a partir de l'AST ({@code ParserAnalyzer.parseAst}). Fa servir les mateixes
+     * temporals, etiquetes i format que el recorregut de l'arbre de parseig, però cada expressió
+     * retorna directament la temporal amb el seu valor, sense passar per la pila.
+     */
+    public void generateFile(AstNode.Program program, String filename) {
+        labelCounter = 0;
+        tempCounter = 0;
+
+        for (AstNode unit : program.getUnits()) {
+            emitUnit(unit);
+        }
+        writeFile(filename);
+    }
 
+    private void writeFile(String filename) {
         try (FileWriter writer = new FileWriter(filename)) {
             for (String line : code) {
                 writer.write(line + System.lineSeparator());
@@ -34,21 +57,37 @@ public class TACGenerator {
         }
     }
 
+    /**
+     * Genera el codi de {@code node} i tots els seus fills. El recorregut fa servir la pila
+     * {@link #work} en comptes de la recursió, perquè les llistes recursives per la dreta de la
+     * gramàtica ({@code <BODY'>}, {@code <UNIT_LIST>}, ...) fan l'arbre tan profund com sentències
+     * té el programa. Els handlers hi afegeixen els fills amb {@link #later} i el codi que va
+     * després d'un fill amb {@link #then}; com que és una pila, en ordre invers.
+     * <p>
+     * Les expressions es recorren amb una crida niada a {@code start}, que acaba quan ha buidat la
+     * seva part de la pila, perquè el handler en necessita el resultat tot seguit.
+     */
     private void start(Node node) {
-        // Detectem assignacions del tipus: ID -> EXPRESSIO;
-        if (node.getSymbol().equals("<CONTENT>") && node.getChildren().size() >= 2) {
-            Node first = node.getChildren().get(0);
-            Node second = node.getChildren().get(1);
-            if (first.getToken() != null && "ID".equals(first.getToken().getType())
-                    && "<ID_CONTENT>".equals(second.getSymbol())
-                    && !second.getChildren().isEmpty()
-                    && "EQUAL_ASSIGNATION".equals(second.getChildren().get(0).getToken().getType())) {
-                currentId = first.getToken().getLexeme();
-            }
+        int base = work.size();
+        work.push(node);
+        while (work.size() > base) {
+            Object next = work.pop();
+            if (next instanceof Runnable action) action.run();
+            else visit((Node) next);
         }
+    }
 
+    private void later(Node node) {
+        work.push(node);
+    }
 
-        switch (getNodeKind(node)) {
+    private void then(Runnable action) {
+        work.push(action);
+    }
+
+    private void visit(Node node) {
+        // El tipus el posa el parser segons les marques "kind" de la gramàtica
+        switch (node.getKind()) {
             case MAIN -> handleMain(node);
             case FUNCTION -> handleFunction(node);
             case WHILE -> handleWhile(node);
@@ -57,9 +96,10 @@ public class TACGenerator {
             case ASSIGNATION -> handleAssignation(node);
             case OPERATION -> handleOperation(node);
             case COMPARATION -> handleComparation(node);
+            case BINARY -> handleBinary(node);
             case DECLARATION -> handleDeclaration(node);
             case GLOBAL_DECLARATION -> handleGlobalDeclaration(node);
-            case OTHER -> handleOthers(node);
+            default -> handleOthers(node);
         }
     }
 
@@ -70,7 +110,7 @@ public class TACGenerator {
         code.add("\n" + funcName + ":");
 
         Node body = unitTail.getChildren().get(2); // <DECL_OR_FUNC_TAIL>
-        start(body);
+        later(body);
     }
 
     private String handleCondition(Node node) {
@@ -89,7 +129,7 @@ public class TACGenerator {
         Node declOrFuncTail = unitTail.getChildren().get(1); // <DECL_OR_FUNC_TAIL>
         Node declOrFuncTailRest = declOrFuncTail.getChildren().get(1); // <DECL_OR_FUNC_TAIL_REST>
         Node body = declOrFuncTailRest.getChildren().get(0); // <BODY>
-        start(body);
+        later(body);
     }
 
     private void handleWhile(Node node) {
@@ -104,10 +144,11 @@ public class TACGenerator {
         code.add("if " + condTmp + " goto " + Lend);
 
         Node bodyNode = node.getChildren().get(5); // <BODY>
-        start(bodyNode);
-
-        code.add("goto " + Lstart);
-        code.add(Lend + ":");
+        then(() -> {
+            code.add("goto " + Lstart);
+            code.add(Lend + ":");
+        });
+        later(bodyNode);
     }
 
     private void handleIf(Node node) {
@@ -120,39 +161,39 @@ public class TACGenerator {
         code.add("if " + condTmp + " goto " + Lthen);
 
         boolean hasElse = node.getChildren().size() == 8;
+        then(() -> code.add("\n" + Lend + ":"));
+        later(node.getChildren().get(5)); // IF
         if (hasElse) {
-            start(node.getChildren().get(7)); // ELSE
-            code.add("goto " + Lend);
-            code.add("\n" + Lthen + ":");
-            start(node.getChildren().get(5)); // IF
+            then(() -> {
+                code.add("goto " + Lend);
+                code.add("\n" + Lthen + ":");
+            });
+            later(node.getChildren().get(7)); // ELSE
         } else {
             code.add("goto " + Lend);
             code.add("\n" + Lthen + ":");
-            start(node.getChildren().get(5));
         }
-
-        code.add("\n" + Lend + ":");
     }
 
     private void handleReturn(Node node) {
-        start(node.getChildren().get(1)); // <EXPRESSIO>
+        Node expr = node.getChildren().get(1); // <EXPRESSIO>
+        start(expr);
 
-        String val =    node.getChildren().get(1)
-                        .getChildren().get(0)
-                        .getChildren().get(0)
-                        .getChildren().get(0)
-                        .getToken().getLexeme();
+        // A l'arbre de la gramàtica la pila no queda amb el resultat de l'expressió (vegeu
+        // handleOperation) i es retorna la temporal del primer terminal; amb el parser per
+        // precedències la pila sí que el té, com el retorn de l'AST
+        String val = expr.getKind() == NodeKind.OPERATION
+                ? varToTemp.get(firstLexeme(expr, 3))
+                : getLastTemp();
 
-        code.add("return " + varToTemp.get(val));
+        code.add("return " + val);
     }
 
     private void handleAssignation(Node node) {
+        // <CONTENT> ::= ID <ID_CONTENT>: la variable és el germà anterior
+        currentId = node.getParent().getChildren().get(0).getToken().getLexeme();
         Node expr = node.getChildren().get(1); // <EXPRESSIO>
-        String funcName =   expr
-                            .getChildren().get(0)
-                            .getChildren().get(0)
-                            .getChildren().get(0)
-                            .getToken().getLexeme();
+        String funcName = firstLexeme(expr, 3);
 
         if (functions.contains(funcName)) {
             String tmp;
@@ -245,6 +286,63 @@ public class TACGenerator {
         }
     }
 
+    /**
+     * Operació del parser per precedències: {@code [esquerra, operador, dreta]}, on cada operand és
+     * una altra operació o un terminal.
+     * <p>
+     * Cada expressió deixa a la pila just la temporal amb el seu valor, així que amb aquest arbre
+     * les expressions i els retorns surten com al camí de l'AST i no com a l'arbre de la gramàtica,
+     * que arrossega temporals d'altres expressions (a fibonacci, {@code t10 = t2 + t3} en comptes
+     * de {@code t10 = t1 + t3}). Les assignacions i declaracions passen pels mateixos handlers als
+     * dos arbres: {@code a -> f + 1} es tracta com una crida a {@code f}.
+     */
+    private void handleBinary(Node node) {
+        // En postordre amb una pila: una cadena a + b + c + ... penja cap a l'esquerra
+        Deque<Object> pending = new ArrayDeque<>();
+        Deque<String> operands = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof Token operator) {
+                String right = operands.pop();
+                String left = operands.pop();
+                String tmp = newTemp();
+                code.add(tmp + " = " + left + " " + map(operator.getType()) + " " + right);
+                operands.push(tmp);
+                continue;
+            }
+            Node current = (Node) next;
+            if (current.getKind() == NodeKind.BINARY) {
+                pending.push(current.getChildren().get(1).getToken());
+                pending.push(current.getChildren().get(2));
+                pending.push(current.getChildren().get(0));
+            } else {
+                operands.push(binaryOperand(current.getToken()));
+            }
+        }
+        stack.push(operands.pop());
+    }
+
+    private String binaryOperand(Token token) {
+        return "ID".equals(token.getType()) ? varTemp(token.getLexeme()) : literalTemp(token.getLexeme());
+    }
+
+    /**
+     * Lexema del primer terminal d'una {@code <EXPRESSIO>}. A l'arbre de la gramàtica és a
+     * {@code depth} nivells per sota ({@code <TERME>}, {@code <FACTOR>}, ...); amb el parser per
+     * precedències l'expressió no és una {@link NodeKind#OPERATION} i el terminal és la fulla de
+     * més a l'esquerra.
+     */
+    private static String firstLexeme(Node expr, int depth) {
+        Node node = expr;
+        if (expr.getKind() == NodeKind.OPERATION) {
+            for (int i = 0; i < depth; i++) node = node.getChildren().get(0);
+        } else {
+            while (node.getToken() == null) node = node.getChildren().get(0);
+        }
+        return node.getToken().getLexeme();
+    }
+
     private void handleDeclaration(Node node) {
         String id = node.getChildren().get(1).getToken().getLexeme();
         Node suffix = node.getChildren().get(2); // <LOCAL_DECL_SUFFIX>
@@ -277,11 +375,7 @@ public class TACGenerator {
         Node declTail = unitTail.getChildren().get(1); // <DECL_OR_FUNC_TAIL>
         Node exprNode = declTail.getChildren().get(1); // <EXPRESSIO>
 
-        String val =    exprNode.getChildren()
-                        .get(0).getChildren()
-                        .get(0).getChildren()
-                        .get(0).getChildren()
-                        .get(0).getToken().getLexeme();
+        String val = firstLexeme(exprNode, 4);
 
         String tmp = newTemp();
         varToTemp.put(id, tmp);
@@ -289,127 +383,46 @@ public class TACGenerator {
     }
 
     private void handleOthers(Node node) {
-        for (Node child : node.getChildren()) {
-            start(child);
-        }
-
         Token tok = node.getToken();
-        if (tok != null) {
-            switch (tok.getType()) {
-                case "INT_VALUE", "FLOAT_VALUE", "CHAR_VALUE" -> {
-                    String value = tok.getLexeme();
-                    String tmp;
-
-                    if (literalToTemp.containsKey(value)) {
-                        tmp = literalToTemp.get(value);
-                    } else {
-                        tmp = newTemp();
-                        literalToTemp.put(value, tmp);
-                        code.add(tmp + " = " + value);
-                    }
-
-                    stack.push(tmp);
-                }
-
-                case "ID" -> {
-                    String lex = tok.getLexeme();
-                    String tmp;
+        if (tok != null) then(() -> handleTerminal(tok));
 
-                    if (!varToTemp.containsKey(lex)) {
-                        tmp = newTemp();
-                        varToTemp.put(lex, tmp);
-                    } else {
-                        tmp = varToTemp.get(lex);
-                    }
-                    stack.push(tmp);
-                }
-
-            }
+        List<Node> children = node.getChildren();
+        for (int i = children.size() - 1; i >= 0; i--) {
+            later(children.get(i));
         }
     }
 
-    private NodeKind getNodeKind(Node node) {
-        List<Node> children = node.getChildren();
-        if (children.isEmpty()) return NodeKind.OTHER;
-
-        if (node.getSymbol().equals("<UNIT>") && children.size() >= 2) {
-            Node unitTail = children.get(1);
-            if (unitTail.getSymbol().equals("<UNIT_TAIL>")) {
-                if (!unitTail.getChildren().isEmpty() &&
-                        unitTail.getChildren().get(0).getToken() != null &&
-                        "MAIN".equals(unitTail.getChildren().get(0).getToken().getType())) {
-                    return NodeKind.MAIN;
-                } else if (unitTail.getChildren().size() >= 2) {
-                    Node tailNode = unitTail.getChildren().get(1);
-                    if (tailNode.getSymbol().equals("<DECL_OR_FUNC_TAIL>")
-                            && tailNode.getChildren().size() >= 2
-                            && tailNode.getChildren().get(0).getToken() != null
-                            && "OPEN_CLAUDATOR".equals(tailNode.getChildren().get(0).getToken().getType())) {
-                        return NodeKind.FUNCTION;
-                    }
-                }
-            }
-        }
+    private void handleTerminal(Token tok) {
+        switch (tok.getType()) {
+            case "INT_VALUE", "FLOAT_VALUE", "CHAR_VALUE" -> {
+                String value = tok.getLexeme();
+                String tmp;
 
-        // Declaració global: <UNIT> ::= <TIPUS> ID -> EXPRESSIO
-        if (node.getSymbol().equals("<UNIT>") && node.getChildren().size() == 2) {
-            Node unitTail = node.getChildren().get(1);
-            if (unitTail.getSymbol().equals("<UNIT_TAIL>") &&
-                    unitTail.getChildren().size() == 2 &&
-                    unitTail.getChildren().get(0).getToken() != null &&  // ID
-                    "ID".equals(unitTail.getChildren().get(0).getToken().getType())) {
-
-                Node declTail = unitTail.getChildren().get(1);
-                if (declTail.getSymbol().equals("<DECL_OR_FUNC_TAIL>") &&
-                        declTail.getChildren().size() == 3 &&
-                        "EQUAL_ASSIGNATION".equals(declTail.getChildren().get(0).getToken().getType())) {
-                    return NodeKind.GLOBAL_DECLARATION;
+                if (literalToTemp.containsKey(value)) {
+                    tmp = literalToTemp.get(value);
+                } else {
+                    tmp = newTemp();
+                    literalToTemp.put(value, tmp);
+                    code.add(tmp + " = " + value);
                 }
-            }
-        }
-
 
-        // Declaració local: <CONTENT> ::= <TIPUS> ID <LOCAL_DECL_SUFFIX> LINE_DELIMITER
-        if (node.getSymbol().equals("<CONTENT>") && node.getChildren().size() >= 3) {
-            Node tipus = node.getChildren().get(0);
-            Node idNode = node.getChildren().get(1);
-            Node suffix = node.getChildren().get(2);
-
-            if (idNode.getToken() != null &&
-                    "ID".equals(idNode.getToken().getType()) &&
-                    suffix.getSymbol().equals("<LOCAL_DECL_SUFFIX>")) {
-                return NodeKind.DECLARATION;
+                stack.push(tmp);
             }
-        }
 
-        if (node.getSymbol().equals("<ID_CONTENT>")
-                && !node.getChildren().isEmpty()
-                && node.getChildren().get(0).getToken() != null
-                && "EQUAL_ASSIGNATION".equals(node.getChildren().get(0).getToken().getType())) {
-            return NodeKind.ASSIGNATION;
-        }
-
-        if (Set.of("<EXPRESSIO>", "<TERME>").contains(node.getSymbol())) {
-            return NodeKind.OPERATION;
-        }
+            case "ID" -> {
+                String lex = tok.getLexeme();
+                String tmp;
 
-        if (node.getSymbol().equals("<COMPARACIO>")) {
-            return NodeKind.COMPARATION;
-        }
-
-        if (node.getSymbol().equals("<CONTENT>") && !node.getChildren().isEmpty()) {
-            Token first = node.getChildren().get(0).getToken();
-            if (first != null) {
-                return switch (first.getType()) {
-                    case "IF" -> NodeKind.IF;
-                    case "BUCLE" -> NodeKind.WHILE;
-                    case "RETURN" -> NodeKind.RETURN;
-                    default -> NodeKind.OTHER;
-                };
+                if (!varToTemp.containsKey(lex)) {
+                    tmp = newTemp();
+                    varToTemp.put(lex, tmp);
+                } else {
+                    tmp = varToTemp.get(lex);
+                }
+                stack.push(tmp);
             }
-        }
 
-        return NodeKind.OTHER;
+        }
     }
 
     private String extractOperand(Node node) {
@@ -452,6 +465,138 @@ public class TACGenerator {
     }
 
 
+    // -------------------------
+    // AST
+    // -------------------------
+    private void emitUnit(AstNode unit) {
+        if (unit.getKind() == AstNode.Kind.DECL) {
+            // Declaració global: el valor es copia sempre a una temporal nova
+            AstNode.Decl decl = (AstNode.Decl) unit;
+            if (decl.getInit() == null) return;
+            String val = decl.getInit() instanceof AstNode.Literal literal
+                    ? literal.getValue().getLexeme()
+                    : emitExpression(decl.getInit());
+            String tmp = newTemp();
+            varToTemp.put(decl.getName().getLexeme(), tmp);
+            code.add(tmp + " = " + val);
+            return;
+        }
+
+        AstNode.Function function = (AstNode.Function) unit;
+        String funcName = function.getName().getLexeme();
+        if (!function.isMain()) functions.add(funcName);
+        code.add("\n" + funcName + ":");
+        emitBody(function.getBody());
+    }
+
+    private void emitBody(List<AstNode> body) {
+        for (AstNode statement : body) {
+            emitStatement(statement);
+        }
+    }
+
+    private void emitStatement(AstNode node) {
+        switch (node.getKind()) {
+            case DECL -> {
+                AstNode.Decl decl = (AstNode.Decl) node;
+                if (decl.getInit() == null) return;
+                String id = decl.getName().getLexeme();
+                String val = emitExpression(decl.getInit());
+
+                // Si el valor és un literal conegut, reutilitzem la temp
+                if (literalToTemp.containsValue(val) && !varToTemp.containsKey(id)) {
+                    varToTemp.put(id, val);
+                } else {
+                    String tmp = newTemp();
+                    varToTemp.put(id, tmp);
+                    code.add(tmp + " = " + val);
+                }
+            }
+            case ASSIGN -> {
+                AstNode.Assign assign = (AstNode.Assign) node;
+                AstNode value = assign.getValue();
+                if (value instanceof AstNode.Var var && functions.contains(var.getName().getLexeme())) {
+                    code.add(varTemp(assign.getTarget().getLexeme()) + " = call " + var.getName().getLexeme());
+                } else {
+                    String val = emitExpression(value);
+                    code.add(varTemp(assign.getTarget().getLexeme()) + " = " + val);
+                }
+            }
+            case ARRAY_STORE -> {
+                AstNode.ArrayStore store = (AstNode.ArrayStore) node;
+                String val = emitExpression(store.getValue());
+                code.add(varTemp(store.getArray().getLexeme()) + "[" + store.getIndex().getLexeme() + "] = " + val);
+            }
+            case IF -> {
+                AstNode.If ifNode = (AstNode.If) node;
+                String Lthen = newLabel();
+                String Lend = newLabel();
+
+                String condTmp = emitExpression(ifNode.getCondition());
+                code.add("if " + condTmp + " goto " + Lthen);
+                if (ifNode.getElseBody() != null) emitBody(ifNode.getElseBody());
+                code.add("goto " + Lend);
+                code.add("\n" + Lthen + ":");
+                emitBody(ifNode.getThenBody());
+                code.add("\n" + Lend + ":");
+            }
+            case WHILE -> {
+                AstNode.While whileNode = (AstNode.While) node;
+                String Lstart = newLabel();
+                String Lend = newLabel();
+
+                code.add(Lstart + ":");
+                String condTmp = emitExpression(whileNode.getCondition());
+                code.add("if " + condTmp + " goto " + Lend);
+                emitBody(whileNode.getBody());
+                code.add("goto " + Lstart);
+                code.add(Lend + ":");
+            }
+            case CALL -> code.add("call " + ((AstNode.Call) node).getName().getLexeme());
+            case RETURN -> code.add("return " + emitExpression(((AstNode.Return) node).getValue()));
+            case EXPR_STATEMENT -> emitExpression(((AstNode.ExprStatement) node).getExpression());
+            default -> throw new RuntimeException("Sentència no suportada al TAC: " + node.getKind());
+        }
+    }
+
+    /**
+     * Avalua una expressió o condició.
+     * @return la temporal que conté el resultat
+     */
+    private String emitExpression(AstNode node) {
+        switch (node.getKind()) {
+            case LITERAL -> {
+                return literalTemp(((AstNode.Literal) node).getValue().getLexeme());
+            }
+            case VAR -> {
+                return varTemp(((AstNode.Var) node).getName().getLexeme());
+            }
+            case BIN_OP -> {
+                AstNode.BinOp op = (AstNode.BinOp) node;
+                String left = emitExpression(op.getLeft());
+                String right = emitExpression(op.getRight());
+                String tmp = newTemp();
+                code.add(tmp + " = " + left + " " + map(op.getOperator().getType()) + " " + right);
+                return tmp;
+            }
+            default -> throw new RuntimeException("Expressió no suportada al TAC: " + node.getKind());
+        }
+    }
+
+    private String literalTemp(String value) {
+        String tmp = literalToTemp.get(value);
+        if (tmp == null) {
+            tmp = newTemp();
+            literalToTemp.put(value, tmp);
+            code.add(tmp + " = " + value);
+        }
+        return tmp;
+    }
+
+    private String varTemp(String name) {
+        return varToTemp.computeIfAbsent(name, n -> newTemp());
+    }
+
     private String getLastTemp() {
         return stack.isEmpty() ? "??" : stack.pop();
     }
@@ -476,21 +621,9 @@ public class TACGenerator {
             case "DIFFERENT" -> "!=";
             case "LOWER_EQUAL" -> "<=";
             case "BIGGER_EQUAL" -> ">=";
+            case "AND" -> "&&";
+            case "OR" -> "||";
             default -> "?";
         };
     }
-
-    private enum NodeKind {
-        MAIN,
-        FUNCTION,
-        WHILE,
-        IF,
-        RETURN,
-        ASSIGNATION,
-        OPERATION,
-        COMPARATION,
-        DECLARATION,
-        GLOBAL_DECLARATION,
-        OTHER
-    }
 }
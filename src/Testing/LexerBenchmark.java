@@ -0,0 +1,165 @@
+package Testing;
+
+import LexicalAnalyzer.LexicalAnalyzer;
+import LexicalAnalyzer.ScanMode;
+import entities.Dictionary;
+import entities.HeapSize;
+import entities.Token;
+import entities.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Mide el rendimiento del analizador léxico sobre un fichero sintético grande.
+ * El fichero se construye repitiendo un programa de ejemplo hasta llegar al número de copias pedido.
+ */
+public class LexerBenchmark {
+    private static final String SAMPLE = "testing/fibonacci.wsp";
+    private static final int WARMUP = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Dictionary dict = new Dictionary("resources/diccionari.json");
+
+        Path source = buildSource(copies);
+        long bytes = Files.size(source);
+        System.out.printf("Fichero: %d copias de %s (%.1f MB)%n", copies, SAMPLE, bytes / 1e6);
+
+        for (ScanMode mode : ScanMode.values()) {
+            LexicalAnalyzer lexer = new LexicalAnalyzer(dict, mode);
+            long best = Long.MAX_VALUE;
+            int count = 0;
+
+            for (int i = 0; i < WARMUP + ROUNDS; i++) {
+                lexer.clear();
+                long start = System.nanoTime();
+                lexer.tokenize(source.toString());
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP) best = Math.min(best, elapsed);
+                count = lexer.getTokens().size();
+            }
+
+            System.out.printf("  %-6s %8d tokens  %8.1f ms  %6.1f MB/s%n",
+                    mode, count, best / 1e6, bytes / 1e6 / (best / 1e9));
+        }
+
+        measureParallel(dict, source, bytes);
+        measureKernels(dict, source, bytes);
+        measureMemory(dict, source);
+    }
+
+    /**
+     * Compara el escaneo secuencial del fichero mapeado con el escaneo por trozos en el ForkJoinPool.
+     */
+    private static void measureParallel(Dictionary dict, Path source, long bytes) {
+        LexicalAnalyzer lexer = new LexicalAnalyzer(dict, ScanMode.MAPPED);
+        long sequential = Long.MAX_VALUE;
+        long parallel = Long.MAX_VALUE;
+
+        for (int i = 0; i < WARMUP + ROUNDS; i++) {
+            long start = System.nanoTime();
+            lexer.tokenizeToBuffer(source.toString());
+            long middle = System.nanoTime();
+            lexer.tokenizeParallel(source.toString());
+            long end = System.nanoTime();
+            if (i >= WARMUP) {
+                sequential = Math.min(sequential, middle - start);
+                parallel = Math.min(parallel, end - middle);
+            }
+        }
+
+        System.out.printf("Buffer secuencial %8.1f ms  %6.1f MB/s%n", sequential / 1e6, bytes / 1e6 / (sequential / 1e9));
+        System.out.printf("Buffer paralelo   %8.1f ms  %6.1f MB/s (%d núcleos)%n",
+                parallel / 1e6, bytes / 1e6 / (parallel / 1e9), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Compara el escaneo mapeado con el kernel escalar y con el de la Vector API (si se ha
+     * compilado {@code src-vector} y el módulo jdk.incubator.vector está disponible).
+     */
+    private static void measureKernels(Dictionary dict, Path source, long bytes) {
+        String previous = System.getProperty("lexer.vector", "true");
+        for (String vector : List.of("false", "true")) {
+            System.setProperty("lexer.vector", vector);
+            LexicalAnalyzer lexer = new LexicalAnalyzer(dict, ScanMode.MAPPED);
+            long best = Long.MAX_VALUE;
+
+            for (int i = 0; i < WARMUP + ROUNDS; i++) {
+                long start = System.nanoTime();
+                lexer.tokenizeToBuffer(source.toString());
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP) best = Math.min(best, elapsed);
+            }
+
+            System.out.printf("Kernel %-15s %8.1f ms  %6.1f MB/s%n",
+                    lexer.getScanKernel(), best / 1e6, bytes / 1e6 / (best / 1e9));
+        }
+        System.setProperty("lexer.vector", previous);
+    }
+
+    /**
+     * Compara la memoria que retienen la lista de Token (con sus lexemas) y el TokenBuffer del mismo
+     * fichero, los dos sacados del mismo lexer en modo DFA. No se mide el heap: cada estructura se
+     * recorre contando el tamaño de sus objetos y arrays con {@link HeapSize}, así que el resultado
+     * no depende de cuándo pase el recolector.
+     */
+    private static void measureMemory(Dictionary dict, Path source) {
+        LexicalAnalyzer lexer = new LexicalAnalyzer(dict, ScanMode.DFA);
+        lexer.tokenize(source.toString());
+        List<Token> list = lexer.getTokens();
+        TokenBuffer buffer = lexer.tokenizeToBuffer(source.toString());
+
+        long listBytes = listBytes(dict, list);
+        long bufferBytes = buffer.retainedBytes();
+        System.out.printf("Memoria retenida por token (%d tokens, modo DFA):%n", list.size());
+        System.out.printf("  List<Token>  %6.1f B/token%n", (double) listBytes / list.size());
+        System.out.printf("  TokenBuffer  %6.1f B/token (arrays: %.1f B/token; el resto es sobre todo el texto fuente)%n",
+                (double) bufferBytes / buffer.size(), buffer.bytesPerToken());
+    }
+
+    /**
+     * Bytes que retiene una lista de tokens: la lista, cada Token y cada lexema distinto. El array
+     * de la lista se cuenta a su tamaño, sin la capacidad sobrante, y no se cuentan los lexemas de
+     * los tipos con una sola escritura ni los nombres de tipo, que el lexer comparte entre todos.
+     */
+    private static long listBytes(Dictionary dict, List<Token> tokens) {
+        List<String> types = dict.getTokenTypes();
+        boolean[] fixed = new boolean[types.size()];
+        for (int i = 0; i < fixed.length; i++) {
+            fixed[i] = dict.getLiteral(types.get(i)) != null;
+        }
+
+        // ArrayList: modCount, size y elementData
+        long bytes = HeapSize.object(2 * Integer.BYTES + HeapSize.REFERENCE) + HeapSize.array(tokens.size(), HeapSize.REFERENCE);
+        Set<String> lexemes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Token token : tokens) {
+            // type y lexeme; typeId, line y column
+            bytes += HeapSize.object(2 * HeapSize.REFERENCE + 3 * Integer.BYTES);
+            if (!fixed[token.getTypeId()] && lexemes.add(token.getLexeme())) {
+                bytes += HeapSize.string(token.getLexeme());
+            }
+        }
+        return bytes;
+    }
+
+    private static Path buildSource(int copies) throws IOException {
+        String program = Files.readString(Paths.get(SAMPLE), StandardCharsets.UTF_8);
+        Path tmp = Files.createTempFile("bench", ".wsp");
+        tmp.toFile().deleteOnExit();
+        StringBuilder sb = new StringBuilder(program.length() * copies + copies);
+        for (int i = 0; i < copies; i++) {
+            sb.append(program).append('\n');
+        }
+        Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+        return tmp;
+    }
+}
@@ -0,0 +1,243 @@
+package Testing;
+
+import LexicalAnalyzer.LexicalAnalyzer;
+import LexicalAnalyzer.ScanMode;
+import ParserAnalyzer.DocumentModel;
+import ParserAnalyzer.GeneratedParser;
+import ParserAnalyzer.ParseListener;
+import ParserAnalyzer.ParserAnalyzer;
+import entities.AstNode;
+import entities.Dictionary;
+import entities.FlatTree;
+import entities.Grammar;
+import entities.Node;
+import entities.ParserTableBuilder;
+import entities.PrecedenceTable;
+import entities.Token;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compara el parser de tabla LL(1) con el parser generado por {@link ParserAnalyzer.ParserGenerator}
+ * sobre el mismo flujo de tokens, y comprueba que los dos construyen el mismo árbol. También mide
+ * el modo AST ({@link ParserAnalyzer#parseAst}) y cuántos nodos se ahorra, y el árbol en arrays
+ * ({@link ParserAnalyzer#parseFlat}): memoria y tiempo de recorrido frente a los {@link Node}. Por
+ * último, el parseo solo con eventos ({@link ParseListener}), el que deja los cuerpos de las
+ * funciones sin parsear ({@link ParserAnalyzer#parseLazy}) y el que parsea cada unidad en paralelo
+ * ({@link ParserAnalyzer#parseParallel}). Y el de expresiones por precedencias
+ * ({@link PrecedenceTable}), que se ahorra la cadena de no terminales de cada expresión. Al final,
+ * lo que tarda {@link DocumentModel} en volver a parsear un fichero de tamaño normal tras editar
+ * una línea.
+ */
+public class ParserBenchmark {
+    private static final String SAMPLE = "testing/fibonacci.wsp";
+    private static final int WARMUP = 10;
+    private static final int ROUNDS = 5;
+    // Copias de SAMPLE en el documento que se edita
+    private static final int DOCUMENT_COPIES = 100;
+    private static final int EDITS = 2_000;
+
+    public static void main(String[] args) throws IOException {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        Dictionary dict = new Dictionary("resources/diccionari.json");
+        Grammar grammar = new Grammar("resources/grammar.json");
+        ParserTableBuilder builder = new ParserTableBuilder(dict, grammar);
+        builder.buildParsingTable();
+
+        // Los tokens se leen una vez: solo se mide el parseo
+        Path source = Files.createTempFile("parser-bench", ".wsp");
+        String program = Files.readString(Path.of(SAMPLE), StandardCharsets.UTF_8) + "\n";
+        Files.writeString(source, program.repeat(copies), StandardCharsets.UTF_8);
+        LexicalAnalyzer lexer = new LexicalAnalyzer(dict, ScanMode.DFA);
+        lexer.tokenize(source.toString());
+        List<Token> tokens = List.copyOf(lexer.getTokens());
+        Files.delete(source);
+        System.out.printf("Fichero: %d copias de %s (%d tokens)%n", copies, SAMPLE, tokens.size());
+
+        Node tableTree = measure("Tabla LL(1)", dict, tokens, l -> new ParserAnalyzer(grammar, builder).parse(l));
+        Node generatedTree = measure("Generado", dict, tokens, l -> new GeneratedParser(dict).parse(l));
+        System.out.println("Mismo árbol: " + sameTree(tableTree, generatedTree));
+
+        Node parallelTree = measure("Paralelo", dict, tokens, l -> new ParserAnalyzer(grammar, builder).parseParallel(l));
+        System.out.println("Mismo árbol (paralelo): " + sameTree(tableTree, parallelTree));
+
+        // Las FOLLOW del parser por precedencias se calculan una vez, fuera de la medida
+        ParserAnalyzer prattParser = new ParserAnalyzer(grammar, builder, new PrecedenceTable("resources/precedence.json"));
+        Node prattTree = measure("Pratt", dict, tokens, prattParser::parse);
+        System.out.printf("Nodos: árbol de parseo %d, con precedencias %d%n", countNodes(tableTree), countNodes(prattTree));
+
+        // Sin entrar en los cuerpos: lo que cuesta, por ejemplo, saber si existe xat
+        measure("Perezoso", dict, tokens, l -> new ParserAnalyzer(grammar, builder).parseLazy(l));
+
+        AstNode.Program ast = measure("AST", dict, tokens, l -> new ParserAnalyzer(grammar, builder).parseAst(l));
+        System.out.printf("Nodos: árbol de parseo %d, AST %d%n", countNodes(tableTree), ast.count());
+
+        FlatTree flatTree = measure("FlatTree", dict, tokens, l -> new ParserAnalyzer(grammar, builder).parseFlat(l));
+        System.out.println("Mismo árbol (FlatTree): " + sameTree(tableTree, flatTree.toNode()));
+        measureTraversal(tableTree, flatTree);
+
+        // Solo eventos: ningún nodo, y lo único que se guarda son tres contadores
+        int[] stats = measure("Listener", dict, tokens, l -> {
+            int[] counts = new int[3];  // no terminales, tokens, profundidad máxima
+            new ParserAnalyzer(grammar, builder).parse(l, new ParseListener() {
+                private int depth;  // del árbol, no de la pila del parser
+
+                @Override
+                public void enterNonTerminal(int nonTerminal, int production) {
+                    counts[0]++;
+                    counts[2] = Math.max(counts[2], ++depth);
+                }
+
+                @Override
+                public void exitNonTerminal(int nonTerminal) { depth--; }
+
+                @Override
+                public void token(int terminal, Token token) { counts[1]++; }
+            });
+            return counts;
+        });
+        System.out.printf("Eventos: %d no terminales, %d tokens, profundidad máxima del árbol %d%n", stats[0], stats[1], stats[2]);
+        measureMemory(dict, tokens, () -> new ParserAnalyzer(grammar, builder));
+        measureEdits(new DocumentModel(new LexicalAnalyzer(dict, ScanMode.DFA), new ParserAnalyzer(grammar, builder),
+                program.repeat(DOCUMENT_COPIES)));
+    }
+
+    /**
+     * Cambia una y otra vez el número de una línea de en medio del documento, como al teclear, y
+     * compara lo que tarda cada edición con volver a parsear todos los tokens.
+     */
+    private static void measureEdits(DocumentModel document) {
+        List<String> lines = document.getLines();
+        int line = lines.size() / 2;
+        while (!lines.get(line - 1).matches(".*\\b\\d+\\b.*xd\\s*")) line++;
+        String original = lines.get(line - 1);
+        String edited = original.replaceFirst("\\b\\d+\\b", "42");
+
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < WARMUP * 100 + EDITS; i++) {
+            long start = System.nanoTime();
+            document.replaceLines(line, 1, List.of(i % 2 == 0 ? edited : original));
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP * 100) {
+                best = Math.min(best, elapsed);
+                total += elapsed;
+            }
+        }
+        System.out.printf("Edición: %d tokens, línea %d: %.1f µs de media, %.1f µs la mejor (%d tokens reparseados)%n",
+                document.getTokens().size(), line, total / 1e3 / EDITS, best / 1e3, document.getReparsedTokens());
+    }
+
+    /**
+     * Recorre todo el árbol contando los terminales: con los {@link Node} y con el cursor del
+     * {@link FlatTree}, que avanza en preorden leyendo los arrays en orden.
+     */
+    private static void measureTraversal(Node tree, FlatTree flatTree) {
+        long nodeBest = Long.MAX_VALUE;
+        long flatBest = Long.MAX_VALUE;
+        int nodeCount = 0;
+        int flatCount = 0;
+        for (int i = 0; i < WARMUP + ROUNDS; i++) {
+            long start = System.nanoTime();
+            nodeCount = 0;
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(tree);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                if (node.getToken() != null) nodeCount++;
+                List<Node> children = node.getChildren();
+                for (int c = children.size() - 1; c >= 0; c--) pending.push(children.get(c));
+            }
+            long middle = System.nanoTime();
+            flatCount = 0;
+            FlatTree.Cursor cursor = flatTree.cursor();
+            do {
+                if (flatTree.getTokenIndex(cursor.getNode()) != FlatTree.NONE) flatCount++;
+            } while (cursor.gotoNext());
+            long end = System.nanoTime();
+            if (i >= WARMUP) {
+                nodeBest = Math.min(nodeBest, middle - start);
+                flatBest = Math.min(flatBest, end - middle);
+            }
+        }
+        System.out.printf("Recorrido: Node %.1f ms, FlatTree %.1f ms (%d / %d terminales)%n",
+                nodeBest / 1e6, flatBest / 1e6, nodeCount, flatCount);
+    }
+
+    private static void measureMemory(Dictionary dict, List<Token> tokens, Supplier<ParserAnalyzer> parser) {
+        LexicalAnalyzer lexer = new LexicalAnalyzer(dict);
+        lexer.getTokens().addAll(tokens);
+        long before = usedHeap();
+        Node tree = parser.get().parse(lexer);
+        long treeBytes = usedHeap() - before;
+        int nodes = countNodes(tree);
+        tree = null;
+
+        lexer = new LexicalAnalyzer(dict);
+        lexer.getTokens().addAll(tokens);
+        before = usedHeap();
+        FlatTree flatTree = parser.get().parseFlat(lexer);
+        long flatBytes = usedHeap() - before;
+
+        // Los tokens ya existían antes de parsear: solo cuenta lo que ocupa el árbol
+        System.out.printf("Memoria por nodo: Node %.1f B, FlatTree %.1f B (%d nodos)%n",
+                (double) treeBytes / nodes, (double) flatBytes / flatTree.size(), flatTree.size());
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    private static <T> T measure(String name, Dictionary dict, List<Token> tokens, Function<LexicalAnalyzer, T> parser) {
+        long best = Long.MAX_VALUE;
+        T tree = null;
+        for (int i = 0; i < WARMUP + ROUNDS; i++) {
+            LexicalAnalyzer lexer = new LexicalAnalyzer(dict);
+            lexer.getTokens().addAll(tokens);
+            long start = System.nanoTime();
+            tree = parser.apply(lexer);
+            long elapsed = System.nanoTime() - start;
+            if (i >= WARMUP) best = Math.min(best, elapsed);
+        }
+        System.out.printf("  %-12s %8.1f ms  %6.1f Mtokens/s%n", name, best / 1e6, tokens.size() / 1e6 / (best / 1e9));
+        return tree;
+    }
+
+    private static int countNodes(Node root) {
+        int total = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            total++;
+            pending.pop().getChildren().forEach(pending::push);
+        }
+        return total;
+    }
+
+    /** Recorre los dos árboles a la vez, sin recursión, comparando símbolo y token de cada nodo. */
+    private static boolean sameTree(Node a, Node b) {
+        Deque<Node[]> pending = new ArrayDeque<>();
+        pending.push(new Node[]{a, b});
+        while (!pending.isEmpty()) {
+            Node[] pair = pending.pop();
+            if (!pair[0].getSymbol().equals(pair[1].getSymbol()) || pair[0].getToken() != pair[1].getToken()) return false;
+            List<Node> left = pair[0].getChildren();
+            List<Node> right = pair[1].getChildren();
+            if (left.size() != right.size()) return false;
+            for (int i = 0; i < left.size(); i++) pending.push(new Node[]{left.get(i), right.get(i)});
+        }
+        return true;
+    }
+}
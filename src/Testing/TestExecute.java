@@ -5,10 +5,12 @@ import ParserAnalyzer.ParserAnalyzer;
 import SemanticAnalyzer.SemanticAnalyzer;
 import MIPS.MIPSGenerator;
 import TAC.TACGenerator;
+import entities.Diagnostics;
 import entities.Node;
 import entities.SymbolTable;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
@@ -19,6 +21,9 @@ import java.util.List;
  */
 public class TestExecute {
     private static final String TEST_DIR = "resources/tests/";
+    // Cada X.wsp de aquí va con X.expected: los errores que da en modo recuperación, uno por línea
+    private static final String RECOVERY_DIR = TEST_DIR + "recovery/";
+    private static final int RECOVERY_MAX_ERRORS = 100;
 
     private final LexicalAnalyzer lexer;
     private final ParserAnalyzer parser;
@@ -114,9 +119,52 @@ public class TestExecute {
         }
     }
 
-    /** Lanza todos los tests cargados. */
-    public void runAll() {
+    /**
+     * Pasa cada test de RECOVERY_DIR por el parser y el análisis semántico en modo recuperación y
+     * compara los errores con los de su .expected. La descripción se cambia por una línea vacía
+     * para que los números de línea sean los del fichero.
+     */
+    private void passRecoveryTests() throws IOException {
+        Path dir = Paths.get(RECOVERY_DIR);
+        if (!Files.isDirectory(dir)) return;
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.wsp")) {
+            ds.forEach(files::add);
+        }
+        files.sort(null);
+
+        for (Path p : files) {
+            String name = p.getFileName().toString();
+            System.out.println("=== Recovery:" + name + " ===");
+
+            List<String> lines = new ArrayList<>(Files.readAllLines(p, StandardCharsets.UTF_8));
+            if (!lines.isEmpty() && lines.get(0).trim().startsWith("//")) lines.set(0, "");
+            Path expectedPath = p.resolveSibling(name.substring(0, name.length() - ".wsp".length()) + ".expected");
+            List<String> expected = Files.readAllLines(expectedPath, StandardCharsets.UTF_8);
+
+            Diagnostics diagnostics = new Diagnostics(RECOVERY_MAX_ERRORS);
+            lexer.open(new StringReader(String.join("\n", lines)));
+            Node root = parser.parse(lexer, diagnostics);
+            if (!diagnostics.isFull()) new SemanticAnalyzer(root, new SymbolTable(), diagnostics).analyze();
+
+            List<String> actual = new ArrayList<>();
+            diagnostics.getAll().forEach(d -> actual.add(d.toString()));
+            if (actual.equals(expected)) {
+                System.out.println("  [OK] " + actual.size() + " error(es) esperados\n");
+            } else {
+                System.out.println("  [FAIL] Errores distintos de " + expectedPath.getFileName());
+                expected.forEach(e -> System.out.println("    esperado: " + e));
+                actual.forEach(a -> System.out.println("    obtenido: " + a));
+                System.out.println();
+            }
+        }
+    }
+
+    /** Lanza todos los tests cargados y los de modo recuperación. */
+    public void runAll() throws IOException {
         passTests();
+        passRecoveryTests();
     }
 
     private static void printTree(Node node, String prefix, boolean isTail) {
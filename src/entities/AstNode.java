@@ -0,0 +1,315 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Árbol sintáctico abstracto: solo las construcciones del lenguaje, sin los no terminales
+ * auxiliares de la gramática LL(1) ({@code <EXPRESSIO'>}, {@code <BODY'>}, ...) ni nodos ε.
+ * <p>
+ * Los operadores guardan su token, así que {@link BinOp} sirve para la aritmética, las
+ * comparaciones y {@code AND}/{@code OR}. Las cadenas de {@code +}/{@code -} y {@code *}/{@code /}
+ * se agrupan por la izquierda, igual que las evalúa {@code TACGenerator}.
+ */
+public abstract class AstNode {
+
+    public enum Kind {
+        PROGRAM,
+        FUNCTION,
+        DECL,
+        ASSIGN,
+        ARRAY_STORE,
+        IF,
+        WHILE,
+        CALL,
+        RETURN,
+        EXPR_STATEMENT,
+        BIN_OP,
+        VAR,
+        LITERAL
+    }
+
+    public abstract Kind getKind();
+
+    /** Hijos directos, en orden de aparición en el código. */
+    public abstract List<AstNode> getChildren();
+
+    /**
+     * @return número de nodos del subárbol, este incluido
+     */
+    public int count() {
+        int total = 0;
+        List<AstNode> pending = new ArrayList<>();
+        pending.add(this);
+        while (!pending.isEmpty()) {
+            AstNode node = pending.remove(pending.size() - 1);
+            total++;
+            pending.addAll(node.getChildren());
+        }
+        return total;
+    }
+
+    private static List<AstNode> concat(List<? extends AstNode> first, List<? extends AstNode> second) {
+        List<AstNode> children = new ArrayList<>(first);
+        children.addAll(second);
+        return children;
+    }
+
+    // -------------------------
+    // Unidades
+    // -------------------------
+
+    public static final class Program extends AstNode {
+        private final List<AstNode> units;
+
+        public Program(List<AstNode> units) { this.units = units; }
+
+        /** Declaraciones globales y funciones, en orden. */
+        public List<AstNode> getUnits() { return units; }
+
+        @Override public Kind getKind() { return Kind.PROGRAM; }
+        @Override public List<AstNode> getChildren() { return units; }
+    }
+
+    public static final class Function extends AstNode {
+        private final String returnType;
+        private final Token name;
+        private final List<AstNode> body;
+        private final boolean main;
+
+        public Function(String returnType, Token name, List<AstNode> body, boolean main) {
+            this.returnType = returnType;
+            this.name = name;
+            this.body = body;
+            this.main = main;
+        }
+
+        public String getReturnType() { return returnType; }
+
+        /** Token {@code ID}, o {@code MAIN} para la función principal. */
+        public Token getName() { return name; }
+
+        public List<AstNode> getBody() { return body; }
+
+        public boolean isMain() { return main; }
+
+        @Override public Kind getKind() { return Kind.FUNCTION; }
+        @Override public List<AstNode> getChildren() { return body; }
+    }
+
+    /**
+     * Declaración global o local. Tiene como mucho uno de los dos inicializadores: una expresión
+     * ({@code num a -> 1 xd}) o la lista de valores de un array.
+     */
+    public static final class Decl extends AstNode {
+        private final String type;
+        private final Token name;
+        private final AstNode init;
+        private final List<Literal> values;
+
+        public Decl(String type, Token name, AstNode init, List<Literal> values) {
+            this.type = type;
+            this.name = name;
+            this.init = init;
+            this.values = values;
+        }
+
+        /** {@code INT}, {@code FLOAT}, {@code CHAR} o {@code ARRAY[n]<base>}, como en la tabla de símbolos. */
+        public String getType() { return type; }
+
+        public Token getName() { return name; }
+
+        /** @return la expresión inicial, o {@code null} */
+        public AstNode getInit() { return init; }
+
+        /** @return los valores del array, o {@code null} */
+        public List<Literal> getValues() { return values; }
+
+        @Override public Kind getKind() { return Kind.DECL; }
+
+        @Override
+        public List<AstNode> getChildren() {
+            if (init != null) return List.of(init);
+            return values != null ? Collections.unmodifiableList(values) : List.of();
+        }
+    }
+
+    // -------------------------
+    // Sentencias
+    // -------------------------
+
+    public static final class Assign extends AstNode {
+        private final Token target;
+        private final AstNode value;
+
+        public Assign(Token target, AstNode value) {
+            this.target = target;
+            this.value = value;
+        }
+
+        public Token getTarget() { return target; }
+
+        public AstNode getValue() { return value; }
+
+        @Override public Kind getKind() { return Kind.ASSIGN; }
+        @Override public List<AstNode> getChildren() { return List.of(value); }
+    }
+
+    /** {@code pos <index> de <array> -> <value> xd} */
+    public static final class ArrayStore extends AstNode {
+        private final Token index;
+        private final Token array;
+        private final AstNode value;
+
+        public ArrayStore(Token index, Token array, AstNode value) {
+            this.index = index;
+            this.array = array;
+            this.value = value;
+        }
+
+        /** Token {@code INT_VALUE}: la gramática solo admite índices constantes. */
+        public Token getIndex() { return index; }
+
+        public Token getArray() { return array; }
+
+        public AstNode getValue() { return value; }
+
+        @Override public Kind getKind() { return Kind.ARRAY_STORE; }
+        @Override public List<AstNode> getChildren() { return List.of(value); }
+    }
+
+    public static final class If extends AstNode {
+        private final AstNode condition;
+        private final List<AstNode> thenBody;
+        private final List<AstNode> elseBody;
+
+        public If(AstNode condition, List<AstNode> thenBody, List<AstNode> elseBody) {
+            this.condition = condition;
+            this.thenBody = thenBody;
+            this.elseBody = elseBody;
+        }
+
+        public AstNode getCondition() { return condition; }
+
+        public List<AstNode> getThenBody() { return thenBody; }
+
+        /** @return el cuerpo del {@code sino}, o {@code null} si no hay */
+        public List<AstNode> getElseBody() { return elseBody; }
+
+        @Override public Kind getKind() { return Kind.IF; }
+
+        @Override
+        public List<AstNode> getChildren() {
+            List<AstNode> children = concat(List.of(condition), thenBody);
+            if (elseBody != null) children.addAll(elseBody);
+            return children;
+        }
+    }
+
+    public static final class While extends AstNode {
+        private final AstNode condition;
+        private final List<AstNode> body;
+
+        public While(AstNode condition, List<AstNode> body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        public AstNode getCondition() { return condition; }
+
+        public List<AstNode> getBody() { return body; }
+
+        @Override public Kind getKind() { return Kind.WHILE; }
+        @Override public List<AstNode> getChildren() { return concat(List.of(condition), body); }
+    }
+
+    /** Llamada como sentencia: {@code f() xd}. En {@code a -> f xd} la llamada es un {@link Var}. */
+    public static final class Call extends AstNode {
+        private final Token name;
+
+        public Call(Token name) { this.name = name; }
+
+        public Token getName() { return name; }
+
+        @Override public Kind getKind() { return Kind.CALL; }
+        @Override public List<AstNode> getChildren() { return List.of(); }
+    }
+
+    public static final class Return extends AstNode {
+        private final Token keyword;
+        private final AstNode value;
+
+        public Return(Token keyword, AstNode value) {
+            this.keyword = keyword;
+            this.value = value;
+        }
+
+        public Token getKeyword() { return keyword; }
+
+        public AstNode getValue() { return value; }
+
+        @Override public Kind getKind() { return Kind.RETURN; }
+        @Override public List<AstNode> getChildren() { return List.of(value); }
+    }
+
+    /** Expresión suelta como sentencia ({@code a + 1 xd}): se evalúa y se descarta. */
+    public static final class ExprStatement extends AstNode {
+        private final AstNode expression;
+
+        public ExprStatement(AstNode expression) { this.expression = expression; }
+
+        public AstNode getExpression() { return expression; }
+
+        @Override public Kind getKind() { return Kind.EXPR_STATEMENT; }
+        @Override public List<AstNode> getChildren() { return List.of(expression); }
+    }
+
+    // -------------------------
+    // Expresiones
+    // -------------------------
+
+    public static final class BinOp extends AstNode {
+        private final Token operator;
+        private final AstNode left;
+        private final AstNode right;
+
+        public BinOp(Token operator, AstNode left, AstNode right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        public Token getOperator() { return operator; }
+
+        public AstNode getLeft() { return left; }
+
+        public AstNode getRight() { return right; }
+
+        @Override public Kind getKind() { return Kind.BIN_OP; }
+        @Override public List<AstNode> getChildren() { return List.of(left, right); }
+    }
+
+    public static final class Var extends AstNode {
+        private final Token name;
+
+        public Var(Token name) { this.name = name; }
+
+        public Token getName() { return name; }
+
+        @Override public Kind getKind() { return Kind.VAR; }
+        @Override public List<AstNode> getChildren() { return List.of(); }
+    }
+
+    public static final class Literal extends AstNode {
+        private final Token value;
+
+        public Literal(Token value) { this.value = value; }
+
+        /** Token {@code INT_VALUE}, {@code FLOAT_VALUE} o {@code CHAR_VALUE}. */
+        public Token getValue() { return value; }
+
+        @Override public Kind getKind() { return Kind.LITERAL; }
+        @Override public List<AstNode> getChildren() { return List.of(); }
+    }
+}
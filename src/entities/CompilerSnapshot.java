@@ -0,0 +1,282 @@
+package entities;
+
+import LexicalAnalyzer.LexicalAnalyzer;
+import LexicalAnalyzer.TokenDFA;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the front end builds before compiling a file: the dictionary, the grammar, the
+ * LL(1) table and the lexer automaton.
+ * <p>
+ * Building them means parsing two JSON files, computing FIRST/FOLLOW, filling the table and
+ * compiling every regex into the DFA. The result is saved as a binary snapshot next to the
+ * dictionary ({@value #FILE_NAME}), keyed by a hash of the content of both JSON files (which are
+ * always decoded as UTF-8, so the same bytes give the same rules on every platform). The next
+ * start maps the snapshot with a single read and only rebuilds (and rewrites it) when either file
+ * has changed or the snapshot cannot be read.
+ */
+public class CompilerSnapshot {
+    public static final String FILE_NAME = "compiler.snapshot";
+    private static final int MAGIC = 0x57535053;   // "WSPS"
+    // 3: the JSON files are decoded as UTF-8; older snapshots may hold rules decoded with the
+    // platform charset, which the content key alone cannot tell apart
+    private static final int VERSION = 3;
+
+    private final Dictionary dictionary;
+    private final Grammar grammar;
+    private final ParserTableBuilder tableBuilder;
+    private final TokenDFA dfa;
+    private final boolean loaded;
+
+    private CompilerSnapshot(Dictionary dictionary, Grammar grammar, ParserTableBuilder tableBuilder,
+                             TokenDFA dfa, boolean loaded) {
+        this.dictionary = dictionary;
+        this.grammar = grammar;
+        this.tableBuilder = tableBuilder;
+        this.dfa = dfa;
+        this.loaded = loaded;
+    }
+
+    /**
+     * Loads the snapshot of the given files, or builds it from the JSON files and saves it.
+     *
+     * @param dictionaryPath The dictionary JSON file.
+     * @param grammarPath    The grammar JSON file.
+     * @return The front end tables, identical whichever way they were obtained.
+     */
+    public static CompilerSnapshot load(String dictionaryPath, String grammarPath) {
+        Path snapshotPath = Paths.get(dictionaryPath).toAbsolutePath().resolveSibling(FILE_NAME);
+        byte[] key;
+        try {
+            key = contentKey(Paths.get(dictionaryPath), Paths.get(grammarPath));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + dictionaryPath + " / " + grammarPath, e);
+        }
+
+        if (Files.isRegularFile(snapshotPath)) {
+            try {
+                CompilerSnapshot snapshot = read(snapshotPath, key);
+                if (snapshot != null) return snapshot;
+            } catch (IOException | RuntimeException e) {
+                // Unreadable or truncated snapshot: fall through and rebuild it
+            }
+        }
+
+        CompilerSnapshot snapshot = build(dictionaryPath, grammarPath);
+        try {
+            snapshot.write(snapshotPath, key);
+        } catch (IOException e) {
+            // A read-only resources folder just means every start builds the tables
+        }
+        return snapshot;
+    }
+
+    /**
+     * Builds the tables from the JSON files, without touching any snapshot.
+     */
+    public static CompilerSnapshot build(String dictionaryPath, String grammarPath) {
+        Dictionary dictionary = new Dictionary(dictionaryPath);
+        Grammar grammar = new Grammar(grammarPath);
+        ParserTableBuilder builder = new ParserTableBuilder(dictionary, grammar);
+        builder.buildParsingTable();
+        return new CompilerSnapshot(dictionary, grammar, builder, LexicalAnalyzer.compileDfa(dictionary), false);
+    }
+
+    public Dictionary getDictionary() { return dictionary; }
+
+    public Grammar getGrammar() { return grammar; }
+
+    /** The builder with its table already filled; there is no need to call {@code buildParsingTable}. */
+    public ParserTableBuilder getTableBuilder() { return tableBuilder; }
+
+    /** The lexer automaton, to be passed to {@link LexicalAnalyzer#LexicalAnalyzer(Dictionary, LexicalAnalyzer.ScanMode, TokenDFA)}. */
+    public TokenDFA getDfa() { return dfa; }
+
+    /** Whether the tables came from the snapshot file rather than from the JSON files. */
+    public boolean isLoaded() { return loaded; }
+
+    /**
+     * Length and 64-bit FNV-1a hash of each file. A cryptographic digest is not needed to notice
+     * an edit, and initializing one costs more than the whole snapshot read on a cold JVM.
+     */
+    private static byte[] contentKey(Path dictionaryPath, Path grammarPath) throws IOException {
+        ByteBuffer key = ByteBuffer.allocate(4 * Long.BYTES);
+        for (Path path : List.of(dictionaryPath, grammarPath)) {
+            byte[] content = Files.readAllBytes(path);
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : content) {
+                hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+            }
+            key.putLong(content.length);
+            key.putLong(hash);
+        }
+        return key.array();
+    }
+
+    // -------------------------
+    // Reading
+    // -------------------------
+    private static CompilerSnapshot read(Path path, byte[] key) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+        byte[] storedKey = new byte[key.length];
+        in.get(storedKey);
+        if (!Arrays.equals(storedKey, key)) return null;
+
+        // Dictionary, in type id order
+        Map<String, String> patterns = new HashMap<>();
+        int typeCount = in.getInt();
+        for (int i = 0; i < typeCount; i++) {
+            patterns.put(readString(in), readString(in));
+        }
+        Dictionary dictionary = new Dictionary(patterns);
+
+        // Grammar
+        Map<String, List<List<String>>> rules = new HashMap<>();
+        Map<String, List<Grammar.Action>> actions = new HashMap<>();
+        int ruleCount = in.getInt();
+        for (int i = 0; i < ruleCount; i++) {
+            String nonTerminal = readString(in);
+            List<List<String>> productions = new ArrayList<>();
+            List<Grammar.Action> productionActions = new ArrayList<>();
+            int productionCount = in.getInt();
+            for (int p = 0; p < productionCount; p++) {
+                List<String> symbols = new ArrayList<>();
+                int length = in.getInt();
+                for (int s = 0; s < length; s++) symbols.add(readString(in));
+                productions.add(symbols);
+                // Action: kind name and target symbol, both empty when there is none
+                String kind = readString(in);
+                String on = readString(in);
+                productionActions.add(kind.isEmpty() ? null : new Grammar.Action(NodeKind.valueOf(kind), on.isEmpty() ? null : on));
+            }
+            rules.put(nonTerminal, productions);
+            actions.put(nonTerminal, productionActions);
+        }
+        Grammar grammar = new Grammar(rules, actions);
+
+        // LL(1) table
+        String[] symbols = new String[in.getInt()];
+        for (int i = 0; i < symbols.length; i++) symbols[i] = readString(in);
+        int endMarker = in.getInt();
+        int epsilon = in.getInt();
+        int firstNonTerminal = in.getInt();
+        int[][] productions = new int[in.getInt()][];
+        int[] productionLhs = new int[productions.length];
+        for (int p = 0; p < productions.length; p++) {
+            productionLhs[p] = in.getInt();
+            productions[p] = readInts(in, in.getInt());
+        }
+        int[][] table = new int[in.getInt()][];
+        int columns = in.getInt();
+        for (int r = 0; r < table.length; r++) table[r] = readInts(in, columns);
+        LL1Table intTable = new LL1Table(symbols, endMarker, epsilon, firstNonTerminal, productions, productionLhs, table);
+
+        TokenDFA dfa = TokenDFA.readFrom(in);
+
+        ParserTableBuilder builder = new ParserTableBuilder(dictionary, grammar, intTable);
+        return new CompilerSnapshot(dictionary, grammar, builder, dfa, true);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) values[i] = in.getInt();
+        return values;
+    }
+
+    // -------------------------
+    // Writing
+    // -------------------------
+    private void write(Path path, byte[] key) throws IOException {
+        // Written to a temporary file first so a concurrent start never maps half a snapshot
+        Path temp = Files.createTempFile(path.getParent(), FILE_NAME, ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(key);
+
+            List<String> types = dictionary.getTokenTypes();
+            out.writeInt(types.size());
+            for (String type : types) {
+                writeString(out, type);
+                writeString(out, dictionary.getTokenPatterns().get(type));
+            }
+
+            Map<String, List<List<String>>> rules = grammar.getGrammarRules();
+            out.writeInt(rules.size());
+            for (Map.Entry<String, List<List<String>>> rule : rules.entrySet()) {
+                writeString(out, rule.getKey());
+                out.writeInt(rule.getValue().size());
+                for (int p = 0; p < rule.getValue().size(); p++) {
+                    List<String> production = rule.getValue().get(p);
+                    out.writeInt(production.size());
+                    for (String symbol : production) writeString(out, symbol);
+                    Grammar.Action action = grammar.getAction(rule.getKey(), p);
+                    writeString(out, action == null ? "" : action.kind().name());
+                    writeString(out, action == null || action.on() == null ? "" : action.on());
+                }
+            }
+
+            LL1Table table = tableBuilder.getIntTable();
+            out.writeInt(table.getSymbolCount());
+            for (int i = 0; i < table.getSymbolCount(); i++) writeString(out, table.getSymbolName(i));
+            out.writeInt(table.getEndMarker());
+            out.writeInt(table.getEpsilon());
+            out.writeInt(table.getFirstNonTerminal());
+            out.writeInt(table.getProductionCount());
+            for (int p = 0; p < table.getProductionCount(); p++) {
+                out.writeInt(table.getProductionLhs(p));
+                int[] production = table.getProduction(p);
+                out.writeInt(production.length);
+                for (int symbol : production) out.writeInt(symbol);
+            }
+            int rows = table.getSymbolCount() - table.getFirstNonTerminal();
+            out.writeInt(rows);
+            out.writeInt(table.getEndMarker() + 1);
+            for (int r = 0; r < rows; r++) {
+                for (int t = 0; t <= table.getEndMarker(); t++) {
+                    out.writeInt(table.predict(table.getFirstNonTerminal() + r, t));
+                }
+            }
+
+            dfa.writeTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,65 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Errores recogidos en una sola pasada cuando el parser y el análisis semántico trabajan en modo
+ * recuperación: en lugar de lanzar una excepción con el primero, cada fase apunta aquí el mismo
+ * mensaje que habría lanzado y sigue adelante.
+ * <p>
+ * Como mucho se guardan {@code limit} errores; con el último la lista queda llena y las fases
+ * paran en cuanto lo ven ({@link #isFull()}).
+ */
+public class Diagnostics {
+
+    public enum Phase { SYNTAX, SEMANTIC }
+
+    /**
+     * @param line    línea del error, o {@code -1} si no se conoce
+     * @param message el mismo texto que lleva la excepción sin recuperación
+     */
+    public record Diagnostic(Phase phase, int line, String message) {
+        @Override
+        public String toString() { return message; }
+    }
+
+    private final int limit;
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+    /**
+     * @param limit número máximo de errores que se guardan (al menos 1)
+     */
+    public Diagnostics(int limit) {
+        if (limit < 1) throw new IllegalArgumentException("El límite de errores tiene que ser al menos 1: " + limit);
+        this.limit = limit;
+    }
+
+    /**
+     * @return {@code false} si la lista ya estaba llena y el error no se ha guardado
+     */
+    public boolean add(Phase phase, int line, String message) {
+        if (isFull()) return false;
+        diagnostics.add(new Diagnostic(phase, line, message));
+        return true;
+    }
+
+    public boolean isFull() { return diagnostics.size() >= limit; }
+
+    public boolean isEmpty() { return diagnostics.isEmpty(); }
+
+    public int size() { return diagnostics.size(); }
+
+    public int getLimit() { return limit; }
+
+    /** Los errores en el orden en que se han encontrado: primero los sintácticos, luego los semánticos. */
+    public List<Diagnostic> getAll() { return Collections.unmodifiableList(diagnostics); }
+
+    public boolean has(Phase phase) {
+        for (Diagnostic d : diagnostics) {
+            if (d.phase() == phase) return true;
+        }
+        return false;
+    }
+}
@@ -1,13 +1,19 @@
 package entities;
 
 import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 
 public class Dictionary {
     private Map<String, String> tokenPatterns;
+    private List<String> tokenTypes;
+    private Map<String, Integer> typeIds;
 
     /**
      * Constructor that initializes the dictionary with token patterns from a JSON file.
@@ -19,7 +25,7 @@ public class Dictionary {
 
         try {
             JSONParser parser = new JSONParser();
-            JSONObject jsonObject = (JSONObject) parser.parse(new FileReader(filePath));
+            JSONObject jsonObject = (JSONObject) parser.parse(new FileReader(filePath, StandardCharsets.UTF_8));
 
             for (Object key : jsonObject.keySet()) {
                 String tokenType = (String) key;
@@ -29,6 +35,31 @@ public class Dictionary {
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        assignTypeIds();
+    }
+
+    /**
+     * Constructor that takes the token patterns directly, e.g. when they come from a snapshot.
+     *
+     * @param tokenPatterns Token type / regex pairs.
+     */
+    Dictionary(Map<String, String> tokenPatterns) {
+        this.tokenPatterns = new HashMap<>(tokenPatterns);
+        assignTypeIds();
+    }
+
+    /**
+     * Gives every token type a dense id, in alphabetical order so ids are stable between runs.
+     */
+    private void assignTypeIds() {
+        List<String> types = new ArrayList<>(tokenPatterns.keySet());
+        Collections.sort(types);
+        tokenTypes = Collections.unmodifiableList(types);
+        typeIds = new HashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            typeIds.put(types.get(i), i);
+        }
     }
 
     /**
@@ -39,4 +70,48 @@ public class Dictionary {
     public Map<String, String> getTokenPatterns() {
         return tokenPatterns;
     }
+
+    /**
+     * Returns the token types ordered by id.
+     *
+     * @return The list of token types, where the index of each type is its id.
+     */
+    public List<String> getTokenTypes() {
+        return tokenTypes;
+    }
+
+    /**
+     * Returns the dense id of a token type.
+     *
+     * @param tokenType The token type.
+     * @return The id of the type, or -1 if the dictionary does not define it.
+     */
+    public int getTypeId(String tokenType) {
+        return typeIds.getOrDefault(tokenType, -1);
+    }
+
+    /**
+     * Returns the only lexeme a token type can have, when its regex is a plain (possibly escaped) literal.
+     *
+     * @param tokenType The token type.
+     * @return The fixed lexeme, or null if the regex can match more than one string.
+     */
+    public String getLiteral(String tokenType) {
+        String regex = tokenPatterns.get(tokenType);
+        if (regex == null) return null;
+
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (++i >= regex.length() || Character.isLetterOrDigit(regex.charAt(i))) return null;
+                literal.append(regex.charAt(i));
+            } else if ("[](){}.*+?|^$".indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.toString();
+    }
 }
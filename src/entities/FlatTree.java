@@ -0,0 +1,190 @@
+package entities;
+
+import java.util.Arrays;
+
+/**
+ * Árbol de parseo guardado en arrays de enteros en lugar de un {@link Node} por nodo: por cada
+ * nodo, el id de su símbolo en la {@link LL1Table}, el índice de su token, su primer hijo, su
+ * siguiente hermano, su padre y su {@link NodeKind}.
+ * <p>
+ * Los nodos se añaden en preorden ({@link #add}), así que el id de cada nodo es su posición en
+ * un recorrido en profundidad: el primer hijo de un nodo es siempre el siguiente id y recorrer el
+ * árbol entero es leer los arrays de principio a fin. Para moverse por el árbol está
+ * {@link Cursor}; {@link #toNode()} lo convierte al árbol de objetos para las fases que aún lo
+ * usan.
+ */
+public class FlatTree {
+    public static final int NONE = -1;
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    private final LL1Table table;
+    private int[] symbol;
+    private int[] token;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] parent;
+    private byte[] kind;
+    // Último hijo añadido de cada nodo, solo mientras se construye
+    private int[] lastChild;
+    private int size;
+
+    private Token[] tokens;
+    private int tokenCount;
+
+    /**
+     * @param capacity número de nodos previsto (los arrays crecen si hace falta)
+     */
+    public FlatTree(LL1Table table, int capacity) {
+        this.table = table;
+        int n = Math.max(capacity, 16);
+        symbol = new int[n];
+        token = new int[n];
+        firstChild = new int[n];
+        nextSibling = new int[n];
+        parent = new int[n];
+        kind = new byte[n];
+        lastChild = new int[n];
+        tokens = new Token[Math.max(n / 4, 16)];
+    }
+
+    /**
+     * Añade un nodo. Hay que llamarlo en preorden: el padre ya tiene que estar y todos los nodos
+     * de los subárboles de sus hijos anteriores también.
+     *
+     * @param parentNode id del padre, o {@link #NONE} para la raíz
+     * @param symbolId   id del símbolo en la {@link LL1Table}
+     * @return el id del nodo nuevo
+     */
+    public int add(int parentNode, int symbolId) {
+        if (lastChild == null) throw new IllegalStateException("El árbol ya está cerrado");
+        if (size == symbol.length) grow();
+        int node = size++;
+        symbol[node] = symbolId;
+        token[node] = NONE;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        lastChild[node] = NONE;
+        parent[node] = parentNode;
+        kind[node] = (byte) NodeKind.OTHER.ordinal();
+        if (parentNode != NONE) {
+            if (firstChild[parentNode] == NONE) firstChild[parentNode] = node;
+            else nextSibling[lastChild[parentNode]] = node;
+            lastChild[parentNode] = node;
+        }
+        return node;
+    }
+
+    public void setToken(int node, Token value) {
+        if (tokenCount == tokens.length) tokens = Arrays.copyOf(tokens, tokenCount * 2);
+        tokens[tokenCount] = value;
+        token[node] = tokenCount++;
+    }
+
+    public void setKind(int node, NodeKind value) { kind[node] = (byte) value.ordinal(); }
+
+    /**
+     * Ajusta los arrays al tamaño final y libera lo que solo servía para construir.
+     */
+    public void close() {
+        symbol = Arrays.copyOf(symbol, size);
+        token = Arrays.copyOf(token, size);
+        firstChild = Arrays.copyOf(firstChild, size);
+        nextSibling = Arrays.copyOf(nextSibling, size);
+        parent = Arrays.copyOf(parent, size);
+        kind = Arrays.copyOf(kind, size);
+        tokens = Arrays.copyOf(tokens, tokenCount);
+        lastChild = null;
+    }
+
+    private void grow() {
+        int n = symbol.length * 2;
+        symbol = Arrays.copyOf(symbol, n);
+        token = Arrays.copyOf(token, n);
+        firstChild = Arrays.copyOf(firstChild, n);
+        nextSibling = Arrays.copyOf(nextSibling, n);
+        parent = Arrays.copyOf(parent, n);
+        kind = Arrays.copyOf(kind, n);
+        lastChild = Arrays.copyOf(lastChild, n);
+    }
+
+    public int size() { return size; }
+
+    public int getRoot() { return size > 0 ? 0 : NONE; }
+
+    public int getSymbolId(int node) { return symbol[node]; }
+
+    /** Mismo nombre que {@link Node#getSymbol()}: el del no terminal o el tipo del token. */
+    public String getSymbol(int node) { return table.getSymbolName(symbol[node]); }
+
+    /** @return el token reconocido, o {@code null} si es un no terminal o ε */
+    public Token getToken(int node) { return token[node] == NONE ? null : tokens[token[node]]; }
+
+    /** @return índice del token en orden de aparición, o {@link #NONE} */
+    public int getTokenIndex(int node) { return token[node]; }
+
+    public int getFirstChild(int node) { return firstChild[node]; }
+
+    public int getNextSibling(int node) { return nextSibling[node]; }
+
+    public int getParent(int node) { return parent[node]; }
+
+    public NodeKind getKind(int node) { return KINDS[kind[node]]; }
+
+    public LL1Table getTable() { return table; }
+
+    public Cursor cursor() { return new Cursor(getRoot()); }
+
+    /**
+     * Convierte el árbol en {@link Node}s. Como los ids están en preorden, cada padre se crea
+     * antes que sus hijos y los hermanos llegan en orden.
+     */
+    public Node toNode() {
+        if (size == 0) return null;
+        Node[] nodes = new Node[size];
+        for (int n = 0; n < size; n++) {
+            nodes[n] = new Node(getSymbol(n));
+            Token t = getToken(n);
+            if (t != null) nodes[n].setToken(t);
+            nodes[n].setKind(getKind(n));
+            if (parent[n] != NONE) nodes[parent[n]].addChild(nodes[n]);
+        }
+        return nodes[0];
+    }
+
+    /**
+     * Posición dentro del árbol. Los métodos {@code goto...} devuelven {@code false} y no se
+     * mueven si no existe el nodo destino.
+     */
+    public final class Cursor {
+        private int node;
+
+        private Cursor(int node) { this.node = node; }
+
+        public int getNode() { return node; }
+
+        public int getSymbolId() { return symbol[node]; }
+
+        public String getSymbol() { return FlatTree.this.getSymbol(node); }
+
+        public Token getToken() { return FlatTree.this.getToken(node); }
+
+        public NodeKind getKind() { return FlatTree.this.getKind(node); }
+
+        public boolean gotoFirstChild() { return moveTo(firstChild[node]); }
+
+        public boolean gotoNextSibling() { return moveTo(nextSibling[node]); }
+
+        public boolean gotoParent() { return moveTo(parent[node]); }
+
+        /** Siguiente nodo en preorden, es decir, el siguiente id. */
+        public boolean gotoNext() { return moveTo(node + 1 < size ? node + 1 : NONE); }
+
+        public void reset(int target) { node = target; }
+
+        private boolean moveTo(int target) {
+            if (target == NONE) return false;
+            node = target;
+            return true;
+        }
+    }
+}
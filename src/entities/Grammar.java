@@ -1,6 +1,7 @@
 package entities;
 
 import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
@@ -12,18 +13,32 @@ import org.json.simple.parser.JSONParser;
 public class Grammar {
     // Estructura: NoTerminal -> Lista de producciones -> Producción (lista de símbolos)
     private Map<String, List<List<String>>> grammarRules;
+    // NoTerminal -> acción de cada producción, en el mismo orden (null si no tiene)
+    private Map<String, List<Action>> actions;
+
+    /**
+     * Marca que el parser pone al aplicar una producción: el nodo del no terminal, o el ancestro
+     * más cercano con el símbolo {@code on}, pasa a ser de tipo {@code kind}.
+     *
+     * @param on símbolo del nodo a marcar, o {@code null} para el propio no terminal
+     */
+    public record Action(NodeKind kind, String on) {}
 
     /**
      * Constructor que parsea la gramática a partir de un archivo JSON.
+     * <p>
+     * Cada producción es una lista de símbolos o, si lleva acción, un objeto
+     * {@code {"symbols": [...], "kind": "FUNCTION", "on": "<UNIT>"}} ({@code on} es opcional).
      *
      * @param filePath La ruta al archivo JSON que contiene la gramática.
      */
     public Grammar(String filePath) {
         grammarRules = new HashMap<>();
+        actions = new HashMap<>();
 
         try {
             JSONParser parser = new JSONParser();
-            JSONObject jsonObject = (JSONObject) parser.parse(new FileReader(filePath));
+            JSONObject jsonObject = (JSONObject) parser.parse(new FileReader(filePath, StandardCharsets.UTF_8));
 
             for (Object key : jsonObject.keySet()) {
                 String nonTerminal = (String) key;
@@ -32,10 +47,18 @@ public class Grammar {
                 JSONArray productionsArray = (JSONArray) jsonObject.get(nonTerminal);
 
                 List<List<String>> listOfProductions = new ArrayList<>();
+                List<Action> listOfActions = new ArrayList<>();
 
                 // Recorremos cada producción
                 for (Object productionObj : productionsArray) {
-                    JSONArray productionArray = (JSONArray) productionObj;
+                    JSONArray productionArray;
+                    if (productionObj instanceof JSONObject annotated) {
+                        productionArray = (JSONArray) annotated.get("symbols");
+                        listOfActions.add(parseAction(nonTerminal, annotated));
+                    } else {
+                        productionArray = (JSONArray) productionObj;
+                        listOfActions.add(null);
+                    }
                     List<String> productionSymbols = new ArrayList<>();
 
                     for (Object symbol : productionArray) {
@@ -46,12 +69,46 @@ public class Grammar {
 
 
                 grammarRules.put(nonTerminal, listOfProductions);
+                actions.put(nonTerminal, listOfActions);
             }
+        } catch (ActionError e) {
+            // Una gramática con acciones a medias fallaría más tarde con un error sin relación
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private static Action parseAction(String nonTerminal, JSONObject annotated) {
+        String kind = (String) annotated.get("kind");
+        if (kind == null) return null;
+        try {
+            return new Action(NodeKind.valueOf(kind), (String) annotated.get("on"));
+        } catch (IllegalArgumentException e) {
+            throw new ActionError("Tipo de nodo desconocido en " + nonTerminal + ": " + kind);
+        }
+    }
+
+    /** Acción mal escrita en la gramática; no se ignora como el resto de errores de lectura. */
+    private static final class ActionError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ActionError(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Constructor que recibe las reglas ya leídas, por ejemplo desde un snapshot.
+     *
+     * @param grammarRules No terminal -> lista de producciones.
+     * @param actions      No terminal -> acción de cada producción ({@code null} si no tiene).
+     */
+    Grammar(Map<String, List<List<String>>> grammarRules, Map<String, List<Action>> actions) {
+        this.grammarRules = new HashMap<>(grammarRules);
+        this.actions = new HashMap<>(actions);
+    }
+
     /**
      * Retorna las reglas de la gramática.
      *
@@ -62,4 +119,14 @@ public class Grammar {
     public Map<String, List<List<String>>> getGrammarRules() {
         return grammarRules;
     }
+
+    /**
+     * @param nonTerminal no terminal de la producción
+     * @param production  posición de la producción en su lista
+     * @return la acción de la producción, o {@code null} si no tiene
+     */
+    public Action getAction(String nonTerminal, int production) {
+        List<Action> list = actions.get(nonTerminal);
+        return list == null || production >= list.size() ? null : list.get(production);
+    }
 }
@@ -0,0 +1,297 @@
+package entities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cálculo de FIRST y FOLLOW con conjuntos de bits ({@code long[]} indexados por id de terminal)
+ * y listas de trabajo guiadas por dependencias, en lugar de recorrer todas las producciones
+ * hasta que nada cambie.
+ * <p>
+ * Los terminales son todos los símbolos de la gramática que no son no terminales, más {@code ε}
+ * (bit 0) y {@code $} (bit 1). Se respeta exactamente la semántica de los algoritmos con
+ * {@code HashSet} de {@link ParserTableBuilder}: el símbolo {@code ε} escrito en una producción
+ * se trata como un terminal en FIRST y FOLLOW, y como vacío en FIRST de una secuencia.
+ */
+class GrammarBitsets {
+    static final int EPSILON_BIT = 0;
+    static final int END_BIT = 1;
+
+    final List<String> nonTerminals;
+    final Map<String, Integer> ntIndex = new HashMap<>();
+    final List<String> terminals = new ArrayList<>();
+    final Map<String, Integer> tIndex = new HashMap<>();
+    final int words;
+
+    // Producciones codificadas: terminal t -> t, no terminal n -> terminals.size() + n
+    final int[][][] productions;
+
+    long[][] first;
+    long[][] follow;
+
+    GrammarBitsets(Map<String, List<List<String>>> grammarRules, String epsilon, String endMarker) {
+        nonTerminals = new ArrayList<>(grammarRules.keySet());
+        for (int i = 0; i < nonTerminals.size(); i++) ntIndex.put(nonTerminals.get(i), i);
+
+        addTerminal(epsilon);
+        addTerminal(endMarker);
+        for (String nt : nonTerminals) {
+            for (List<String> production : grammarRules.get(nt)) {
+                for (String symbol : production) {
+                    if (!ntIndex.containsKey(symbol)) addTerminal(symbol);
+                }
+            }
+        }
+        words = (terminals.size() + 63) >>> 6;
+
+        int base = terminals.size();
+        productions = new int[nonTerminals.size()][][];
+        for (int n = 0; n < nonTerminals.size(); n++) {
+            List<List<String>> rules = grammarRules.get(nonTerminals.get(n));
+            productions[n] = new int[rules.size()][];
+            for (int p = 0; p < rules.size(); p++) {
+                productions[n][p] = rules.get(p).stream()
+                        .mapToInt(s -> ntIndex.containsKey(s) ? base + ntIndex.get(s) : tIndex.get(s))
+                        .toArray();
+            }
+        }
+    }
+
+    private void addTerminal(String symbol) {
+        if (tIndex.putIfAbsent(symbol, terminals.size()) == null) terminals.add(symbol);
+    }
+
+    boolean isNonTerminal(int symbol) {
+        return symbol >= terminals.size();
+    }
+
+    // -------------------------
+    // FIRST
+    // -------------------------
+
+    /**
+     * FIRST de cada no terminal. Cada no terminal se recalcula solo cuando cambia el FIRST de
+     * alguno de los no terminales que aparecen en sus producciones.
+     */
+    void computeFirst() {
+        int count = nonTerminals.size();
+        first = new long[count][words];
+
+        // Quién usa a quién: si cambia FIRST(B), hay que revisar cada A con B en una producción
+        List<Set<Integer>> users = new ArrayList<>();
+        for (int n = 0; n < count; n++) users.add(new HashSet<>());
+        for (int n = 0; n < count; n++) {
+            for (int[] production : productions[n]) {
+                for (int symbol : production) {
+                    if (isNonTerminal(symbol)) users.get(symbol - terminals.size()).add(n);
+                }
+            }
+        }
+
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        boolean[] queued = new boolean[count];
+        for (int n = 0; n < count; n++) {
+            worklist.add(n);
+            queued[n] = true;
+        }
+
+        long[] next = new long[words];
+        while (!worklist.isEmpty()) {
+            int n = worklist.poll();
+            queued[n] = false;
+
+            System.arraycopy(first[n], 0, next, 0, words);
+            for (int[] production : productions[n]) {
+                boolean allEpsilon = true;
+                for (int symbol : production) {
+                    if (isNonTerminal(symbol)) {
+                        long[] f = first[symbol - terminals.size()];
+                        orWithoutEpsilon(next, f);
+                        if (!has(f, EPSILON_BIT)) {
+                            allEpsilon = false;
+                            break;
+                        }
+                    } else {
+                        set(next, symbol);
+                        allEpsilon = false;
+                        break;
+                    }
+                }
+                if (allEpsilon) set(next, EPSILON_BIT);
+            }
+
+            if (!Arrays.equals(next, first[n])) {
+                System.arraycopy(next, 0, first[n], 0, words);
+                for (int user : users.get(n)) {
+                    if (!queued[user]) {
+                        queued[user] = true;
+                        worklist.add(user);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Carga FIRST desde conjuntos ya calculados (para la API con mapas).
+     */
+    void setFirst(Map<String, Set<String>> firstSets) {
+        first = new long[nonTerminals.size()][words];
+        for (int n = 0; n < nonTerminals.size(); n++) {
+            for (String t : firstSets.get(nonTerminals.get(n))) {
+                Integer bit = tIndex.get(t);
+                if (bit == null) throw new IllegalArgumentException("Símbolo desconocido en FIRST: " + t);
+                set(first[n], bit);
+            }
+        }
+    }
+
+    // -------------------------
+    // FOLLOW
+    // -------------------------
+
+    /**
+     * FOLLOW de cada no terminal. Para cada aparición de B en A -> α B β, FIRST(β) sin ε va
+     * directamente a FOLLOW(B) y, si β puede ser vacío, queda la arista FOLLOW(A) ⊆ FOLLOW(B);
+     * luego solo se propagan los cambios por esas aristas.
+     */
+    void computeFollow(String startSymbol) {
+        int count = nonTerminals.size();
+        follow = new long[count][words];
+        set(follow[ntIndex.get(startSymbol)], END_BIT);
+
+        List<Set<Integer>> edges = new ArrayList<>();
+        for (int n = 0; n < count; n++) edges.add(new HashSet<>());
+
+        long[] trailer = new long[words];
+        for (int a = 0; a < count; a++) {
+            for (int[] production : productions[a]) {
+                // Recorrido de derecha a izquierda: trailer = FIRST(β) sin ε; tailNullable = β ⇒* ε
+                Arrays.fill(trailer, 0);
+                boolean tailNullable = true;
+                for (int i = production.length - 1; i >= 0; i--) {
+                    int symbol = production[i];
+                    if (isNonTerminal(symbol)) {
+                        int b = symbol - terminals.size();
+                        or(follow[b], trailer);
+                        if (tailNullable) edges.get(a).add(b);
+
+                        long[] f = first[b];
+                        if (has(f, EPSILON_BIT)) {
+                            orWithoutEpsilon(trailer, f);
+                        } else {
+                            System.arraycopy(f, 0, trailer, 0, words);
+                            clear(trailer, EPSILON_BIT);
+                            tailNullable = false;
+                        }
+                    } else {
+                        Arrays.fill(trailer, 0);
+                        set(trailer, symbol);
+                        tailNullable = false;
+                    }
+                }
+            }
+        }
+
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        boolean[] queued = new boolean[count];
+        for (int n = 0; n < count; n++) {
+            worklist.add(n);
+            queued[n] = true;
+        }
+        while (!worklist.isEmpty()) {
+            int a = worklist.poll();
+            queued[a] = false;
+            for (int b : edges.get(a)) {
+                if (or(follow[b], follow[a]) && !queued[b]) {
+                    queued[b] = true;
+                    worklist.add(b);
+                }
+            }
+        }
+    }
+
+    // -------------------------
+    // FIRST de una secuencia
+    // -------------------------
+
+    /**
+     * FIRST de una secuencia de símbolos. Aquí el símbolo ε escrito en la producción no aporta
+     * nada y se puede saltar, igual que en el algoritmo original.
+     */
+    long[] firstOfSequence(int[] symbols) {
+        long[] result = new long[words];
+        for (int symbol : symbols) {
+            if (isNonTerminal(symbol)) {
+                long[] f = first[symbol - terminals.size()];
+                orWithoutEpsilon(result, f);
+                if (!has(f, EPSILON_BIT)) return result;
+            } else if (symbol != EPSILON_BIT) {
+                set(result, symbol);
+                return result;
+            }
+        }
+        set(result, EPSILON_BIT);
+        return result;
+    }
+
+    /** Pasa un conjunto de bits a nombres de terminal. */
+    Set<String> toSet(long[] bits) {
+        Set<String> result = new HashSet<>();
+        for (int t = nextBit(bits, 0); t >= 0; t = nextBit(bits, t + 1)) result.add(terminals.get(t));
+        return result;
+    }
+
+    // -------------------------
+    // Operaciones sobre bits
+    // -------------------------
+    static boolean has(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    static void clear(long[] bits, int i) {
+        bits[i >>> 6] &= ~(1L << i);
+    }
+
+    /** target |= source; devuelve si target ha cambiado. */
+    static boolean or(long[] target, long[] source) {
+        boolean changed = false;
+        for (int w = 0; w < target.length; w++) {
+            long merged = target[w] | source[w];
+            if (merged != target[w]) {
+                target[w] = merged;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /** target |= source \ {ε}. */
+    static void orWithoutEpsilon(long[] target, long[] source) {
+        long epsilonMask = 1L << EPSILON_BIT;
+        target[0] |= source[0] & ~epsilonMask;
+        for (int w = 1; w < target.length; w++) target[w] |= source[w];
+    }
+
+    /** Siguiente bit a 1 desde {@code from}, o -1. */
+    static int nextBit(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) return -1;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == bits.length) return -1;
+            word = bits[w];
+        }
+    }
+}
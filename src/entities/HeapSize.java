@@ -0,0 +1,49 @@
+package entities;
+
+/**
+ * Shallow heap sizes for the layout of a 64-bit HotSpot JVM with compressed references (the default
+ * below 32 GB of heap): 12-byte object headers, 16-byte array headers, 4-byte references, and every
+ * object rounded up to 8 bytes.
+ * <p>
+ * Benchmarks use these sizes to count what a structure retains object by object. That result does
+ * not depend on when the collector last ran, unlike a heap delta.
+ */
+public final class HeapSize {
+    public static final int REFERENCE = 4;
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+
+    private HeapSize() {}
+
+    /**
+     * Size of an object whose own fields take {@code fieldBytes}.
+     */
+    public static long object(int fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * Size of an array of {@code length} elements of {@code elementBytes} each.
+     */
+    public static long array(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    /**
+     * Size of a String and its value array. With compact strings the array holds one byte per char
+     * when every char fits in Latin-1, and two otherwise.
+     */
+    public static long string(CharSequence text) {
+        boolean latin1 = true;
+        for (int i = 0; i < text.length() && latin1; i++) {
+            latin1 = text.charAt(i) <= 0xFF;
+        }
+        // value, hash, coder, hashIsZero
+        return object(REFERENCE + Integer.BYTES + 2) + array(text.length(), latin1 ? 1 : 2);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
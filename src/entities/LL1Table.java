@@ -0,0 +1,177 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versión compacta de la tabla LL(1): cada símbolo de la gramática tiene un id entero denso y la
+ * tabla es un {@code int[][]} de índices de producción.
+ * <p>
+ * Reparto de ids:
+ * <ul>
+ *     <li>{@code 0 .. T-1}: los terminales, con el mismo id que les da el {@link Dictionary}
+ *     (así el id de un {@link Token} sirve directamente de columna).</li>
+ *     <li>{@code T}: el marcador de fin {@code $}; {@code T+1}: {@code ε}.</li>
+ *     <li>Después, los terminales de la gramática que no están en el diccionario (no pueden
+ *     llegar del lexer) y por último los no terminales, en orden alfabético.</li>
+ * </ul>
+ * Un símbolo es terminal si su id es menor que el del primer no terminal.
+ */
+public class LL1Table {
+    public static final int NO_PRODUCTION = -1;
+
+    private final String[] symbols;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final int endMarker;
+    private final int epsilon;
+    private final int firstNonTerminal;
+
+    private final int[][] productions;
+    private final int[] productionLhs;
+    // [no terminal - firstNonTerminal][terminal 0..T] -> índice de producción
+    private final int[][] table;
+    // Acción de cada producción (Grammar.Action): tipo de nodo y símbolo del nodo a marcar
+    private NodeKind[] productionKind;
+    private int[] productionKindTarget;
+
+    /**
+     * Construye la tabla entera a partir de la tabla de mapas ya calculada, sin volver a
+     * decidir nada: cada celda apunta a la misma producción que la celda del mapa.
+     */
+    LL1Table(Dictionary dictionary, Map<String, List<List<String>>> grammarRules,
+             Map<String, Map<String, List<String>>> parsingTable, String endMarkerName, String epsilonName) {
+        List<String> names = new ArrayList<>(dictionary.getTokenTypes());
+        endMarker = names.size();
+        names.add(endMarkerName);
+        epsilon = names.size();
+        names.add(epsilonName);
+        for (int i = 0; i < names.size(); i++) symbolIds.put(names.get(i), i);
+
+        List<String> nonTerminals = new ArrayList<>(grammarRules.keySet());
+        nonTerminals.sort(null);
+        for (String nt : nonTerminals) {
+            for (List<String> production : grammarRules.get(nt)) {
+                for (String symbol : production) {
+                    if (!grammarRules.containsKey(symbol) && !symbolIds.containsKey(symbol)) {
+                        symbolIds.put(symbol, names.size());
+                        names.add(symbol);
+                    }
+                }
+            }
+        }
+        firstNonTerminal = names.size();
+        names.addAll(nonTerminals);
+
+        symbols = names.toArray(new String[0]);
+        for (int i = firstNonTerminal; i < symbols.length; i++) symbolIds.put(symbols[i], i);
+
+        // Producciones numeradas por no terminal y en el orden de la gramática
+        Map<List<String>, Integer> productionIndex = new IdentityHashMap<>();
+        List<int[]> productionList = new ArrayList<>();
+        List<Integer> lhsList = new ArrayList<>();
+        for (String nt : nonTerminals) {
+            for (List<String> production : grammarRules.get(nt)) {
+                productionIndex.put(production, productionList.size());
+                productionList.add(production.stream().mapToInt(symbolIds::get).toArray());
+                lhsList.add(symbolIds.get(nt));
+            }
+        }
+        productions = productionList.toArray(new int[0][]);
+        productionLhs = lhsList.stream().mapToInt(Integer::intValue).toArray();
+
+        table = new int[nonTerminals.size()][endMarker + 1];
+        for (String nt : nonTerminals) {
+            int[] row = table[symbolIds.get(nt) - firstNonTerminal];
+            Arrays.fill(row, NO_PRODUCTION);
+            for (Map.Entry<String, List<String>> cell : parsingTable.get(nt).entrySet()) {
+                row[symbolIds.get(cell.getKey())] = productionIndex.get(cell.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reconstruye una tabla ya calculada (la lee {@link CompilerSnapshot}).
+     */
+    LL1Table(String[] symbols, int endMarker, int epsilon, int firstNonTerminal,
+             int[][] productions, int[] productionLhs, int[][] table) {
+        this.symbols = symbols;
+        for (int i = 0; i < symbols.length; i++) symbolIds.put(symbols[i], i);
+        this.endMarker = endMarker;
+        this.epsilon = epsilon;
+        this.firstNonTerminal = firstNonTerminal;
+        this.productions = productions;
+        this.productionLhs = productionLhs;
+        this.table = table;
+    }
+
+    /**
+     * Copia las acciones de la gramática, numerando las producciones igual que los constructores:
+     * por no terminal en orden alfabético y en el orden de la gramática.
+     */
+    void setActions(Grammar grammar) {
+        productionKind = new NodeKind[productions.length];
+        productionKindTarget = new int[productions.length];
+        Map<String, List<List<String>>> grammarRules = grammar.getGrammarRules();
+        List<String> nonTerminals = new ArrayList<>(grammarRules.keySet());
+        nonTerminals.sort(null);
+        int p = 0;
+        for (String nt : nonTerminals) {
+            for (int i = 0; i < grammarRules.get(nt).size(); i++, p++) {
+                Grammar.Action action = grammar.getAction(nt, i);
+                if (action == null) continue;
+                int target = action.on() == null ? productionLhs[p] : getSymbolId(action.on());
+                if (target < 0 || isTerminal(target)) {
+                    throw new RuntimeException("La acción de " + nt + " marca un símbolo que no es un no terminal: " + action.on());
+                }
+                productionKind[p] = action.kind();
+                productionKindTarget[p] = target;
+            }
+        }
+    }
+
+    /**
+     * Devuelve la producción a aplicar.
+     *
+     * @param nonTerminal id del no terminal de la cima de la pila
+     * @param terminal    id del terminal de lookahead (o {@code $})
+     * @return índice de la producción, o {@link #NO_PRODUCTION}
+     */
+    public int predict(int nonTerminal, int terminal) {
+        return table[nonTerminal - firstNonTerminal][terminal];
+    }
+
+    public int[] getProduction(int index) { return productions[index]; }
+
+    public int getProductionLhs(int index) { return productionLhs[index]; }
+
+    public int getProductionCount() { return productions.length; }
+
+    /** @return el tipo que la producción pone a un nodo, o {@code null} si no tiene acción */
+    public NodeKind getProductionKind(int index) { return productionKind == null ? null : productionKind[index]; }
+
+    /** @return id del símbolo del nodo que marca la producción: su propio no terminal o un ancestro */
+    public int getProductionKindTarget(int index) { return productionKindTarget[index]; }
+
+    public boolean isTerminal(int symbol) { return symbol < firstNonTerminal; }
+
+    public int getEndMarker() { return endMarker; }
+
+    public int getEpsilon() { return epsilon; }
+
+    public int getSymbolCount() { return symbols.length; }
+
+    int getFirstNonTerminal() { return firstNonTerminal; }
+
+    public String getSymbolName(int symbol) { return symbols[symbol]; }
+
+    /**
+     * @return id del símbolo, o -1 si la gramática y el diccionario no lo conocen
+     */
+    public int getSymbolId(String name) {
+        return symbolIds.getOrDefault(name, -1);
+    }
+}
@@ -0,0 +1,161 @@
+package entities;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Intern pool for lexemes: every distinct spelling is stored once and gets a dense id.
+ * <p>
+ * Lookups take a slice of the source (chars or UTF-8 bytes), so an identifier that was already
+ * seen costs no allocation at all. Since every occurrence of a name shares one String instance,
+ * later phases that key maps by name hit the {@code ==} fast path of {@link String#equals} and the
+ * cached hash code, and they can also use {@link #getId} to work with ints instead.
+ * <p>
+ * A pool is not thread-safe; every lexer (and every token buffer) owns its own.
+ */
+public class LexemePool {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private String[] lexemes = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /** Open addressing table of id + 1, 0 meaning empty. Always at most half full. */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Interns the characters {@code [from, to)} of a text.
+     *
+     * @return The id of the lexeme.
+     */
+    public int intern(CharSequence text, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) hash = 31 * hash + text.charAt(i);
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return add(text.subSequence(from, to).toString(), hash, slot);
+            if (hashes[id] == hash && sameChars(lexemes[id], text, from, to)) return id;
+        }
+    }
+
+    /**
+     * Interns a whole String.
+     *
+     * @return The id of the lexeme.
+     */
+    public int intern(String text) {
+        return intern(text, 0, text.length());
+    }
+
+    /**
+     * Interns {@code length} UTF-8 bytes of a buffer. ASCII lexemes are compared byte by byte
+     * without decoding; anything else is decoded first.
+     *
+     * @return The id of the lexeme.
+     */
+    public int intern(ByteBuffer bytes, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            byte b = bytes.get(i);
+            if (b < 0) return intern(StandardCharsets.UTF_8.decode(bytes.slice(start, length)).toString());
+            hash = 31 * hash + b;
+        }
+
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return add(new String(asciiBytes(bytes, start, length), StandardCharsets.ISO_8859_1), hash, slot);
+            if (hashes[id] == hash && sameBytes(lexemes[id], bytes, start, length)) return id;
+        }
+    }
+
+    /** Returns the shared String of a lexeme id. */
+    public String get(int id) {
+        return lexemes[id];
+    }
+
+    /**
+     * Returns the id of a lexeme without adding it.
+     *
+     * @return The id, or -1 if the lexeme was never interned.
+     */
+    public int getId(String text) {
+        int hash = text.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return -1;
+            if (hashes[id] == hash && lexemes[id].equals(text)) return id;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Heap bytes held by the pool: its tables plus every interned String, counted with {@link HeapSize}.
+     */
+    public long retainedBytes() {
+        long bytes = HeapSize.array(lexemes.length, HeapSize.REFERENCE)
+                + HeapSize.array(hashes.length, Integer.BYTES)
+                + HeapSize.array(slots.length, Integer.BYTES);
+        for (int id = 0; id < size; id++) {
+            bytes += HeapSize.string(lexemes[id]);
+        }
+        return bytes;
+    }
+
+    private int add(String lexeme, int hash, int slot) {
+        if (size == lexemes.length) {
+            lexemes = Arrays.copyOf(lexemes, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        lexemes[size] = lexeme;
+        hashes[size] = hash;
+        slots[slot] = size + 1;
+        size++;
+
+        if (size * 2 > slots.length) rehash();
+        return size - 1;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean sameChars(String lexeme, CharSequence text, int from, int to) {
+        if (lexeme.length() != to - from) return false;
+        for (int i = 0; i < lexeme.length(); i++) {
+            if (lexeme.charAt(i) != text.charAt(from + i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean sameBytes(String lexeme, ByteBuffer bytes, int start, int length) {
+        if (lexeme.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (lexeme.charAt(i) != bytes.get(start + i)) return false;
+        }
+        return true;
+    }
+
+    private static byte[] asciiBytes(ByteBuffer bytes, int start, int length) {
+        byte[] copy = new byte[length];
+        bytes.get(start, copy);
+        return copy;
+    }
+}
@@ -8,6 +8,14 @@ public class Node {
     private Token token;
     private final List<Node> children;
     private Node parent;
+    // El parser en modo recuperación lo ha dejado a medias (faltan hijos o el token)
+    private boolean incomplete;
+    // Lo apunta el parser según las marcas "kind" de la gramática
+    private NodeKind kind = NodeKind.OTHER;
+    // Código de Types que le pone el análisis semántico a las expresiones, una sola vez, y el
+    // análisis que lo puso: para otro análisis el nodo sigue sin tipo
+    private int type = Types.UNTYPED;
+    private int typeEpoch;
 
 
     public Node(String symbol) {
@@ -43,6 +51,25 @@ public class Node {
 
     public void setParent(Node parent) { this.parent = parent; }
 
+    public NodeKind getKind() { return kind; }
+
+    public void setKind(NodeKind kind) { this.kind = kind; }
+
+    /** Tipo de la expresión según el último análisis semántico, o {@link Types#UNTYPED}. */
+    public int getTypeCode() { return type; }
+
+    /** Tipo que le ha puesto el análisis {@code epoch}, o {@link Types#UNTYPED} si ha sido otro. */
+    public int getTypeCode(int epoch) { return typeEpoch == epoch ? type : Types.UNTYPED; }
+
+    public void setTypeCode(int type, int epoch) {
+        this.type = type;
+        this.typeEpoch = epoch;
+    }
+
+    public boolean isIncomplete() { return incomplete; }
+
+    public void setIncomplete(boolean incomplete) { this.incomplete = incomplete; }
+
     @Override
     public String toString() {
         if (token != null) {
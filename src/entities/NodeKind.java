@@ -0,0 +1,36 @@
+package entities;
+
+/**
+ * Qué construcción del lenguaje es un nodo del árbol de parseo. El parser la apunta al aplicar
+ * las producciones marcadas con {@code "kind"} en {@code grammar.json}, así que
+ * {@code SemanticAnalyzer} y {@code TACGenerator} deciden qué hacer con un nodo sin mirar la forma
+ * de sus hijos. Los nodos sin marca son {@link #OTHER}.
+ */
+public enum NodeKind {
+    /** {@code <UNIT>} de {@code xat}. */
+    MAIN,
+    /** {@code <UNIT>} de una función (o de un array global, que comparte el prefijo {@code jajaj}). */
+    FUNCTION,
+    /** {@code <UNIT>} de una variable global con valor inicial. */
+    GLOBAL_DECLARATION,
+    /** {@code <CONTENT>} con una declaración local. */
+    DECLARATION,
+    /** {@code <ID_CONTENT>} de una asignación {@code a -> ... xd}. */
+    ASSIGNATION,
+    /** {@code <CONTENT>} de {@code pos i de a -> ... xd}. */
+    ARRAY_ASSIGNATION,
+    WHILE,
+    IF,
+    /** {@code <CONTENT>} de un {@code xinpum}. */
+    RETURN,
+    /** {@code <EXPRESSIO>} y {@code <TERME>}. */
+    OPERATION,
+    /** {@code <COMPARACIO>}. */
+    COMPARATION,
+    /**
+     * Operación binaria {@code [izquierda, operador, derecha]} del parser por precedencias; no sale
+     * de la gramática.
+     */
+    BINARY,
+    OTHER
+}
@@ -7,6 +7,7 @@ public class ParserTableBuilder {
     private Grammar grammar;
     private Map<String, List<List<String>>> grammarRules;
     private Map<String, Map<String, List<String>>> parsingTable;
+    private LL1Table intTable;
 
     private Map<String, Set<String>> firstSets;
     private Map<String, Set<String>> followSets;
@@ -23,15 +24,47 @@ public class ParserTableBuilder {
         this.followSets = new HashMap<>();
     }
 
+    /**
+     * Constructor para una tabla ya calculada (desde un snapshot): la tabla de mapas se rellena
+     * a partir de la entera, apuntando a las mismas listas de producción de la gramática.
+     */
+    ParserTableBuilder(Dictionary dictionary, Grammar grammar, LL1Table intTable) {
+        this(dictionary, grammar);
+        this.intTable = intTable;
+        intTable.setActions(grammar);
+
+        List<String> nonTerminals = new ArrayList<>(grammarRules.keySet());
+        nonTerminals.sort(null);
+        List<List<String>> byIndex = new ArrayList<>();
+        for (String nt : nonTerminals) {
+            byIndex.addAll(grammarRules.get(nt));
+        }
+
+        initParsingTable();
+        for (String nt : nonTerminals) {
+            int ntId = intTable.getSymbolId(nt);
+            Map<String, List<String>> row = parsingTable.get(nt);
+            for (int t = 0; t <= intTable.getEndMarker(); t++) {
+                int index = intTable.predict(ntId, t);
+                if (index != LL1Table.NO_PRODUCTION) row.put(intTable.getSymbolName(t), byIndex.get(index));
+            }
+        }
+    }
+
     /**
      * Construye la tabla de parsing LL(1).
      */
     public void buildParsingTable() {
-        this.firstSets = computeFirstSets(this.grammarRules);
-        this.followSets = computeFollowSets(this.grammarRules, this.firstSets, "<AXIOMA>");
+        GrammarBitsets sets = new GrammarBitsets(grammarRules, EPSILON, END_MARKER);
+        sets.computeFirst();
+        sets.computeFollow("<AXIOMA>");
+        this.firstSets = toSets(sets, sets.first);
+        this.followSets = toSets(sets, sets.follow);
 
         initParsingTable();
-        fillParsingTable();
+        fillParsingTable(sets);
+        intTable = new LL1Table(dictionary, grammarRules, parsingTable, END_MARKER, EPSILON);
+        intTable.setActions(grammar);
     }
 
     /**
@@ -41,55 +74,20 @@ public class ParserTableBuilder {
         return parsingTable;
     }
 
+    /**
+     * Devuelve la misma tabla con los símbolos codificados como enteros densos.
+     */
+    public LL1Table getIntTable() {
+        return intTable;
+    }
+
     // ------------------------
     // 1. Cálculo de FIRST
     // ------------------------
     public static Map<String, Set<String>> computeFirstSets(Map<String, List<List<String>>> grammarRules) {
-        Map<String, Set<String>> first = new HashMap<>();
-        Set<String> nonTerminals = grammarRules.keySet();
-
-        for (String nt : nonTerminals) {
-            first.put(nt, new HashSet<>());
-        }
-
-        boolean changed;
-        do {
-            changed = false;
-            for (String A : nonTerminals) {
-                for (List<String> production : grammarRules.get(A)) {
-                    Set<String> firstA = first.get(A);
-                    int beforeSize = firstA.size();
-
-                    boolean derivesEpsilonAll = true;
-                    for (String symbol : production) {
-                        if (nonTerminals.contains(symbol)) {
-                            Set<String> firstSym = new HashSet<>(first.get(symbol));
-                            firstSym.remove(EPSILON);
-                            firstA.addAll(firstSym);
-
-                            if (!first.get(symbol).contains(EPSILON)) {
-                                derivesEpsilonAll = false;
-                                break;
-                            }
-                        } else {
-                            firstA.add(symbol);
-                            derivesEpsilonAll = false;
-                            break;
-                        }
-                    }
-
-                    if (derivesEpsilonAll) {
-                        firstA.add(EPSILON);
-                    }
-
-                    if (firstA.size() > beforeSize) {
-                        changed = true;
-                    }
-                }
-            }
-        } while (changed);
-
-        return first;
+        GrammarBitsets sets = new GrammarBitsets(grammarRules, EPSILON, END_MARKER);
+        sets.computeFirst();
+        return toSets(sets, sets.first);
     }
 
     // -------------------------
@@ -100,48 +98,18 @@ public class ParserTableBuilder {
             Map<String, Set<String>> firstSets,
             String startSymbol) {
 
-        Map<String, Set<String>> follow = new HashMap<>();
-        for (String nt : grammarRules.keySet()) {
-            follow.put(nt, new HashSet<>());
-        }
-        follow.get(startSymbol).add(END_MARKER);
-
-        boolean changed;
-        do {
-            changed = false;
-            for (Map.Entry<String, List<List<String>>> entry : grammarRules.entrySet()) {
-                String A = entry.getKey();
-                for (List<String> production : entry.getValue()) {
-                    Set<String> trailer = new HashSet<>(follow.get(A));
-                    for (int i = production.size() - 1; i >= 0; i--) {
-                        String symbol = production.get(i);
-                        if (grammarRules.containsKey(symbol)) {
-                            Set<String> followSym = follow.get(symbol);
-                            int before = followSym.size();
-                            followSym.addAll(trailer);
-                            if (followSym.size() > before) {
-                                changed = true;
-                            }
-
-                            Set<String> firstSym = firstSets.get(symbol);
-                            if (firstSym.contains(EPSILON)) {
-                                Set<String> minusEps = new HashSet<>(firstSym);
-                                minusEps.remove(EPSILON);
-                                trailer.addAll(minusEps);
-                            } else {
-                                trailer = new HashSet<>(firstSym);
-                                trailer.remove(EPSILON);
-                            }
-                        } else {
-                            trailer.clear();
-                            trailer.add(symbol);
-                        }
-                    }
-                }
-            }
-        } while (changed);
+        GrammarBitsets sets = new GrammarBitsets(grammarRules, EPSILON, END_MARKER);
+        sets.setFirst(firstSets);
+        sets.computeFollow(startSymbol);
+        return toSets(sets, sets.follow);
+    }
 
-        return follow;
+    private static Map<String, Set<String>> toSets(GrammarBitsets sets, long[][] bits) {
+        Map<String, Set<String>> result = new HashMap<>();
+        for (int n = 0; n < sets.nonTerminals.size(); n++) {
+            result.put(sets.nonTerminals.get(n), sets.toSet(bits[n]));
+        }
+        return result;
     }
 
     // -------------------------
@@ -153,58 +121,43 @@ public class ParserTableBuilder {
         }
     }
 
-    private void fillParsingTable() {
-        // Conjunto de terminales (tokens) + marcador final
-        Set<String> terminals = new HashSet<>(dictionary.getTokenPatterns().keySet());
-        terminals.add(END_MARKER);
+    private void fillParsingTable(GrammarBitsets sets) {
+        // Terminales (tokens) + marcador final, por id de terminal de los conjuntos de bits
+        boolean[] isToken = new boolean[sets.terminals.size()];
+        for (int t = 0; t < isToken.length; t++) {
+            String name = sets.terminals.get(t);
+            isToken[t] = END_MARKER.equals(name) || dictionary.getTokenPatterns().containsKey(name);
+        }
 
-        for (String A : grammarRules.keySet()) {
+        for (int n = 0; n < sets.nonTerminals.size(); n++) {
+            String A = sets.nonTerminals.get(n);
             Map<String, List<String>> row = parsingTable.get(A);
-            for (List<String> prod : grammarRules.get(A)) {
-                Set<String> firstAlpha = computeFirstOfSequence(prod);
+            List<List<String>> prods = grammarRules.get(A);
+            for (int p = 0; p < prods.size(); p++) {
+                List<String> prod = prods.get(p);
+                long[] firstAlpha = sets.firstOfSequence(sets.productions[n][p]);
                 // 1) FIRST(α) \ {ε}
-                for (String t : firstAlpha) {
-                    if (EPSILON.equals(t) || !terminals.contains(t)) continue;
-                    if (row.containsKey(t)) {
-                        throw new RuntimeException("Tabla LL(1) conflictiva: " + A + " / " + t);
+                for (int t = GrammarBitsets.nextBit(firstAlpha, 0); t >= 0; t = GrammarBitsets.nextBit(firstAlpha, t + 1)) {
+                    if (t == GrammarBitsets.EPSILON_BIT || !isToken[t]) continue;
+                    String terminal = sets.terminals.get(t);
+                    if (row.containsKey(terminal)) {
+                        throw new RuntimeException("Tabla LL(1) conflictiva: " + A + " / " + terminal);
                     }
-                    row.put(t, prod);
+                    row.put(terminal, prod);
                 }
                 // 2) Si ε ∈ FIRST(α), usar FOLLOW(A)
-                if (firstAlpha.contains(EPSILON)) {
-                    for (String b : followSets.get(A)) {
-                        if (!terminals.contains(b) || row.containsKey(b)) continue;
-                        row.put(b, prod);
+                if (GrammarBitsets.has(firstAlpha, GrammarBitsets.EPSILON_BIT)) {
+                    long[] followA = sets.follow[n];
+                    for (int t = GrammarBitsets.nextBit(followA, 0); t >= 0; t = GrammarBitsets.nextBit(followA, t + 1)) {
+                        String terminal = sets.terminals.get(t);
+                        if (!isToken[t] || row.containsKey(terminal)) continue;
+                        row.put(terminal, prod);
                     }
                 }
             }
         }
     }
 
-    private Set<String> computeFirstOfSequence(List<String> symbols) {
-        Set<String> result = new HashSet<>();
-        boolean allEpsilon = true;
-        for (String sym : symbols) {
-            Set<String> symFirst;
-            if (firstSets.containsKey(sym)) {
-                symFirst = new HashSet<>(firstSets.get(sym));
-            } else {
-                symFirst = new HashSet<>();
-                symFirst.add(sym);
-            }
-            if (symFirst.contains(EPSILON)) {
-                symFirst.remove(EPSILON);
-                result.addAll(symFirst);
-            } else {
-                result.addAll(symFirst);
-                allEpsilon = false;
-                break;
-            }
-        }
-        if (allEpsilon) result.add(EPSILON);
-        return result;
-    }
-
     // Método opcional para debug
     private void printingTable() {
         System.out.println("\n<< LL(1) TABLE >>");
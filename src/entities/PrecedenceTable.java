@@ -0,0 +1,90 @@
+package entities;
+
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Tabla de precedencias de los operadores, para el parser de expresiones por precedencias de
+ * {@code ParserAnalyzer}. Se lee de {@code precedence.json}, al lado de {@code diccionari.json}.
+ * <p>
+ * Cada entrada es un no terminal de la gramática cuyas expresiones se parsean así
+ * ({@code <EXPRESSIO>}, {@code <CONDICIO>}) con los tipos de token que pueden ser operandos, el par
+ * de tokens que agrupa (opcional) y los operadores binarios con su precedencia (más alta, más
+ * fuerte) y asociatividad: {@code left} por defecto, {@code right} o {@code none} (no se pueden
+ * encadenar, como {@code a < b < c}).
+ */
+public class PrecedenceTable {
+
+    public enum Assoc { LEFT, RIGHT, NONE }
+
+    public record Operator(int precedence, Assoc assoc) {}
+
+    /**
+     * @param open  token que abre un grupo, o {@code null} si no hay paréntesis
+     * @param close token que lo cierra
+     */
+    public record Context(List<String> operands, String open, String close, Map<String, Operator> operators) {}
+
+    private final Map<String, Context> contexts = new HashMap<>();
+
+    /**
+     * @param filePath ruta del JSON con la tabla
+     */
+    public PrecedenceTable(String filePath) {
+        JSONObject json;
+        try {
+            json = (JSONObject) new JSONParser().parse(new FileReader(filePath));
+        } catch (Exception e) {
+            throw new RuntimeException("No se puede leer la tabla de precedencias " + filePath + ": " + e.getMessage());
+        }
+
+        for (Object key : json.keySet()) {
+            String nonTerminal = (String) key;
+            JSONObject entry = (JSONObject) json.get(key);
+
+            List<String> operands = new ArrayList<>();
+            for (Object operand : (JSONArray) entry.get("operands")) operands.add((String) operand);
+
+            String open = null;
+            String close = null;
+            JSONArray group = (JSONArray) entry.get("group");
+            if (group != null) {
+                if (group.size() != 2) throw new RuntimeException(nonTerminal + ": \"group\" tiene que ser [abre, cierra]");
+                open = (String) group.get(0);
+                close = (String) group.get(1);
+            }
+
+            Map<String, Operator> operators = new HashMap<>();
+            JSONObject operatorsJson = (JSONObject) entry.get("operators");
+            for (Object op : operatorsJson.keySet()) {
+                JSONObject operator = (JSONObject) operatorsJson.get(op);
+                int precedence = ((Number) operator.get("precedence")).intValue();
+                if (precedence < 1) throw new RuntimeException(nonTerminal + ": la precedencia de " + op + " tiene que ser al menos 1");
+                String assoc = operator.containsKey("assoc") ? (String) operator.get("assoc") : "left";
+                operators.put((String) op, new Operator(precedence, assocOf(nonTerminal, assoc)));
+            }
+
+            contexts.put(nonTerminal, new Context(Collections.unmodifiableList(operands), open, close,
+                    Collections.unmodifiableMap(operators)));
+        }
+    }
+
+    private static Assoc assocOf(String nonTerminal, String assoc) {
+        for (Assoc value : Assoc.values()) {
+            if (value.name().equalsIgnoreCase(assoc)) return value;
+        }
+        throw new RuntimeException(nonTerminal + ": asociatividad desconocida " + assoc + " (left, right o none)");
+    }
+
+    /** No terminal -> cómo se parsean sus expresiones. */
+    public Map<String, Context> getContexts() {
+        return Collections.unmodifiableMap(contexts);
+    }
+}
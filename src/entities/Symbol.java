@@ -4,6 +4,7 @@ package entities;
 public class Symbol {
     private final String name;
     private final String type;
+    private final int typeCode;
     private final int scope;
     private final int line;
     private final int column;
@@ -11,6 +12,7 @@ public class Symbol {
     public Symbol(String name, String type, int scope, int line, int column) {
         this.name   = name;
         this.type   = type;
+        this.typeCode = Types.code(type);
         this.scope  = scope;
         this.line   = line;
         this.column = column;
@@ -18,6 +20,7 @@ public class Symbol {
 
     public String getName()   { return name; }
     public String getType()   { return type; }
+    public int getTypeCode()  { return typeCode; }
     public int getScope()  { return scope; }
     public int getLine()   { return line; }
     public int getColumn() { return column; }
@@ -2,22 +2,73 @@ package entities;
 
 import SemanticAnalyzer.SemanticErrorType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Collection;
 
+/**
+ * Taula de símbols amb els scopes en arbre: cada scope sap quin és el seu pare i una cerca només
+ * puja pels scopes que l'envolten, no per tots els que s'han obert abans. Els noms es converteixen
+ * en ids enters un cop ({@link #intern}) i els símbols de tots els scopes viuen en una sola taula
+ * d'adreçament obert indexada per (scope, id del nom), així que cada pas de la cerca és un accés a
+ * un array. El cost d'una cerca depèn de la profunditat de l'scope, no de quants n'hi ha.
+ */
 public class SymbolTable {
+    /** L'àmbit global, on comencen tots els altres. */
+    public static final int GLOBAL = 0;
+    private static final long EMPTY = -1L;
+
+    // pare de cada scope; el global no en té
+    private int[] parents = {-1};
+    // símbols de cada scope, en ordre de declaració
+    private final List<List<Symbol>> scopeSymbols = new ArrayList<>(List.of(new ArrayList<>()));
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    // ids dels noms que tenen algun símbol, encara que sigui en un altre scope
+    private final BitSet declaredNames = new BitSet();
+
+    // (scope << 32 | id del nom) -> símbol
+    private long[] keys = newKeys(64);
+    private Symbol[] values = new Symbol[64];
+    private int size;
 
-    // mapa: scope -> (nom símbol -> Symbol)
-    private final Map<Integer, Map<String, Symbol>> table = new HashMap<>();
+    /**
+     * Obre un scope nou dins de {@code parent}.
+     * @return l'id del scope, que és el següent dels ja oberts
+     */
+    public int openScope(int parent) {
+        checkScope(parent);
+        int scope = scopeSymbols.size();
+        if (scope == parents.length) parents = Arrays.copyOf(parents, scope * 2);
+        parents[scope] = parent;
+        scopeSymbols.add(new ArrayList<>());
+        return scope;
+    }
+
+    /** El scope que envolta {@code scope}, o -1 si és el global. */
+    public int getParent(int scope) {
+        checkScope(scope);
+        return parents[scope];
+    }
+
+    /** Id enter del nom; el mateix nom dona sempre el mateix id. */
+    public int intern(String name) {
+        return nameIds.computeIfAbsent(name, n -> nameIds.size());
+    }
 
     public void addSymbol(String name, String type, int scope, int line, int column) {
-        // Si el scope no existeix, el creem
-        table.putIfAbsent(scope, new HashMap<>());
+        checkScope(scope);
+        int nameId = intern(name);
+        long key = key(scope, nameId);
+        int slot = slot(key);
 
         // Comprovem si el símbol ja existeix en el scope actual
-        if (table.get(scope).containsKey(name)) {
+        if (keys[slot] == key) {
             throw new RuntimeException(
                     SemanticErrorType.SYMBOL_REDECLARED_IN_SCOPE.format(name, scope)
             );
@@ -25,46 +76,109 @@ public class SymbolTable {
 
         // Afegim el nou símbol a la taula
         Symbol symbol = new Symbol(name, type, scope, line, column);
-        table.get(scope).put(name, symbol);
+        keys[slot] = key;
+        values[slot] = symbol;
+        scopeSymbols.get(scope).add(symbol);
+        declaredNames.set(nameId);
+        if (++size * 2 > keys.length) grow();
     }
 
     /**
-     * Retorna el símbol amb nom `name`, cercant des del scope donat cap a l'àmbit global (0).
+     * Retorna el símbol amb nom `name`, cercant des del scope donat cap als seus pares fins a
+     * l'àmbit global.
      */
     public Symbol getSymbol(String name, int scope) {
-        for (int s = scope; s >= 0; s--) {
-            Map<String, Symbol> scopeTable = table.get(s);
-            if (scopeTable != null && scopeTable.containsKey(name)) {
-                return scopeTable.get(name);
-            }
+        Integer id = nameIds.get(name);
+        return id == null ? null : getSymbol(id, scope);
+    }
+
+    /** Com {@link #getSymbol(String, int)}, amb el nom ja convertit amb {@link #intern}. */
+    public Symbol getSymbol(int nameId, int scope) {
+        checkScope(scope);
+        for (int s = scope; s >= 0; s = parents[s]) {
+            long key = key(s, nameId);
+            int slot = slot(key);
+            if (keys[slot] == key) return values[slot];
         }
         return null;
     }
 
+    /** Si `name` està declarat en algun scope, sigui on sigui. */
+    public boolean isDeclared(String name) {
+        Integer id = nameIds.get(name);
+        return id != null && declaredNames.get(id);
+    }
+
+    /** Si `name` està declarat al mateix scope, sense mirar els pares. */
+    public boolean isDeclaredIn(String name, int scope) {
+        checkScope(scope);
+        Integer id = nameIds.get(name);
+        return id != null && keys[slot(key(scope, id))] == key(scope, id);
+    }
+
     /**
      * Retorna els símbols definit en un scope concret. Si no n'hi ha, retorna un mapa buit.
      */
     public Map<String, Symbol> getScopeSymbols(int scope) {
-        return Collections.unmodifiableMap(
-                table.getOrDefault(scope, Collections.emptyMap())
-        );
+        if (scope < 0 || scope >= scopeSymbols.size()) return Collections.emptyMap();
+        Map<String, Symbol> symbols = new LinkedHashMap<>();
+        for (Symbol symbol : scopeSymbols.get(scope)) symbols.put(symbol.getName(), symbol);
+        return Collections.unmodifiableMap(symbols);
     }
 
     /**
      * Retorna tots els símbols de tots els scopes (aplanant).
      */
     public Collection<Symbol> getAllSymbols() {
-        return table.values().stream()
-                .flatMap(m -> m.values().stream())
+        return scopeSymbols.stream()
+                .flatMap(List::stream)
                 .toList();
     }
 
     public void printTable() {
         System.out.println("=== Taula de símbols ===");
-        for (int scope : table.keySet()) {
-            for (Symbol sym : table.get(scope).values()) {
+        for (List<Symbol> symbols : scopeSymbols) {
+            for (Symbol sym : symbols) {
                 System.out.println("\t" + sym);
             }
         }
     }
+
+    private void checkScope(int scope) {
+        if (scope < 0 || scope >= scopeSymbols.size()) {
+            throw new IllegalArgumentException("Scope no obert: " + scope);
+        }
+    }
+
+    private static long key(int scope, int nameId) {
+        return (long) scope << 32 | nameId;
+    }
+
+    /** Posició de la clau a la taula o, si no hi és, la primera lliure on aniria. */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ hash >>> 32) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Symbol[] oldValues = values;
+        keys = newKeys(oldKeys.length * 2);
+        values = new Symbol[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
 }
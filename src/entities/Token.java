@@ -2,6 +2,7 @@ package entities;
 
 public class Token {
     private String type;
+    private int typeId;
     private String lexeme;
     private int line;
     private int column;
@@ -15,6 +16,20 @@ public class Token {
      * @param column The column number where the token was found.
      */
     public Token(String type, String lexeme, int line, int column) {
+        this(-1, type, lexeme, line, column);
+    }
+
+    /**
+     * Constructor for Token when the dictionary id of the type is known.
+     *
+     * @param typeId The dictionary id of the type, or -1 if unknown.
+     * @param type   The type of the token.
+     * @param lexeme The lexeme of the token.
+     * @param line   The line number where the token was found.
+     * @param column The column number where the token was found.
+     */
+    public Token(int typeId, String type, String lexeme, int line, int column) {
+        this.typeId = typeId;
         this.type = type;
         this.lexeme = lexeme;
         this.line = line;
@@ -30,6 +45,15 @@ public class Token {
         return type;
     }
 
+    /**
+     * Returns the dictionary id of the token type, when the lexer that produced the token knows it.
+     *
+     * @return The type id, or -1 if it is unknown.
+     */
+    public int getTypeId() {
+        return typeId;
+    }
+
     /**
      * Returns the lexeme of the token.
      *
@@ -65,10 +89,10 @@ public class Token {
     @Override
     public String toString() {
         return "Token{" +
-                "type='" + type + '\'' +
-                ", lexeme='" + lexeme + '\'' +
-                ", line=" + line +
-                ", column=" + column +
+                "type='" + getType() + '\'' +
+                ", lexeme='" + getLexeme() + '\'' +
+                ", line=" + getLine() +
+                ", column=" + getColumn() +
                 '}';
     }
 }
@@ -0,0 +1,307 @@
+package entities;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact, struct-of-arrays store for a whole token stream.
+ * <p>
+ * Instead of one {@link Token} object (plus its lexeme String) per token, every field lives in a
+ * parallel primitive array: the dictionary type id, the start offset and length of the lexeme in
+ * the source, the line and column, and a value slot. INT_VALUE and FLOAT_VALUE tokens are parsed
+ * once while lexing and their value is kept unboxed in that slot.
+ * <p>
+ * The source text is referenced, not copied. A buffer can span several sources (segments), for
+ * instance the windows of a mapped file; offsets are relative to the segment of each token.
+ * Existing callers can still get a {@link Token} for any index through {@link #get(int)}.
+ */
+public class TokenBuffer {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String[] typeNames;
+    private final String[] literals;
+    private final int intValueType;
+    private final int floatValueType;
+    private final int idType;
+    private final LexemePool lexemes;
+
+    private int size;
+    private int[] types = new int[INITIAL_CAPACITY];
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] lengths = new int[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] columns = new int[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    private int segmentCount;
+    private int[] segmentFirst = new int[4];
+    private Object[] segmentSource = new Object[4];
+
+    /**
+     * Creates an empty buffer whose type ids are the ones of the dictionary.
+     *
+     * @param dictionary The dictionary the tokens come from.
+     */
+    public TokenBuffer(Dictionary dictionary) {
+        typeNames = dictionary.getTokenTypes().toArray(new String[0]);
+        literals = new String[typeNames.length];
+        for (int i = 0; i < typeNames.length; i++) {
+            // The same String instance is handed out for every keyword or symbol of that type
+            literals[i] = dictionary.getLiteral(typeNames[i]);
+        }
+        intValueType = dictionary.getTypeId("INT_VALUE");
+        floatValueType = dictionary.getTypeId("FLOAT_VALUE");
+        idType = dictionary.getTypeId("ID");
+        lexemes = new LexemePool();
+    }
+
+    /**
+     * Creates an empty buffer sharing the type table of another one, e.g. for one chunk of a file
+     * that will later be {@link #append appended} to it.
+     *
+     * @param shape The buffer whose type table is reused.
+     */
+    public TokenBuffer(TokenBuffer shape) {
+        typeNames = shape.typeNames;
+        literals = shape.literals;
+        intValueType = shape.intValueType;
+        floatValueType = shape.floatValueType;
+        idType = shape.idType;
+        lexemes = shape.lexemes;
+    }
+
+    /**
+     * Starts a new source segment made of characters; the following tokens point into it.
+     */
+    public void beginSegment(CharSequence source) {
+        addSegment(source);
+    }
+
+    /**
+     * Starts a new source segment made of UTF-8 bytes; the following tokens point into it.
+     */
+    public void beginSegment(ByteBuffer source) {
+        addSegment(source);
+    }
+
+    private void addSegment(Object source) {
+        addSegment(source, size);
+    }
+
+    private void addSegment(Object source, int first) {
+        if (segmentCount == segmentFirst.length) {
+            segmentFirst = Arrays.copyOf(segmentFirst, segmentCount * 2);
+            segmentSource = Arrays.copyOf(segmentSource, segmentCount * 2);
+        }
+        segmentFirst[segmentCount] = first;
+        segmentSource[segmentCount] = source;
+        segmentCount++;
+    }
+
+    /**
+     * Appends a token of the current segment. Numeric literals are parsed here, once.
+     *
+     * @param type   The dictionary type id.
+     * @param start  Offset of the lexeme in the current segment.
+     * @param length Length of the lexeme (bytes or chars, depending on the segment).
+     * @param line   Line of the token.
+     * @param column Column of the token.
+     */
+    public void add(int type, int start, int length, int line, int column) {
+        if (size == types.length) grow();
+
+        types[size] = type;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+
+        if (type == intValueType) {
+            values[size - 1] = parseInt(size - 1);
+        } else if (type == floatValueType) {
+            values[size - 1] = Double.doubleToRawLongBits(Double.parseDouble(getLexeme(size - 1)));
+        }
+    }
+
+    /**
+     * Appends every token of another buffer, moving them {@code lineOffset} lines down.
+     * Consecutive segments over the same source are merged into one.
+     *
+     * @param other      The buffer to copy, with the same type table.
+     * @param lineOffset Lines to add to the line of every copied token.
+     */
+    public void append(TokenBuffer other, int lineOffset) {
+        for (int k = 0; k < other.segmentCount; k++) {
+            int first = size + other.segmentFirst[k];
+            boolean sameSource = segmentCount > 0 && segmentSource[segmentCount - 1] == other.segmentSource[k];
+            if (!sameSource) addSegment(other.segmentSource[k], first);
+        }
+
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.types, 0, types, size, other.size);
+        System.arraycopy(other.starts, 0, starts, size, other.size);
+        System.arraycopy(other.lengths, 0, lengths, size, other.size);
+        System.arraycopy(other.columns, 0, columns, size, other.size);
+        System.arraycopy(other.values, 0, values, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            lines[size + i] = other.lines[i] + lineOffset;
+        }
+        size += other.size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        while (types.length < capacity) grow();
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    private long parseInt(int index) {
+        Object source = segmentSource[segmentOf(index)];
+        int start = starts[index];
+        long value = 0;
+        try {
+            for (int k = 0; k < lengths[index]; k++) {
+                int digit = charAt(source, start + k) - '0';
+                value = Math.addExact(Math.multiplyExact(value, 10), digit);
+            }
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Integer literal out of range on line " + lines[index] + ": " + getLexeme(index));
+        }
+        return value;
+    }
+
+    private static char charAt(Object source, int offset) {
+        return source instanceof ByteBuffer bytes ? (char) (bytes.get(offset) & 0xFF) : ((CharSequence) source).charAt(offset);
+    }
+
+    public int size() { return size; }
+
+    public int getType(int index) { return types[index]; }
+
+    public String getTypeName(int index) { return typeNames[types[index]]; }
+
+    public int getStart(int index) { return starts[index]; }
+
+    public int getLength(int index) { return lengths[index]; }
+
+    public int getLine(int index) { return lines[index]; }
+
+    public int getColumn(int index) { return columns[index]; }
+
+    /** Value of an INT_VALUE token. */
+    public long getIntValue(int index) { return values[index]; }
+
+    /** Value of a FLOAT_VALUE token. */
+    public double getFloatValue(int index) { return Double.longBitsToDouble(values[index]); }
+
+    /**
+     * Builds the lexeme of a token. Types with a fixed spelling return a shared String and never
+     * touch the source; identifiers are interned, so each distinct name is only built once.
+     */
+    public String getLexeme(int index) {
+        String literal = literals[types[index]];
+        if (literal != null) return literal;
+
+        Object source = segmentSource[segmentOf(index)];
+        int start = starts[index];
+        int length = lengths[index];
+        if (types[index] == idType) {
+            int id = source instanceof ByteBuffer bytes
+                    ? lexemes.intern(bytes, start, length)
+                    : lexemes.intern((CharSequence) source, start, start + length);
+            return lexemes.get(id);
+        }
+        if (source instanceof ByteBuffer bytes) {
+            return StandardCharsets.UTF_8.decode(bytes.slice(start, length)).toString();
+        }
+        return ((CharSequence) source).subSequence(start, start + length).toString();
+    }
+
+    /** Pool of the identifier lexemes handed out by {@link #getLexeme}. */
+    public LexemePool getLexemePool() {
+        return lexemes;
+    }
+
+    private int segmentOf(int index) {
+        if (segmentCount == 1) return 0;
+        int i = Arrays.binarySearch(segmentFirst, 0, segmentCount, index);
+        if (i < 0) return -i - 2;
+        // Empty segments share their first index with the next one: take the last of them
+        while (i + 1 < segmentCount && segmentFirst[i + 1] == index) i++;
+        return i;
+    }
+
+    /**
+     * Returns a lightweight {@link Token} view of a token. The view reads from this buffer and
+     * only keeps the lexeme once it has been asked for.
+     */
+    public Token get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return new View(this, index);
+    }
+
+    /**
+     * Heap bytes used by the arrays of this buffer divided by the number of tokens.
+     */
+    public double bytesPerToken() {
+        long bytes = (long) types.length * (5 * Integer.BYTES + Long.BYTES);
+        return size == 0 ? 0 : (double) bytes / size;
+    }
+
+    /**
+     * Heap bytes this buffer keeps alive, counted with {@link HeapSize} instead of measured: the
+     * token arrays at their capacity, the segment table, the interned lexemes and every character
+     * source, since the buffer holds on to them. Mapped sources live outside the heap, and the type
+     * tables are shared with the dictionary; neither is counted.
+     */
+    public long retainedBytes() {
+        long bytes = 5 * HeapSize.array(types.length, Integer.BYTES) + HeapSize.array(values.length, Long.BYTES)
+                + HeapSize.array(segmentFirst.length, Integer.BYTES)
+                + HeapSize.array(segmentSource.length, HeapSize.REFERENCE)
+                + lexemes.retainedBytes();
+        for (int k = 0; k < segmentCount; k++) {
+            if (segmentSource[k] instanceof CharSequence text) bytes += HeapSize.string(text);
+        }
+        return bytes;
+    }
+
+    private static class View extends Token {
+        private final TokenBuffer buffer;
+        private final int index;
+        private String lexeme;
+
+        View(TokenBuffer buffer, int index) {
+            super(null, null, 0, 0);
+            this.buffer = buffer;
+            this.index = index;
+        }
+
+        @Override
+        public String getType() { return buffer.getTypeName(index); }
+
+        @Override
+        public int getTypeId() { return buffer.getType(index); }
+
+        @Override
+        public String getLexeme() {
+            if (lexeme == null) lexeme = buffer.getLexeme(index);
+            return lexeme;
+        }
+
+        @Override
+        public int getLine() { return buffer.getLine(index); }
+
+        @Override
+        public int getColumn() { return buffer.getColumn(index); }
+    }
+}
@@ -0,0 +1,66 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Códigos enteros de los tipos del lenguaje, para comparar tipos con {@code ==} en vez de con
+ * {@code equals} sobre cadenas. Los tipos básicos tienen código fijo; cada tipo array
+ * ({@code ARRAY[5]INT}) recibe uno la primera vez que aparece y se queda con él mientras dure el
+ * programa, así que el mismo nombre da siempre el mismo código, también entre hilos.
+ */
+public final class Types {
+    /** Un nodo al que el análisis semántico aún no ha puesto tipo. */
+    public static final int UNTYPED = -1;
+    /** Expresión sin tipo conocido (un símbolo no declarado, por ejemplo). */
+    public static final int UNKNOWN = 0;
+    public static final int INT = 1;
+    public static final int FLOAT = 2;
+    public static final int CHAR = 3;
+
+    private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Nombre y tipo de los elementos (UNKNOWN si no es un array) de cada código
+    private static final List<String> names = new ArrayList<>();
+    private static final List<Integer> elements = new ArrayList<>();
+
+    static {
+        for (String name : List.of("UNKNOWN", "INT", "FLOAT", "CHAR")) code(name);
+    }
+
+    private Types() {}
+
+    /** Código del tipo con ese nombre, tal como lo escribe el análisis semántico. */
+    public static int code(String name) {
+        Integer code = codes.get(name);
+        return code != null ? code : register(name);
+    }
+
+    private static synchronized int register(String name) {
+        Integer code = codes.get(name);
+        if (code != null) return code;
+
+        int element = UNKNOWN;
+        if (name.startsWith("ARRAY")) {
+            element = code(name.substring(name.indexOf(']') + 1).replace("_VALUE", ""));
+        }
+        names.add(name);
+        elements.add(element);
+        codes.put(name, names.size() - 1);
+        return names.size() - 1;
+    }
+
+    public static synchronized String name(int code) {
+        return names.get(code);
+    }
+
+    public static boolean isArray(int code) {
+        return name(code).startsWith("ARRAY");
+    }
+
+    /** Tipo de los elementos de un array, o {@link #UNKNOWN} si {@code code} no es un array. */
+    public static synchronized int elementOf(int code) {
+        return elements.get(code);
+    }
+}